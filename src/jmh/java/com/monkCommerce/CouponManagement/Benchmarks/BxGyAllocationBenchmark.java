@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement.Benchmarks;
+
+import com.monkCommerce.CouponManagement.Entities.CartItem;
+import com.monkCommerce.CouponManagement.Rules.BxGyRule;
+import com.monkCommerce.CouponManagement.Rules.CartView;
+import com.monkCommerce.CouponManagement.Rules.CouponRuleCompiler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Discount of one mix-and-match bxgy coupon with {@code offerProducts} buy and as many get
+ * products, drawn from {@code 10 * offerProducts} product ids, on carts of {@code cartSize} lines
+ * of the same range. The repetition limit is high enough that free units are bounded by the cart,
+ * so every get product in the cart goes through the heap. Views are built outside the measurement.
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="BxGyAllocationBenchmark -prof gc"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class BxGyAllocationBenchmark {
+
+    private static final int CART_POOL_SIZE = 16;
+
+    @Param({"10", "1000"})
+    public int offerProducts;
+
+    @Param({"10", "1000", "100000"})
+    public int cartSize;
+
+    private BxGyRule rule;
+    private CartView[] carts;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42L);
+        long productRange = offerProducts * 10L;
+        long[] buyProductIds = new long[offerProducts];
+        int[] buyQuantities = new int[offerProducts];
+        long[] getProductIds = new long[offerProducts];
+        int[] getQuantities = new int[offerProducts];
+        for (int i = 0; i < offerProducts; i++) {
+            buyProductIds[i] = random.nextLong(1, productRange + 1);
+            buyQuantities[i] = random.nextInt(1, 4);
+            getProductIds[i] = random.nextLong(1, productRange + 1);
+            getQuantities[i] = 1;
+        }
+        rule = new BxGyRule(1L, 0L, Long.MAX_VALUE, buyProductIds, buyQuantities, getProductIds, getQuantities,
+                Integer.MAX_VALUE, CouponRuleCompiler.BXGY_ROUNDING);
+        carts = new CartView[CART_POOL_SIZE];
+        for (int i = 0; i < CART_POOL_SIZE; i++) {
+            List<CartItem> items = new ArrayList<>(cartSize);
+            for (int j = 0; j < cartSize; j++) {
+                items.add(new CartItem(random.nextLong(1, productRange + 1), random.nextInt(1, 6),
+                        random.nextInt(100, 10_000) / 100.0, 0.0));
+            }
+            carts[i] = CartView.of(items);
+        }
+    }
+
+    @Benchmark
+    public long discount() {
+        next = (next + 1) & (CART_POOL_SIZE - 1);
+        return rule.discount(carts[next]);
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement.Benchmarks;
+
+import com.monkCommerce.CouponManagement.DTO.BestCouponResponse;
+import com.monkCommerce.CouponManagement.DTO.CartRequest;
+import com.monkCommerce.CouponManagement.Entities.Cart;
+import com.monkCommerce.CouponManagement.Entities.Coupon;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hot paths of {@code POST /cart/applicable-coupons} and {@code POST /cart/apply-coupon/{id}}
+ * against synthetic catalogs. Run with {@code -prof gc} (the default {@code jmh.args}) to get
+ * {@code gc.alloc.rate.norm}, e.g.
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="CartEvaluationBenchmark -p catalogSize=10000 -prof gc"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class CartEvaluationBenchmark {
+
+    private static final int CART_POOL_SIZE = 64;
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int catalogSize;
+
+    @Param({"1", "10", "100", "1000"})
+    public int cartSize;
+
+    /** Weights of cart-wise, product-wise and bxgy coupons. */
+    @Param({"40:40:20"})
+    public String couponMix;
+
+    @Param({"10000"})
+    public int productCount;
+
+    /** Entries kept by the apply result cache; 0 measures every apply as a miss. */
+    @Param({"0", "10000"})
+    public long applyCacheSize;
+
+    private ServiceWiring services;
+    private CartRequest[] carts;
+    private long[] couponIds;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SyntheticCatalog catalog = new SyntheticCatalog(42L, productCount);
+        List<Coupon> coupons = catalog.coupons(catalogSize, couponMix);
+        services = new ServiceWiring(InMemoryCouponDatabase.create(coupons), applyCacheSize);
+        carts = new CartRequest[CART_POOL_SIZE];
+        couponIds = new long[CART_POOL_SIZE];
+        for (int i = 0; i < CART_POOL_SIZE; i++) {
+            carts[i] = catalog.cart(cartSize);
+            couponIds[i] = catalog.couponId(catalogSize);
+        }
+        // Load the index and compile every rule outside the measurement.
+        services.cartServices.getApplicableCoupons(carts[0]);
+    }
+
+    @Benchmark
+    public List<Coupon> getApplicableCoupons() {
+        return services.cartServices.getApplicableCoupons(carts[nextSlot()]);
+    }
+
+    @Benchmark
+    public Cart applyCoupon() {
+        int slot = nextSlot();
+        return services.cartServices.applyCoupon(couponIds[slot], carts[slot]);
+    }
+
+    @Benchmark
+    public BestCouponResponse getBestCoupon() {
+        return services.cartServices.getBestCoupon(carts[nextSlot()]);
+    }
+
+    private int nextSlot() {
+        next = (next + 1) & (CART_POOL_SIZE - 1);
+        return next;
+    }
+}
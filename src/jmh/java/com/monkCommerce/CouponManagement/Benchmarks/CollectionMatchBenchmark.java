@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement.Benchmarks;
+
+import com.monkCommerce.CouponManagement.Entities.CartItem;
+import com.monkCommerce.CouponManagement.Rules.CartView;
+import com.monkCommerce.CouponManagement.Rules.ProductSet;
+import com.monkCommerce.CouponManagement.Rules.ProductSets;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Eligibility of a cart for {@code collections} collection-wise coupons of {@code collectionSize}
+ * products each: {@code bitmap} intersects each collection's bitmap with the cart's, built once
+ * per cart; {@code scan} looks every cart product up in a {@code HashSet} per collection, the way
+ * product lists are matched elsewhere. Both build the {@link CartView} inside the measurement.
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="CollectionMatchBenchmark -prof gc"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class CollectionMatchBenchmark {
+
+    private static final int CART_POOL_SIZE = 64;
+
+    @Param({"bitmap", "scan"})
+    public String mode;
+
+    @Param({"1000", "50000"})
+    public int collectionSize;
+
+    @Param({"20"})
+    public int collections;
+
+    @Param({"10", "100"})
+    public int cartSize;
+
+    @Param({"1000000"})
+    public int productCount;
+
+    private ProductSet[] bitmaps;
+    private Set<Long>[] sets;
+    private List<CartItem>[] carts;
+    private int next;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42L);
+        ProductSets productSets = new ProductSets();
+        bitmaps = new ProductSet[collections];
+        sets = (Set<Long>[]) new Set<?>[collections];
+        for (int c = 0; c < collections; c++) {
+            // Collections are mostly runs of neighbouring ids, like a category imported in one go.
+            List<Long> members = new ArrayList<>(collectionSize);
+            long start = random.nextLong(1, productCount - collectionSize);
+            for (int i = 0; i < collectionSize; i++) {
+                members.add(random.nextInt(10) == 0 ? random.nextLong(1, productCount + 1L) : start + i);
+            }
+            productSets.add(c, members);
+            bitmaps[c] = productSets.get(c);
+            sets[c] = new HashSet<>(members);
+        }
+        carts = (List<CartItem>[]) new List<?>[CART_POOL_SIZE];
+        for (int i = 0; i < CART_POOL_SIZE; i++) {
+            List<CartItem> items = new ArrayList<>(cartSize);
+            for (int j = 0; j < cartSize; j++) {
+                items.add(new CartItem(random.nextLong(1, productCount + 1L), 1, 10.0, 0.0));
+            }
+            carts[i] = items;
+        }
+    }
+
+    @Benchmark
+    public int eligibleCollections() {
+        next = (next + 1) & (CART_POOL_SIZE - 1);
+        CartView cart = CartView.of(carts[next]);
+        int eligible = 0;
+        if ("bitmap".equals(mode)) {
+            for (ProductSet bitmap : bitmaps) {
+                if (bitmap.intersects(cart)) {
+                    eligible++;
+                }
+            }
+        } else {
+            for (Set<Long> set : sets) {
+                for (int slot = 0; slot < cart.size(); slot++) {
+                    if (set.contains(cart.productIdAt(slot))) {
+                        eligible++;
+                        break;
+                    }
+                }
+            }
+        }
+        return eligible;
+    }
+}
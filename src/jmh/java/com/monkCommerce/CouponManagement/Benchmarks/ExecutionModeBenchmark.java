@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement.Benchmarks;
+
+import com.monkCommerce.CouponManagement.DTO.CartRequest;
+import com.monkCommerce.CouponManagement.Database.CouponDatabase;
+import com.monkCommerce.CouponManagement.Database.DatabaseAccessLimiter;
+import com.monkCommerce.CouponManagement.Entities.Coupon;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Platform versus virtual threads for {@code POST /cart/apply-coupon/{id}} when every request
+ * blocks on the repository. Each invocation submits {@code concurrency} requests at once and waits
+ * for all of them, so the score is the time to drain one burst. {@code platform} mimics Tomcat's
+ * default 200 worker threads; {@code virtual} starts a virtual thread per request, as
+ * {@code spring.threads.virtual.enabled} does. Both go through the same {@link DatabaseAccessLimiter}.
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="ExecutionModeBenchmark"
+ * </pre>
+ * The {@code virtual} mode needs a Java 21 runtime and fails its trials on older JVMs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExecutionModeBenchmark {
+
+    private static final int PLATFORM_THREADS = 200;
+
+    @Param({"platform", "virtual"})
+    public String mode;
+
+    @Param({"1000", "10000"})
+    public int concurrency;
+
+    /** Simulated query time of each repository call. */
+    @Param({"1000"})
+    public int dbLatencyMicros;
+
+    /** Permits of the limiter, i.e. the connection pool size. */
+    @Param({"10", "100"})
+    public int dbPermits;
+
+    private ServiceWiring services;
+    private ExecutorService executor;
+    private CartRequest cart;
+    private long couponId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SyntheticCatalog catalog = new SyntheticCatalog(42L, 10_000);
+        List<Coupon> coupons = catalog.coupons(10_000, "40:40:20");
+        CouponDatabase database = withLatency(InMemoryCouponDatabase.create(coupons), dbLatencyMicros);
+        services = new ServiceWiring(new DatabaseAccessLimiter(dbPermits, TimeUnit.MINUTES.toMillis(1)).wrap(database));
+        executor = "virtual".equals(mode) ? virtualThreadPerTaskExecutor() : Executors.newFixedThreadPool(PLATFORM_THREADS);
+        cart = catalog.cart(10);
+        couponId = catalog.couponId(10_000);
+        services.cartServices.getApplicableCoupons(cart);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public void burst() {
+        CompletableFuture<?>[] requests = new CompletableFuture<?>[concurrency];
+        for (int i = 0; i < concurrency; i++) {
+            requests[i] = CompletableFuture.runAsync(() -> services.cartServices.applyCoupon(couponId, cart), executor);
+        }
+        CompletableFuture.allOf(requests).join();
+    }
+
+    private static CouponDatabase withLatency(CouponDatabase database, int latencyMicros) {
+        return (CouponDatabase) Proxy.newProxyInstance(CouponDatabase.class.getClassLoader(),
+                new Class<?>[]{CouponDatabase.class}, (proxy, method, args) -> {
+                    if (method.getDeclaringClass() != Object.class) {
+                        LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(latencyMicros));
+                    }
+                    return method.invoke(database, args);
+                });
+    }
+
+    // Looked up reflectively so the benchmarks still compile for the project's Java 17 baseline.
+    private static ExecutorService virtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("Virtual threads need Java 21, running on " + Runtime.version());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
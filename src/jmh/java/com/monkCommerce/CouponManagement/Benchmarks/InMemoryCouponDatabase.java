@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement.Benchmarks;
+
+import com.monkCommerce.CouponManagement.Database.CouponDatabase;
+import com.monkCommerce.CouponManagement.Entities.Coupon;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Map-backed stand-in for the JPA repository so benchmarks measure evaluation, not H2.
+ * Only the repository methods the services call are implemented.
+ */
+final class InMemoryCouponDatabase {
+
+    private InMemoryCouponDatabase() {
+    }
+
+    static CouponDatabase create(Collection<Coupon> coupons) {
+        Map<Long, Coupon> rows = new LinkedHashMap<>();
+        AtomicLong sequence = new AtomicLong();
+        for (Coupon coupon : coupons) {
+            rows.put(coupon.getId(), coupon);
+            sequence.set(Math.max(sequence.get(), coupon.getId()));
+        }
+        return (CouponDatabase) Proxy.newProxyInstance(CouponDatabase.class.getClassLoader(),
+                new Class<?>[]{CouponDatabase.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "findAll":
+                            return new ArrayList<>(rows.values());
+                        case "findById":
+                            return Optional.ofNullable(rows.get((Long) args[0]));
+                        case "count":
+                            return (long) rows.size();
+                        case "save": {
+                            Coupon coupon = (Coupon) args[0];
+                            if (coupon.getId() == null) {
+                                coupon.setId(sequence.incrementAndGet());
+                            }
+                            rows.put(coupon.getId(), coupon);
+                            return coupon;
+                        }
+                        case "delete":
+                            rows.remove(((Coupon) args[0]).getId());
+                            return null;
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        case "toString":
+                            return "InMemoryCouponDatabase[" + rows.size() + "]";
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+}
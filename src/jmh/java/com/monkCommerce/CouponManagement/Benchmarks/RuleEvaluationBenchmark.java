@@ -0,0 +1,186 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement.Benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.monkCommerce.CouponManagement.DTO.CartRequest;
+import com.monkCommerce.CouponManagement.Entities.CartItem;
+import com.monkCommerce.CouponManagement.Entities.Coupon;
+import com.monkCommerce.CouponManagement.Rules.CartView;
+import com.monkCommerce.CouponManagement.Rules.CouponRule;
+import com.monkCommerce.CouponManagement.Rules.CouponRuleCompiler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of evaluating every coupon of a catalog against one cart, without the index. Each mode
+ * sums the discount of {@code couponCount} cart-wise and product-wise coupons:
+ * <ul>
+ *   <li>{@code switch}: the original type switch over the parsed {@code details} maps (parsed once
+ *   in setup, so this is kinder to it than the original, which parsed on every call);</li>
+ *   <li>{@code typed}: the compiled {@code cart-wise} and {@code product-wise} rules;</li>
+ *   <li>{@code dsl}: the same coupons written as {@code rule} coupons and compiled to evaluator trees.</li>
+ * </ul>
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="RuleEvaluationBenchmark -prof gc"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RuleEvaluationBenchmark {
+
+    private static final int CART_POOL_SIZE = 64;
+
+    @Param({"switch", "typed", "dsl"})
+    public String mode;
+
+    @Param({"100", "1000"})
+    public int couponCount;
+
+    @Param({"10", "100"})
+    public int cartSize;
+
+    @Param({"1000"})
+    public int productCount;
+
+    private String[] types;
+    private Map<String, Object>[] details;
+    private CouponRule[] rules;
+    private List<CartItem>[] carts;
+    private double[] cartTotals;
+    private CartView[] views;
+    private int next;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void setUp() throws IOException {
+        SyntheticCatalog catalog = new SyntheticCatalog(42L, productCount);
+        List<Coupon> coupons = catalog.coupons(couponCount, "50:50:0");
+        ObjectMapper mapper = new ObjectMapper();
+        types = new String[couponCount];
+        details = (Map<String, Object>[]) new Map<?, ?>[couponCount];
+        rules = new CouponRule[couponCount];
+        for (int i = 0; i < couponCount; i++) {
+            Coupon coupon = coupons.get(i);
+            types[i] = coupon.getType();
+            details[i] = mapper.readValue(coupon.getDetails(), Map.class);
+            rules[i] = CouponRuleCompiler.compile("dsl".equals(mode) ? asRule(coupon, details[i]) : coupon);
+        }
+        carts = (List<CartItem>[]) new List<?>[CART_POOL_SIZE];
+        cartTotals = new double[CART_POOL_SIZE];
+        views = new CartView[CART_POOL_SIZE];
+        for (int i = 0; i < CART_POOL_SIZE; i++) {
+            CartRequest cart = catalog.cart(cartSize);
+            carts[i] = cart.getItems();
+            views[i] = CartView.of(cart.getItems());
+            for (CartItem item : cart.getItems()) {
+                cartTotals[i] += item.getPrice() * item.getQuantity();
+            }
+        }
+    }
+
+    @Benchmark
+    public double evaluate() {
+        int slot = nextSlot();
+        switch (mode) {
+            case "switch":
+                return evaluateSwitch(carts[slot], cartTotals[slot]);
+            case "typed":
+            case "dsl":
+                return evaluateRules(views[slot]);
+            default:
+                throw new IllegalStateException("Unknown mode: " + mode);
+        }
+    }
+
+    private double evaluateRules(CartView view) {
+        long total = 0;
+        for (CouponRule rule : rules) {
+            total += rule.discount(view);
+        }
+        return total / 100.0;
+    }
+
+    private double evaluateSwitch(List<CartItem> items, double cartTotal) {
+        double total = 0;
+        for (int i = 0; i < types.length; i++) {
+            Map<String, Object> coupon = details[i];
+            switch (types[i]) {
+                case "cart-wise": {
+                    double threshold = ((Number) coupon.get("threshold")).doubleValue();
+                    if (cartTotal > threshold) {
+                        total += cartTotal * (((Number) coupon.get("discount")).doubleValue() / 100);
+                    }
+                    break;
+                }
+                case "product-wise": {
+                    Long productId = ((Number) coupon.get("product_id")).longValue();
+                    double discount = ((Number) coupon.get("discount")).doubleValue();
+                    for (CartItem item : items) {
+                        if (item.getProductId().equals(productId)) {
+                            total += item.getPrice() * (discount / 100) * item.getQuantity();
+                        }
+                    }
+                    break;
+                }
+                default:
+                    break;
+            }
+        }
+        return total;
+    }
+
+    private static Coupon asRule(Coupon coupon, Map<String, Object> details) {
+        Coupon rule = new Coupon();
+        rule.setId(coupon.getId());
+        rule.setVersion(coupon.getVersion());
+        rule.setExpirationDate(coupon.getExpirationDate());
+        rule.setType(CouponRuleCompiler.RULE);
+        if (CouponRuleCompiler.CART_WISE.equals(coupon.getType())) {
+            rule.setDetails("{\"when\": {\"min_total\": " + details.get("threshold") + "},"
+                    + " \"then\": {\"percent_off\": " + details.get("discount") + "}, \"rounding\": \"HALF_EVEN\"}");
+        } else {
+            rule.setDetails("{\"then\": {\"percent_off\": " + details.get("discount")
+                    + ", \"products\": [" + details.get("product_id") + "]}}");
+        }
+        return rule;
+    }
+
+    private int nextSlot() {
+        next = (next + 1) & (CART_POOL_SIZE - 1);
+        return next;
+    }
+}
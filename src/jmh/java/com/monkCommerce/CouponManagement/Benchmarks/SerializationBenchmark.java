@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement.Benchmarks;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.monkCommerce.CouponManagement.DTO.CartRequest;
+import com.monkCommerce.CouponManagement.Entities.Cart;
+import com.monkCommerce.CouponManagement.Entities.CartItem;
+import com.monkCommerce.CouponManagement.Entities.Coupon;
+import com.monkCommerce.CouponManagement.Rules.CartView;
+import com.monkCommerce.CouponManagement.Rules.CartViewReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request and response bodies of the cart and coupon endpoints in each negotiated format, with
+ * mappers built the way {@code BinaryFormatsConfig} builds them. Payload sizes are printed at the
+ * start of each trial, e.g.
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="SerializationBenchmark -p cartSize=1000 -prof gc"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"json", "smile", "cbor"})
+    public String format;
+
+    @Param({"10", "100", "1000"})
+    public int cartSize;
+
+    /** Coupons in a {@code GET /coupons} or {@code POST /cart/applicable-coupons} response. */
+    @Param({"100"})
+    public int couponCount;
+
+    private ObjectMapper mapper;
+    private byte[] cartRequestBytes;
+    private Cart cart;
+    private List<Coupon> coupons;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        mapper = switch (format) {
+            case "json" -> Jackson2ObjectMapperBuilder.json().build();
+            case "smile" -> Jackson2ObjectMapperBuilder.smile().build();
+            case "cbor" -> Jackson2ObjectMapperBuilder.cbor().build();
+            default -> throw new IllegalArgumentException("Unknown format: " + format);
+        };
+        SyntheticCatalog catalog = new SyntheticCatalog(42L, 10_000);
+        CartRequest cartRequest = catalog.cart(cartSize);
+        cartRequestBytes = mapper.writeValueAsBytes(cartRequest);
+        cart = new Cart();
+        List<CartItem> items = new ArrayList<>();
+        double total = 0;
+        for (CartItem item : cartRequest.getItems()) {
+            items.add(new CartItem(item.getProductId(), item.getQuantity(), item.getPrice(), item.getPrice() * 0.1));
+            total += item.getPrice() * item.getQuantity();
+        }
+        cart.setItems(items);
+        cart.setTotalPrice(total);
+        cart.setTotalDiscount(total * 0.1);
+        cart.setFinalPrice(total * 0.9);
+        coupons = catalog.coupons(couponCount, "40:40:20");
+        System.out.printf("%n%s payload bytes: cart request %d, cart %d, %d coupons %d%n", format,
+                cartRequestBytes.length, writeCart().length, couponCount, writeCoupons().length);
+    }
+
+    @Benchmark
+    public CartRequest readCartRequest() throws IOException {
+        return mapper.readValue(cartRequestBytes, CartRequest.class);
+    }
+
+    /** What {@code POST /cart/applicable-coupons/stream} does instead of binding a {@link CartRequest}. */
+    @Benchmark
+    public CartView streamCartView() throws IOException {
+        try (JsonParser parser = mapper.createParser(cartRequestBytes)) {
+            return CartViewReader.read(parser);
+        }
+    }
+
+    @Benchmark
+    public byte[] writeCart() throws IOException {
+        return mapper.writeValueAsBytes(cart);
+    }
+
+    @Benchmark
+    public byte[] writeCoupons() throws IOException {
+        return mapper.writeValueAsBytes(coupons);
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement.Benchmarks;
+
+import com.monkCommerce.CouponManagement.Database.CouponDatabase;
+import com.monkCommerce.CouponManagement.Services.AppliedCartCache;
+import com.monkCommerce.CouponManagement.Services.CartServices;
+import com.monkCommerce.CouponManagement.Services.CouponCatalog;
+import com.monkCommerce.CouponManagement.Services.CouponMetrics;
+import com.monkCommerce.CouponManagement.Services.CouponRedemptionServices;
+import com.monkCommerce.CouponManagement.Services.CouponRuleCache;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.util.ReflectionTestUtils.setField;
+
+/**
+ * Wires the services by hand, the same way Spring would, without starting a context.
+ */
+final class ServiceWiring {
+
+    static {
+        // Without logback-spring.xml logback defaults to DEBUG on the console, which would dominate.
+        ((Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+    }
+
+    final CouponDatabase couponDatabase;
+    final CouponRuleCache couponRuleCache = new CouponRuleCache();
+    final CouponCatalog couponCatalog = new CouponCatalog();
+    final CartServices cartServices = new CartServices();
+
+    final AppliedCartCache appliedCartCache;
+
+    ServiceWiring(CouponDatabase couponDatabase) {
+        this(couponDatabase, 10_000);
+    }
+
+    ServiceWiring(CouponDatabase couponDatabase, long applyCacheSize) {
+        this.couponDatabase = couponDatabase;
+        this.appliedCartCache = new AppliedCartCache(applyCacheSize, TimeUnit.MINUTES.toMillis(5));
+        setField(couponCatalog, "couponDatabase", couponDatabase);
+        setField(couponCatalog, "couponRuleCache", couponRuleCache);
+        setField(cartServices, "couponDatabase", couponDatabase);
+        setField(cartServices, "couponRuleCache", couponRuleCache);
+        setField(cartServices, "couponCatalog", couponCatalog);
+        setField(cartServices, "couponMetrics", new CouponMetrics(new SimpleMeterRegistry()));
+        setField(cartServices, "couponRedemptionServices", new CouponRedemptionServices());
+        setField(cartServices, "appliedCartCache", appliedCartCache);
+        setField(cartServices, "objectMapper", Jackson2ObjectMapperBuilder.json().build());
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement.Benchmarks;
+
+import com.monkCommerce.CouponManagement.DTO.CartRequest;
+import com.monkCommerce.CouponManagement.Entities.CartItem;
+import com.monkCommerce.CouponManagement.Entities.Coupon;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic generator for coupon catalogs and carts used by the benchmarks.
+ * The coupon mix is given as {@code "cartWise:productWise:bxgy"} weights, e.g. {@code "40:40:20"}.
+ */
+final class SyntheticCatalog {
+
+    private final SplittableRandom random;
+    private final int productCount;
+
+    SyntheticCatalog(long seed, int productCount) {
+        this.random = new SplittableRandom(seed);
+        this.productCount = productCount;
+    }
+
+    List<Coupon> coupons(int size, String mix) {
+        String[] weights = mix.split(":");
+        int cartWise = Integer.parseInt(weights[0].trim());
+        int productWise = Integer.parseInt(weights[1].trim());
+        int bxgy = Integer.parseInt(weights[2].trim());
+        int total = cartWise + productWise + bxgy;
+
+        List<Coupon> coupons = new ArrayList<>(size);
+        LocalDateTime expiration = LocalDateTime.now().plusYears(10);
+        for (long id = 1; id <= size; id++) {
+            Coupon coupon = new Coupon();
+            coupon.setId(id);
+            coupon.setVersion(0L);
+            coupon.setExpirationDate(expiration);
+            int pick = random.nextInt(total);
+            if (pick < cartWise) {
+                coupon.setType("cart-wise");
+                coupon.setDetails("{\"threshold\": " + random.nextInt(50, 5000)
+                        + ", \"discount\": " + random.nextInt(1, 50) + "}");
+            } else if (pick < cartWise + productWise) {
+                coupon.setType("product-wise");
+                coupon.setDetails("{\"product_id\": " + product()
+                        + ", \"discount\": " + random.nextInt(1, 50) + "}");
+            } else {
+                coupon.setType("bxgy");
+                coupon.setDetails("{\"buy_products\": [{\"product_id\": " + product() + ", \"quantity\": "
+                        + random.nextInt(1, 4) + "}, {\"product_id\": " + product() + ", \"quantity\": "
+                        + random.nextInt(1, 4) + "}], \"get_products\": [{\"product_id\": " + product()
+                        + ", \"quantity\": 1}], \"repetition_limit\": " + random.nextInt(1, 5) + "}");
+            }
+            coupons.add(coupon);
+        }
+        return coupons;
+    }
+
+    CartRequest cart(int items) {
+        List<CartItem> cartItems = new ArrayList<>(items);
+        for (int i = 0; i < items; i++) {
+            cartItems.add(new CartItem(product(), random.nextInt(1, 10), random.nextInt(100, 50000) / 100.0, 0.0));
+        }
+        CartRequest cartRequest = new CartRequest();
+        cartRequest.setItems(cartItems);
+        return cartRequest;
+    }
+
+    long couponId(int catalogSize) {
+        return random.nextLong(1, catalogSize + 1L);
+    }
+
+    private long product() {
+        return random.nextLong(1, productCount + 1L);
+    }
+}
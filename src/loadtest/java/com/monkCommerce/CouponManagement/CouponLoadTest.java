@@ -0,0 +1,267 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Drives the real application over HTTP at a fixed request rate and fails when a latency or
+ * throughput budget is missed. Only runs with the {@code load-test} profile; every knob is a
+ * system property, e.g.
+ * <pre>
+ * mvn -Pload-test test -Dload.rate=1000 -Dload.duration-seconds=60 -Dload.budget.p99-ms.apply=20
+ * </pre>
+ * Percentile distributions are written to {@code target/load-test/<operation>.hgrm}.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"logging.level.com.monkCommerce=WARN", "coupon.changes.tail.enabled=false"})
+class CouponLoadTest {
+
+    private static final double RATE = doubleProperty("load.rate", 100);
+    private static final long WARMUP_SECONDS = longProperty("load.warmup-seconds", 10);
+    private static final long DURATION_SECONDS = longProperty("load.duration-seconds", 30);
+    private static final int MAX_IN_FLIGHT = (int) longProperty("load.max-in-flight", 2000);
+    private static final int CATALOG_SIZE = (int) longProperty("load.catalog-size", 5_000);
+    private static final int CART_SIZE = (int) longProperty("load.cart-size", 20);
+    private static final int PRODUCTS = (int) longProperty("load.products", 10_000);
+    private static final long SEED = longProperty("load.seed", 42);
+    private static final String MIX = System.getProperty("load.mix",
+            "applicable:40,apply:30,get:10,list:5,create:5,update:5,delete:5");
+    private static final double P99_BUDGET_MILLIS = doubleProperty("load.budget.p99-ms", 100);
+    private static final double MIN_THROUGHPUT_RATIO = doubleProperty("load.budget.min-throughput-ratio", 0.95);
+    private static final double MAX_ERROR_RATE = doubleProperty("load.budget.max-error-rate", 0.001);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private final List<Long> seededIds = new ArrayList<>();
+    private final ConcurrentLinkedQueue<Long> createdIds = new ConcurrentLinkedQueue<>();
+
+    @LocalServerPort
+    private int port;
+
+    @BeforeEach
+    void seedCatalog() throws Exception {
+        Random random = new Random(SEED);
+        ArrayNode coupons = objectMapper.createArrayNode();
+        for (int i = 0; i < CATALOG_SIZE; i++) {
+            coupons.add(coupon(random));
+        }
+        HttpResponse<String> imported = client.send(post("/coupons/bulk", coupons), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, imported.statusCode(), imported.body());
+
+        String after = "";
+        while (after != null) {
+            HttpResponse<String> page = client.send(HttpRequest.newBuilder(uri("/coupons?limit=1000" + after)).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            for (JsonNode coupon : objectMapper.readTree(page.body())) {
+                seededIds.add(coupon.get("id").asLong());
+            }
+            after = page.headers().firstValue("X-Next-Cursor").map(cursor -> "&after=" + cursor).orElse(null);
+        }
+        assertEquals(CATALOG_SIZE, seededIds.size());
+    }
+
+    @Test
+    void testLatencyAndThroughputStayWithinBudget() throws Exception {
+        OpenLoopDriver driver = new OpenLoopDriver(RATE, MAX_IN_FLIGHT, SEED);
+        Random random = driver.random();
+        for (String entry : MIX.split(",")) {
+            String[] parts = entry.split(":");
+            driver.operation(parts[0].trim(), Integer.parseInt(parts[1].trim()), request(parts[0].trim(), random));
+        }
+
+        driver.run(TimeUnit.SECONDS.toMillis(WARMUP_SECONDS));
+        OpenLoopDriver.Result result = driver.run(TimeUnit.SECONDS.toMillis(DURATION_SECONDS));
+
+        List<String> failures = new ArrayList<>();
+        Path reports = Files.createDirectories(Path.of("target", "load-test"));
+        System.out.printf("%nOffered %.0f req/s for %ds, completed %.1f req/s, %d errors, %d dropped%n",
+                RATE, DURATION_SECONDS, result.throughput(), result.errorCount() - result.dropped.sum(), result.dropped.sum());
+        System.out.printf("%-12s %8s %9s %9s %9s %9s %9s%n", "operation", "count", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Map.Entry<String, Histogram> entry : result.histograms.entrySet()) {
+            String name = entry.getKey();
+            Histogram histogram = entry.getValue();
+            double p99 = millis(histogram.getValueAtPercentile(99));
+            System.out.printf("%-12s %8d %9.2f %9.2f %9.2f %9.2f %9.2f%n", name, histogram.getTotalCount(),
+                    millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(90)), p99,
+                    millis(histogram.getValueAtPercentile(99.9)), millis(histogram.getMaxValue()));
+            try (PrintStream out = new PrintStream(reports.resolve(name + ".hgrm").toFile())) {
+                histogram.outputPercentileDistribution(out, 1e6);
+            }
+            double budget = doubleProperty("load.budget.p99-ms." + name, P99_BUDGET_MILLIS);
+            if (p99 > budget) {
+                failures.add(String.format("%s p99 %.2f ms exceeds %.2f ms", name, p99, budget));
+            }
+        }
+        if (result.throughput() < RATE * MIN_THROUGHPUT_RATIO) {
+            failures.add(String.format("throughput %.1f req/s is below %.0f%% of %.0f req/s",
+                    result.throughput(), MIN_THROUGHPUT_RATIO * 100, RATE));
+        }
+        double errorRate = (double) result.errorCount() / result.offered;
+        if (errorRate > MAX_ERROR_RATE) {
+            failures.add(String.format("error rate %.4f exceeds %.4f", errorRate, MAX_ERROR_RATE));
+        }
+        assertTrue(failures.isEmpty(), String.join("; ", failures));
+    }
+
+    private Supplier<CompletableFuture<Integer>> request(String operation, Random random) {
+        return switch (operation) {
+            case "applicable" -> () -> send(post("/cart/applicable-coupons", cart(random)));
+            case "apply" -> () -> send(post("/cart/apply-coupon/" + seededId(random), cart(random)));
+            case "get" -> () -> send(HttpRequest.newBuilder(uri("/coupons/" + seededId(random))).build());
+            case "list" -> () -> send(HttpRequest.newBuilder(uri("/coupons?limit=100&after=" + seededId(random))).build());
+            case "create" -> () -> create(random);
+            case "update" -> () -> {
+                Long id = createdIds.poll();
+                if (id == null) {
+                    return create(random);
+                }
+                return send(HttpRequest.newBuilder(uri("/coupons/" + id))
+                        .header("Content-Type", "application/json")
+                        .PUT(body(coupon(random)))
+                        .build())
+                        .whenComplete((status, error) -> createdIds.add(id));
+            };
+            case "delete" -> () -> {
+                Long id = createdIds.poll();
+                if (id == null) {
+                    return create(random);
+                }
+                return send(HttpRequest.newBuilder(uri("/coupons/" + id)).DELETE().build());
+            };
+            default -> throw new IllegalArgumentException("Unknown operation in load.mix: " + operation);
+        };
+    }
+
+    private CompletableFuture<Integer> create(Random random) {
+        return client.sendAsync(post("/coupons", coupon(random)), HttpResponse.BodyHandlers.ofString())
+                .thenApply(response -> {
+                    if (response.statusCode() == 201) {
+                        try {
+                            createdIds.add(objectMapper.readTree(response.body()).get("id").asLong());
+                        } catch (IOException e) {
+                            throw new IllegalStateException(e);
+                        }
+                    }
+                    return response.statusCode();
+                });
+    }
+
+    private CompletableFuture<Integer> send(HttpRequest request) {
+        return client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).thenApply(HttpResponse::statusCode);
+    }
+
+    private HttpRequest post(String path, JsonNode body) {
+        return HttpRequest.newBuilder(uri(path))
+                .header("Content-Type", "application/json")
+                .POST(body(body))
+                .build();
+    }
+
+    private HttpRequest.BodyPublisher body(JsonNode body) {
+        try {
+            return HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private long seededId(Random random) {
+        return seededIds.get(random.nextInt(seededIds.size()));
+    }
+
+    private ObjectNode cart(Random random) {
+        ObjectNode cart = objectMapper.createObjectNode();
+        ArrayNode items = cart.putArray("items");
+        for (int i = 0; i < CART_SIZE; i++) {
+            items.addObject()
+                    .put("productId", product(random))
+                    .put("quantity", 1 + random.nextInt(9))
+                    .put("price", (100 + random.nextInt(49_900)) / 100.0);
+        }
+        return cart;
+    }
+
+    private ObjectNode coupon(Random random) {
+        ObjectNode coupon = objectMapper.createObjectNode();
+        ObjectNode details = objectMapper.createObjectNode();
+        // Carts average about 25000 in value; cart-wise thresholds are spread well above that so a
+        // typical cart qualifies for tens of coupons rather than the whole catalog.
+        int pick = random.nextInt(10);
+        if (pick < 1) {
+            coupon.put("type", "cart-wise");
+            details.put("threshold", 1000 + random.nextInt(199_000)).put("discount", 1 + random.nextInt(49));
+        } else if (pick < 8) {
+            coupon.put("type", "product-wise");
+            details.put("product_id", product(random)).put("discount", 1 + random.nextInt(49));
+        } else {
+            coupon.put("type", "bxgy");
+            details.putArray("buy_products").addObject().put("product_id", product(random)).put("quantity", 1 + random.nextInt(3));
+            details.putArray("get_products").addObject().put("product_id", product(random)).put("quantity", 1);
+            details.put("repetition_limit", 1 + random.nextInt(4));
+        }
+        coupon.put("details", details.toString());
+        return coupon;
+    }
+
+    private static long product(Random random) {
+        return 1 + random.nextInt(PRODUCTS);
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    private static long longProperty(String name, long defaultValue) {
+        return Long.parseLong(System.getProperty(name, Long.toString(defaultValue)));
+    }
+
+    private static double doubleProperty(String name, double defaultValue) {
+        return Double.parseDouble(System.getProperty(name, Double.toString(defaultValue)));
+    }
+}
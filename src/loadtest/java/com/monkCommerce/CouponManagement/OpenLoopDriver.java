@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Open-model load generator: requests are started on a fixed schedule at the target rate whether
+ * or not earlier ones have completed, and each latency is measured from the request's scheduled
+ * start rather than from when it was actually sent. A slow server therefore shows up as queueing
+ * delay in the histograms instead of quietly lowering the offered rate (coordinated omission).
+ */
+final class OpenLoopDriver {
+
+    // Latencies above this are clamped; anything close to it has failed the budget anyway.
+    private static final long MAX_LATENCY_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final double ratePerSecond;
+    private final int maxInFlight;
+    private final Random random;
+    private final Map<String, Supplier<CompletableFuture<Integer>>> operations = new LinkedHashMap<>();
+    private final List<String> picks = new ArrayList<>();
+
+    OpenLoopDriver(double ratePerSecond, int maxInFlight, long seed) {
+        this.ratePerSecond = ratePerSecond;
+        this.maxInFlight = maxInFlight;
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Registers an operation with its share of the mix. The supplier is called on the scheduling
+     * thread and must return without waiting for the response; the future completes with the status.
+     */
+    OpenLoopDriver operation(String name, int weight, Supplier<CompletableFuture<Integer>> request) {
+        operations.put(name, request);
+        for (int i = 0; i < weight; i++) {
+            picks.add(name);
+        }
+        return this;
+    }
+
+    Random random() {
+        return random;
+    }
+
+    Result run(long durationMillis) throws InterruptedException {
+        Result result = new Result(operations.keySet());
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond);
+        long requests = TimeUnit.MILLISECONDS.toNanos(durationMillis) / intervalNanos;
+        long start = System.nanoTime();
+        for (long i = 0; i < requests; i++) {
+            long intended = start + i * intervalNanos;
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            String name = picks.get(random.nextInt(picks.size()));
+            if (!inFlight.tryAcquire()) {
+                result.dropped.increment();
+                continue;
+            }
+            CompletableFuture<Integer> response;
+            try {
+                response = operations.get(name).get();
+            } catch (RuntimeException e) {
+                response = CompletableFuture.failedFuture(e);
+            }
+            response.whenComplete((status, error) -> {
+                long latency = Math.min(System.nanoTime() - intended, MAX_LATENCY_NANOS);
+                result.histograms.get(name).recordValue(latency);
+                if (error != null || status >= 500) {
+                    result.errors.get(name).increment();
+                }
+                inFlight.release();
+            });
+        }
+        if (!inFlight.tryAcquire(maxInFlight, 1, TimeUnit.MINUTES)) {
+            throw new IllegalStateException("Requests still in flight a minute after the run ended");
+        }
+        result.elapsedNanos = System.nanoTime() - start;
+        result.offered = requests;
+        return result;
+    }
+
+    static final class Result {
+
+        final Map<String, Histogram> histograms = new LinkedHashMap<>();
+        final Map<String, LongAdder> errors = new LinkedHashMap<>();
+        final LongAdder dropped = new LongAdder();
+        long offered;
+        long elapsedNanos;
+
+        private Result(Iterable<String> operations) {
+            for (String name : operations) {
+                histograms.put(name, new ConcurrentHistogram(MAX_LATENCY_NANOS, 3));
+                errors.put(name, new LongAdder());
+            }
+        }
+
+        long completed() {
+            return histograms.values().stream().mapToLong(Histogram::getTotalCount).sum();
+        }
+
+        long errorCount() {
+            return errors.values().stream().mapToLong(LongAdder::sum).sum() + dropped.sum();
+        }
+
+        /** Completed requests per second, from the first scheduled start to the last response. */
+        double throughput() {
+            return completed() / (elapsedNanos / 1e9);
+        }
+    }
+}
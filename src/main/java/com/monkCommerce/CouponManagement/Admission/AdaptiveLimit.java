@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement.Admission;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrency limit that follows latency, after the gradient algorithm of Netflix's
+ * concurrency-limits. Latencies are averaged over windows of {@link #WINDOW_NANOS}; a slow
+ * exponential average of those windows is the latency the endpoint has when it is not queueing.
+ * After each window the limit is scaled by how far the window's latency is from that baseline
+ * (never below half, and not at all within {@link #TOLERANCE}), plus a square-root headroom so
+ * it keeps probing upwards while latency holds. A limit the endpoint is not using does not grow.
+ * <p>
+ * Admission never waits: a request over the limit is turned away at once, so a spike cannot
+ * build a queue behind a slow endpoint.
+ */
+public class AdaptiveLimit {
+
+    static final long WINDOW_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final int MIN_WINDOW_SAMPLES = 10;
+    // Windows averaged into the baseline latency: about a minute of traffic.
+    private static final double BASELINE_WINDOWS = 600;
+    private static final double TOLERANCE = 1.5;
+    private static final double SMOOTHING = 0.2;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private volatile double limit;
+    private final AtomicInteger inflight = new AtomicInteger();
+    private final LongAdder rejected = new LongAdder();
+
+    private final LongAdder windowNanos = new LongAdder();
+    private final LongAdder windowSamples = new LongAdder();
+    private final AtomicInteger windowMaxInflight = new AtomicInteger();
+    private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+    private double baselineNanos;
+
+    public AdaptiveLimit(int initialLimit, int minLimit, int maxLimit) {
+        if (minLimit <= 0 || minLimit > maxLimit) {
+            throw new IllegalArgumentException("Invalid limit range: " + minLimit + ".." + maxLimit);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    /**
+     * @return {@code true} if the caller was admitted and must call {@link #release}
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inflight.get();
+            if (current >= (int) limit) {
+                rejected.increment();
+                return false;
+            }
+            if (inflight.compareAndSet(current, current + 1)) {
+                windowMaxInflight.accumulateAndGet(current + 1, Math::max);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @param startNanos {@link System#nanoTime()} when the caller was admitted
+     * @param sample     whether the latency says something about load; failed requests are not
+     *                   sampled, since they often return early
+     */
+    public void release(long startNanos, boolean sample) {
+        inflight.decrementAndGet();
+        if (!sample) {
+            return;
+        }
+        long now = System.nanoTime();
+        windowNanos.add(now - startNanos);
+        windowSamples.increment();
+        long start = windowStart.get();
+        if (now - start >= WINDOW_NANOS && windowSamples.sum() >= MIN_WINDOW_SAMPLES
+                && windowStart.compareAndSet(start, now)) {
+            update();
+        }
+    }
+
+    /**
+     * Turns a caller away without trying the limit, e.g. to give another limit priority. Counted
+     * like any other rejection.
+     */
+    public void shed() {
+        rejected.increment();
+    }
+
+    /**
+     * @return whether another request would be turned away right now
+     */
+    public boolean isSaturated() {
+        return inflight.get() >= (int) limit;
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInflight() {
+        return inflight.get();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    // Runs on the thread that closed the window; windows close at most every WINDOW_NANOS.
+    private synchronized void update() {
+        long samples = windowSamples.sumThenReset();
+        long total = windowNanos.sumThenReset();
+        int maxInflight = windowMaxInflight.getAndSet(inflight.get());
+        if (samples == 0) {
+            return;
+        }
+        double windowLatency = (double) total / samples;
+        if (baselineNanos == 0) {
+            baselineNanos = windowLatency;
+        } else {
+            baselineNanos += (windowLatency - baselineNanos) / BASELINE_WINDOWS;
+        }
+        // After a long overload the baseline has crept up; let it drop back once latency recovers.
+        if (baselineNanos > windowLatency * 2) {
+            baselineNanos = windowLatency * 2;
+        }
+        double current = limit;
+        if (maxInflight < current / 2) {
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * baselineNanos / windowLatency));
+        double next = current * gradient + Math.sqrt(current);
+        next = current * (1 - SMOOTHING) + next * SMOOTHING;
+        limit = Math.max(minLimit, Math.min(maxLimit, next));
+    }
+}
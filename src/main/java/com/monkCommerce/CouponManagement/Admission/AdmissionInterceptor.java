@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement.Admission;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Admission control for the cart and management endpoints. Each cart endpoint (method and route
+ * pattern, e.g. {@code POST /cart/apply-coupon/{id}}) gets its own {@link AdaptiveLimit}, so a
+ * slow endpoint such as the batch one cannot use up the budget of the others. Coupon and
+ * collection management share one lower limit, and are also turned away while any cart endpoint
+ * is at its limit, so they never take capacity from carts during a spike.
+ * <p>
+ * A request over its limit gets a {@code 503} with {@code Retry-After} before its body is read.
+ */
+@Component
+public class AdmissionInterceptor implements HandlerInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdmissionInterceptor.class);
+
+    /** Tag value of the limit shared by the management endpoints. */
+    public static final String MANAGEMENT = "management";
+
+    private static final String CART_PREFIX = "/cart";
+    private static final String LIMIT_ATTRIBUTE = AdmissionInterceptor.class.getName() + ".limit";
+    private static final String START_ATTRIBUTE = AdmissionInterceptor.class.getName() + ".start";
+
+    private final MeterRegistry registry;
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final String retryAfterSeconds;
+    private final Map<String, AdaptiveLimit> cartLimits = new ConcurrentHashMap<>();
+    private final AdaptiveLimit managementLimit;
+
+    @Autowired
+    public AdmissionInterceptor(MeterRegistry registry,
+                                @Value("${coupon.admission.initial-limit:20}") int initialLimit,
+                                @Value("${coupon.admission.min-limit:2}") int minLimit,
+                                @Value("${coupon.admission.max-limit:200}") int maxLimit,
+                                @Value("${coupon.admission.management.max-limit:8}") int managementMaxLimit,
+                                @Value("${coupon.admission.retry-after-seconds:1}") int retryAfterSeconds) {
+        this.registry = registry;
+        this.initialLimit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.retryAfterSeconds = Integer.toString(retryAfterSeconds);
+        this.managementLimit = register(MANAGEMENT,
+                new AdaptiveLimit(Math.min(initialLimit, managementMaxLimit), 1, managementMaxLimit));
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String path = pattern != null ? pattern.toString() : request.getRequestURI();
+        AdaptiveLimit limit;
+        if (path.startsWith(CART_PREFIX)) {
+            limit = cartLimits.computeIfAbsent(request.getMethod() + " " + path, this::cartLimit);
+        } else {
+            limit = managementLimit;
+            if (isAnyCartEndpointSaturated()) {
+                limit.shed();
+                return reject(response, MANAGEMENT);
+            }
+        }
+        if (!limit.tryAcquire()) {
+            return reject(response, request.getMethod() + " " + path);
+        }
+        request.setAttribute(LIMIT_ATTRIBUTE, limit);
+        request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Object limit = request.getAttribute(LIMIT_ATTRIBUTE);
+        if (limit != null) {
+            request.removeAttribute(LIMIT_ATTRIBUTE);
+            ((AdaptiveLimit) limit).release((Long) request.getAttribute(START_ATTRIBUTE),
+                    ex == null && response.getStatus() < HttpStatus.INTERNAL_SERVER_ERROR.value());
+        }
+    }
+
+    private boolean isAnyCartEndpointSaturated() {
+        for (AdaptiveLimit limit : cartLimits.values()) {
+            if (limit.isSaturated()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean reject(HttpServletResponse response, String endpoint) {
+        logger.debug("Rejected request to {}: over its concurrency limit", endpoint);
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+        return false;
+    }
+
+    private AdaptiveLimit cartLimit(String endpoint) {
+        return register(endpoint, new AdaptiveLimit(initialLimit, minLimit, maxLimit));
+    }
+
+    private AdaptiveLimit register(String endpoint, AdaptiveLimit limit) {
+        Gauge.builder("coupon.admission.limit", limit, AdaptiveLimit::getLimit)
+                .description("Current concurrency limit")
+                .tag("endpoint", endpoint)
+                .register(registry);
+        Gauge.builder("coupon.admission.inflight", limit, AdaptiveLimit::getInflight)
+                .description("Requests being served under the limit")
+                .tag("endpoint", endpoint)
+                .register(registry);
+        FunctionCounter.builder("coupon.admission.rejected", limit, AdaptiveLimit::getRejected)
+                .description("Requests turned away with 503 because the limit was reached")
+                .tag("endpoint", endpoint)
+                .register(registry);
+        return limit;
+    }
+}
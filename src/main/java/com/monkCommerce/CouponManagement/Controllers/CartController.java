@@ -1,16 +1,23 @@
 package com.monkCommerce.CouponManagement.Controllers;
 
+import com.monkCommerce.CouponManagement.DTO.BestCouponResponse;
 import com.monkCommerce.CouponManagement.DTO.CartRequest;
 import com.monkCommerce.CouponManagement.Entities.Cart;
 import com.monkCommerce.CouponManagement.Entities.Coupon;
+import com.monkCommerce.CouponManagement.Services.CartBatchServices;
 import com.monkCommerce.CouponManagement.Services.CartServices;
+import com.monkCommerce.CouponManagement.Services.CouponCatalog;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.util.List;
 
 @RestController
@@ -19,22 +26,77 @@ public class CartController {
 
     private static final Logger logger = LoggerFactory.getLogger(CartController.class);
 
+    /** Version of the coupon catalog snapshot a response was computed against. */
+    public static final String CATALOG_VERSION_HEADER = "X-Catalog-Version";
+
     @Autowired
     private CartServices cartServices;
 
+    @Autowired
+    private CartBatchServices cartBatchServices;
+
+    @Autowired
+    private CouponCatalog couponCatalog;
+
     @PostMapping("/applicable-coupons")
     public ResponseEntity<List<Coupon>> getApplicableCoupons(@RequestBody CartRequest cartRequest) {
         logger.debug("Received request to fetch applicable coupons for cart: {}", cartRequest);
-        List<Coupon> coupons = cartServices.getApplicableCoupons(cartRequest);
+        CouponCatalog.Snapshot snapshot = couponCatalog.snapshot();
+        List<Coupon> coupons = cartServices.getApplicableCoupons(cartRequest, snapshot);
         logger.info("Retrieved {} applicable coupons for cart", coupons.size());
-        return new ResponseEntity<>(coupons, HttpStatus.OK);
+        return ResponseEntity.ok().header(CATALOG_VERSION_HEADER, versionOf(snapshot)).body(coupons);
+    }
+
+    @PostMapping(value = "/applicable-coupons/stream", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<Coupon>> getApplicableCouponsStreaming(HttpServletRequest request) throws IOException {
+        logger.debug("Received request to fetch applicable coupons for a streamed cart");
+        CouponCatalog.Snapshot snapshot = couponCatalog.snapshot();
+        List<Coupon> coupons = cartServices.getApplicableCoupons(request.getInputStream(), snapshot);
+        logger.info("Retrieved {} applicable coupons for streamed cart", coupons.size());
+        return ResponseEntity.ok().header(CATALOG_VERSION_HEADER, versionOf(snapshot)).body(coupons);
+    }
+
+    @PostMapping(value = "/batch/applicable-coupons",
+            consumes = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE},
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void getApplicableCouponsBatch(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        logger.debug("Received batch request to fetch applicable coupons");
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        CouponCatalog.Snapshot snapshot = couponCatalog.snapshot();
+        response.setHeader(CATALOG_VERSION_HEADER, versionOf(snapshot));
+        long carts = cartBatchServices.getApplicableCoupons(request.getInputStream(), response.getOutputStream(), snapshot);
+        logger.info("Evaluated applicable coupons for {} carts in batch", carts);
     }
 
     @PostMapping("/apply-coupon/{id}")
     public ResponseEntity<Cart> applyCoupon(@PathVariable Long id, @RequestBody CartRequest cartRequest) {
         logger.debug("Received request to apply coupon with ID: {} to cart: {}", id, cartRequest);
-        Cart cart = cartServices.applyCoupon(id, cartRequest);
+        CouponCatalog.Snapshot snapshot = couponCatalog.snapshot();
+        Cart cart = cartServices.applyCoupon(id, cartRequest, snapshot);
         logger.info("Applied coupon with ID: {} to cart", id);
-        return new ResponseEntity<>(cart, HttpStatus.OK);
+        return ResponseEntity.ok().header(CATALOG_VERSION_HEADER, versionOf(snapshot)).body(cart);
+    }
+
+    @PostMapping("/redeem-coupon/{id}")
+    public ResponseEntity<Cart> redeemCoupon(@PathVariable Long id, @RequestBody CartRequest cartRequest) {
+        logger.debug("Received request to redeem coupon with ID: {} for cart: {}", id, cartRequest);
+        CouponCatalog.Snapshot snapshot = couponCatalog.snapshot();
+        Cart cart = cartServices.redeemCoupon(id, cartRequest, snapshot);
+        logger.info("Redeemed coupon with ID: {} for cart", id);
+        return ResponseEntity.ok().header(CATALOG_VERSION_HEADER, versionOf(snapshot)).body(cart);
+    }
+
+    @PostMapping("/best-coupon")
+    public ResponseEntity<BestCouponResponse> getBestCoupon(@RequestBody CartRequest cartRequest) {
+        logger.debug("Received request to find best coupon for cart: {}", cartRequest);
+        CouponCatalog.Snapshot snapshot = couponCatalog.snapshot();
+        BestCouponResponse response = cartServices.getBestCoupon(cartRequest, snapshot);
+        logger.info("Best coupon for cart is ID: {}", response.getCouponId());
+        return ResponseEntity.ok().header(CATALOG_VERSION_HEADER, versionOf(snapshot)).body(response);
+    }
+
+    private static String versionOf(CouponCatalog.Snapshot snapshot) {
+        return Long.toString(snapshot.getVersion());
     }
 }
@@ -16,31 +16,77 @@
 
 package com.monkCommerce.CouponManagement.Controllers;
 
+import com.monkCommerce.CouponManagement.DTO.BulkImportResult;
+import com.monkCommerce.CouponManagement.DTO.CouponFilter;
 import com.monkCommerce.CouponManagement.DTO.CouponRequest;
 import com.monkCommerce.CouponManagement.Entities.Coupon;
+import com.monkCommerce.CouponManagement.Services.CouponImportServices;
 import com.monkCommerce.CouponManagement.Services.CouponServices;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.util.List;
 
 @RestController
 @RequestMapping("/coupons")
 public class CouponController {
 
+    // Id of the last coupon in a full page; pass it back as "after" to fetch the next page.
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     @Autowired
     private CouponServices couponServices;
 
+    @Autowired
+    private CouponImportServices couponImportServices;
+
     @PostMapping
     public ResponseEntity<Coupon> createCoupon(@RequestBody CouponRequest couponRequest) {
         return new ResponseEntity<>(couponServices.createCoupon(couponRequest), HttpStatus.CREATED);
     }
 
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<BulkImportResult> importCoupons(HttpServletRequest request) throws IOException {
+        return new ResponseEntity<>(couponImportServices.importJson(request.getInputStream()), HttpStatus.OK);
+    }
+
+    @PostMapping(value = "/bulk", consumes = "text/csv")
+    public ResponseEntity<BulkImportResult> importCouponsCsv(HttpServletRequest request) throws IOException {
+        return new ResponseEntity<>(couponImportServices.importCsv(request.getInputStream()), HttpStatus.OK);
+    }
+
+    /**
+     * Without {@code after} or {@code limit} this returns every matching coupon, as it always has.
+     * With either one it returns a single keyset page, and a full page carries the next cursor.
+     */
     @GetMapping
-    public ResponseEntity<List<Coupon>> getAllCoupons() {
-        return new ResponseEntity<>(couponServices.getAllCoupons(), HttpStatus.OK);
+    public ResponseEntity<List<Coupon>> getAllCoupons(@RequestParam(required = false) Long after,
+                                                      @RequestParam(required = false) Integer limit,
+                                                      CouponFilter filter) {
+        if (after == null && limit == null) {
+            return new ResponseEntity<>(couponServices.getAllCoupons(filter), HttpStatus.OK);
+        }
+        int pageSize = CouponServices.pageSize(limit == null ? CouponServices.DEFAULT_PAGE_SIZE : limit);
+        List<Coupon> coupons = couponServices.getCoupons(after, pageSize, filter);
+        HttpHeaders headers = new HttpHeaders();
+        if (coupons.size() == pageSize) {
+            headers.set(NEXT_CURSOR_HEADER, String.valueOf(coupons.get(coupons.size() - 1).getId()));
+        }
+        return new ResponseEntity<>(coupons, headers, HttpStatus.OK);
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void exportCoupons(CouponFilter filter, HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        couponServices.exportCoupons(filter, response.getOutputStream());
     }
 
     @GetMapping("/{id}")
@@ -0,0 +1,49 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement.Controllers;
+
+import com.monkCommerce.CouponManagement.Entities.ProductCollection;
+import com.monkCommerce.CouponManagement.Services.ProductCollectionServices;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/collections")
+public class ProductCollectionController {
+
+    @Autowired
+    private ProductCollectionServices productCollectionServices;
+
+    @GetMapping("/{id}/products")
+    public ResponseEntity<List<Long>> getProducts(@PathVariable Long id) {
+        return new ResponseEntity<>(productCollectionServices.getProducts(id), HttpStatus.OK);
+    }
+
+    @PostMapping("/{id}/products")
+    public ResponseEntity<ProductCollection> addProducts(@PathVariable Long id, @RequestBody List<Long> productIds) {
+        return new ResponseEntity<>(productCollectionServices.addProducts(id, productIds), HttpStatus.OK);
+    }
+
+    @DeleteMapping("/{id}/products")
+    public ResponseEntity<ProductCollection> removeProducts(@PathVariable Long id, @RequestBody List<Long> productIds) {
+        return new ResponseEntity<>(productCollectionServices.removeProducts(id, productIds), HttpStatus.OK);
+    }
+}
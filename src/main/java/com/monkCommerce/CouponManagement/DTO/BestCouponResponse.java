@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement.DTO;
+
+import com.monkCommerce.CouponManagement.Entities.Cart;
+
+import java.util.List;
+
+public class BestCouponResponse {
+    private Long couponId;
+    private Cart cart;
+    private List<CouponSavings> ranking;
+
+    public BestCouponResponse() {
+    }
+
+    public BestCouponResponse(Long couponId, Cart cart, List<CouponSavings> ranking) {
+        this.couponId = couponId;
+        this.cart = cart;
+        this.ranking = ranking;
+    }
+
+    // Getters and Setters
+    public Long getCouponId() {
+        return couponId;
+    }
+
+    public void setCouponId(Long couponId) {
+        this.couponId = couponId;
+    }
+
+    public Cart getCart() {
+        return cart;
+    }
+
+    public void setCart(Cart cart) {
+        this.cart = cart;
+    }
+
+    public List<CouponSavings> getRanking() {
+        return ranking;
+    }
+
+    public void setRanking(List<CouponSavings> ranking) {
+        this.ranking = ranking;
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement.DTO;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.monkCommerce.CouponManagement.Entities.Coupon;
+
+import java.util.List;
+
+/**
+ * One line of a batch response: the applicable coupons for the cart at {@code index} in the
+ * request, or an {@code error} if that cart could not be evaluated.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CartBatchResult {
+    private long index;
+    private List<Coupon> coupons;
+    private String error;
+
+    public CartBatchResult() {
+    }
+
+    public CartBatchResult(long index, List<Coupon> coupons, String error) {
+        this.index = index;
+        this.coupons = coupons;
+        this.error = error;
+    }
+
+    // Getters and Setters
+    public long getIndex() {
+        return index;
+    }
+
+    public void setIndex(long index) {
+        this.index = index;
+    }
+
+    public List<Coupon> getCoupons() {
+        return coupons;
+    }
+
+    public void setCoupons(List<Coupon> coupons) {
+        this.coupons = coupons;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
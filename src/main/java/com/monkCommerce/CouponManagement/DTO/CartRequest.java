@@ -23,6 +23,8 @@ import java.util.List;
 
 public class CartRequest {
     private List<CartItem> items;
+    // Needed to apply coupons with a per-customer redemption limit
+    private String customerId;
 
     // Getters and Setters
     public List<CartItem> getItems() {
@@ -32,4 +34,12 @@ public class CartRequest {
     public void setItems(List<CartItem> items) {
         this.items = items;
     }
+
+    public String getCustomerId() {
+        return customerId;
+    }
+
+    public void setCustomerId(String customerId) {
+        this.customerId = customerId;
+    }
 }
@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement.DTO;
+
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDateTime;
+
+/**
+ * Optional filters for listing coupons, bound from query parameters. Unset fields match everything;
+ * the expiration window is {@code [expiresFrom, expiresTo)}.
+ */
+public class CouponFilter {
+    private String type;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime expiresFrom;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime expiresTo;
+
+    // Getters and Setters
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public LocalDateTime getExpiresFrom() {
+        return expiresFrom;
+    }
+
+    public void setExpiresFrom(LocalDateTime expiresFrom) {
+        this.expiresFrom = expiresFrom;
+    }
+
+    public LocalDateTime getExpiresTo() {
+        return expiresTo;
+    }
+
+    public void setExpiresTo(LocalDateTime expiresTo) {
+        this.expiresTo = expiresTo;
+    }
+}
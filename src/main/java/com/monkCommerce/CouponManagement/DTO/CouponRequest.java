@@ -16,12 +16,17 @@
 
 package com.monkCommerce.CouponManagement.DTO;
 
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+
 import java.time.LocalDateTime;
 
 public class CouponRequest {
     private String type;
+    @JsonDeserialize(using = CouponDetailsDeserializer.class)
     private String details;
     private LocalDateTime expirationDate;
+    private Long maxRedemptions;
+    private Integer maxRedemptionsPerCustomer;
 
     // Getters and Setters
     public String getType() {
@@ -47,4 +52,20 @@ public class CouponRequest {
     public void setExpirationDate(LocalDateTime expirationDate) {
         this.expirationDate = expirationDate;
     }
+
+    public Long getMaxRedemptions() {
+        return maxRedemptions;
+    }
+
+    public void setMaxRedemptions(Long maxRedemptions) {
+        this.maxRedemptions = maxRedemptions;
+    }
+
+    public Integer getMaxRedemptionsPerCustomer() {
+        return maxRedemptionsPerCustomer;
+    }
+
+    public void setMaxRedemptionsPerCustomer(Integer maxRedemptionsPerCustomer) {
+        this.maxRedemptionsPerCustomer = maxRedemptionsPerCustomer;
+    }
 }
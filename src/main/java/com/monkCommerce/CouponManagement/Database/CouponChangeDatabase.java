@@ -0,0 +1,53 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement.Database;
+
+import com.monkCommerce.CouponManagement.Entities.CouponChange;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface CouponChangeDatabase extends JpaRepository<CouponChange, Long> {
+
+    /**
+     * The next page of changes after {@code afterSeq}, in sequence order.
+     */
+    @Query("select c from CouponChange c where c.seq > :afterSeq order by c.seq")
+    List<CouponChange> findAfter(@Param("afterSeq") long afterSeq, Pageable pageable);
+
+    List<CouponChange> findBySeqIn(Collection<Long> seqs);
+
+    /**
+     * Highest sequence number written so far, or 0 when the log is empty.
+     */
+    @Query("select coalesce(max(c.seq), 0) from CouponChange c")
+    long findLastSeq();
+
+    @Transactional
+    @Modifying
+    @Query("delete from CouponChange c where c.createdAt < :before")
+    int deleteCreatedBefore(@Param("before") LocalDateTime before);
+}
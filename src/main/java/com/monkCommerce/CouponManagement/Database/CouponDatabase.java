@@ -17,9 +17,86 @@
 package com.monkCommerce.CouponManagement.Database;
 
 import com.monkCommerce.CouponManagement.Entities.Coupon;
+import com.monkCommerce.CouponManagement.Entities.CouponProduct;
+import com.monkCommerce.CouponManagement.Entities.CouponType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
 @Repository
 public interface CouponDatabase extends JpaRepository<Coupon, Long> {
-}
\ No newline at end of file
+
+    /**
+     * Keyset page: coupons with an id greater than {@code afterId}, in id order. Null filters match everything.
+     */
+    @Query("select c from Coupon c where c.id > :afterId"
+            + " and (:type is null or c.type = :type)"
+            + " and (:expiresFrom is null or c.expirationDate >= :expiresFrom)"
+            + " and (:expiresTo is null or c.expirationDate < :expiresTo)"
+            + " order by c.id")
+    List<Coupon> findPage(@Param("afterId") long afterId,
+                          @Param("type") String type,
+                          @Param("expiresFrom") LocalDateTime expiresFrom,
+                          @Param("expiresTo") LocalDateTime expiresTo,
+                          Pageable pageable);
+
+    /**
+     * Same filters as {@link #findPage} but read through a JDBC cursor. Must be consumed inside a
+     * transaction and closed afterwards.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select c from Coupon c where (:type is null or c.type = :type)"
+            + " and (:expiresFrom is null or c.expirationDate >= :expiresFrom)"
+            + " and (:expiresTo is null or c.expirationDate < :expiresTo)"
+            + " order by c.id")
+    Stream<Coupon> streamAll(@Param("type") String type,
+                             @Param("expiresFrom") LocalDateTime expiresFrom,
+                             @Param("expiresTo") LocalDateTime expiresTo);
+
+    /**
+     * Unexpired coupons whose rule needs one of {@code productIds} in the cart: product-wise coupons
+     * targeting it and bxgy coupons buying it. Answered from the {@code coupon_product} index.
+     */
+    default List<Coupon> findTargetingAnyProduct(Collection<Long> productIds, LocalDateTime now) {
+        return findByProducts(productIds, List.of(CouponProduct.Role.TARGET, CouponProduct.Role.BUY), now);
+    }
+
+    @Query("select distinct c from Coupon c join c.products p"
+            + " where p.productId in :productIds and p.role in :roles"
+            + " and (c.expirationDate is null or c.expirationDate > :now)"
+            + " order by c.id")
+    List<Coupon> findByProducts(@Param("productIds") Collection<Long> productIds,
+                                @Param("roles") Collection<CouponProduct.Role> roles,
+                                @Param("now") LocalDateTime now);
+
+    /**
+     * Unexpired cart-wise coupons whose threshold a cart totalling {@code totalMinor} minor units
+     * reaches, lowest threshold first.
+     */
+    @Query("select c from Coupon c where c.ruleType = com.monkCommerce.CouponManagement.Entities.CouponType.CART_WISE"
+            + " and c.thresholdMinor <= :totalMinor"
+            + " and (c.expirationDate is null or c.expirationDate > :now)"
+            + " order by c.thresholdMinor, c.id")
+    List<Coupon> findCartWiseReachedBy(@Param("totalMinor") long totalMinor, @Param("now") LocalDateTime now);
+
+    long countByRuleType(CouponType ruleType);
+
+    /**
+     * Keyset page of coupons written before the typed columns existed.
+     */
+    @Query("select c.id from Coupon c where c.ruleType is null and c.id > :afterId order by c.id")
+    List<Long> findIdsWithoutRuleType(@Param("afterId") long afterId, Pageable pageable);
+}
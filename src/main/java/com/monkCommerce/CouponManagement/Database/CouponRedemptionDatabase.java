@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement.Database;
+
+import com.monkCommerce.CouponManagement.Entities.CouponRedemption;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface CouponRedemptionDatabase extends JpaRepository<CouponRedemption, Long> {
+
+    /**
+     * Creates the coupon's row unless it exists. Unlike {@code save}, this can never overwrite a row
+     * another instance created in the meantime; at worst it fails on the primary key.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "insert into coupon_redemption (coupon_id, leased, redeemed) select :couponId, 0, 0"
+            + " where not exists (select 1 from coupon_redemption where coupon_id = :couponId)", nativeQuery = true)
+    int insertIfAbsent(@Param("couponId") Long couponId);
+
+    /**
+     * Compare-and-set on {@code leased}, so concurrent instances never lease past the cap.
+     *
+     * @return 1 if the lease was granted, 0 if another instance leased in between
+     */
+    @Transactional
+    @Modifying
+    @Query("update CouponRedemption r set r.leased = r.leased + :count"
+            + " where r.couponId = :couponId and r.leased = :expectedLeased")
+    int lease(@Param("couponId") Long couponId, @Param("expectedLeased") long expectedLeased, @Param("count") long count);
+
+    /**
+     * Hands back {@code count} leased redemptions this instance will not use.
+     */
+    @Transactional
+    @Modifying
+    @Query("update CouponRedemption r set r.leased = r.leased - :count where r.couponId = :couponId")
+    int returnLease(@Param("couponId") Long couponId, @Param("count") long count);
+
+    @Transactional
+    @Modifying
+    @Query("update CouponRedemption r set r.redeemed = r.redeemed + :count where r.couponId = :couponId")
+    int addRedeemed(@Param("couponId") Long couponId, @Param("count") long count);
+}
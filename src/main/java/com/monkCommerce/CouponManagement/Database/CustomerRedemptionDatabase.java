@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement.Database;
+
+import com.monkCommerce.CouponManagement.Entities.CustomerRedemption;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface CustomerRedemptionDatabase extends JpaRepository<CustomerRedemption, CustomerRedemption.Key> {
+
+    /**
+     * Counts one redemption if the customer is still under {@code cap}. Each customer has their own
+     * row, so this only contends with the same customer's concurrent redemptions.
+     *
+     * @return 1 if counted, 0 if the customer is at the cap or has no row yet
+     */
+    @Transactional
+    @Modifying
+    @Query("update CustomerRedemption r set r.redeemed = r.redeemed + 1"
+            + " where r.couponId = :couponId and r.customerId = :customerId and r.redeemed < :cap")
+    int increment(@Param("couponId") Long couponId, @Param("customerId") String customerId, @Param("cap") int cap);
+
+    /**
+     * See {@link CouponRedemptionDatabase#insertIfAbsent}.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "insert into coupon_customer_redemption (coupon_id, customer_id, redeemed)"
+            + " select :couponId, :customerId, 0 where not exists (select 1 from coupon_customer_redemption"
+            + " where coupon_id = :couponId and customer_id = :customerId)", nativeQuery = true)
+    int insertIfAbsent(@Param("couponId") Long couponId, @Param("customerId") String customerId);
+
+    @Transactional
+    @Modifying
+    @Query("update CustomerRedemption r set r.redeemed = r.redeemed - 1"
+            + " where r.couponId = :couponId and r.customerId = :customerId and r.redeemed > 0")
+    int decrement(@Param("couponId") Long couponId, @Param("customerId") String customerId);
+}
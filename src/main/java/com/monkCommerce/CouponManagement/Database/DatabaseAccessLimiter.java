@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement.Database;
+
+import com.monkCommerce.CouponManagement.Exceptions.DatabaseBusyException;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.framework.ProxyFactory;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Bounds how many callers can be inside a repository at once. On platform threads the Tomcat pool
+ * already limits this; on virtual threads nothing does, so thousands of requests would pile up
+ * inside the connection pool and fail there. Callers wait here instead, and get a 503 if no permit
+ * frees up within the timeout.
+ * <p>
+ * A permit taken for a method returning a {@link Stream} is held until the stream is closed,
+ * because the stream keeps its connection open.
+ */
+public class DatabaseAccessLimiter implements MethodInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(DatabaseAccessLimiter.class);
+
+    private final Semaphore permits;
+    private final int maxConcurrency;
+    private final long acquireTimeoutMillis;
+
+    public DatabaseAccessLimiter(int maxConcurrency, long acquireTimeoutMillis) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("maxConcurrency must be positive: " + maxConcurrency);
+        }
+        this.permits = new Semaphore(maxConcurrency);
+        this.maxConcurrency = maxConcurrency;
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+    }
+
+    /**
+     * @return a proxy of {@code target} exposing all of its interfaces, with every call limited
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T wrap(T target) {
+        ProxyFactory factory = new ProxyFactory(target);
+        factory.addAdvice(this);
+        return (T) factory.getProxy(target.getClass().getClassLoader());
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        if (invocation.getMethod().getDeclaringClass() == Object.class) {
+            return invocation.proceed();
+        }
+        acquire(invocation);
+        Object result;
+        try {
+            result = invocation.proceed();
+        } catch (Throwable e) {
+            permits.release();
+            throw e;
+        }
+        if (result instanceof Stream) {
+            AtomicBoolean released = new AtomicBoolean();
+            return ((Stream<?>) result).onClose(() -> {
+                if (released.compareAndSet(false, true)) {
+                    permits.release();
+                }
+            });
+        }
+        permits.release();
+        return result;
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public int getAvailablePermits() {
+        return permits.availablePermits();
+    }
+
+    public int getWaiting() {
+        return permits.getQueueLength();
+    }
+
+    private void acquire(MethodInvocation invocation) throws InterruptedException {
+        if (!permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+            logger.warn("No database permit for {} after {} ms ({} callers waiting)",
+                    invocation.getMethod().getName(), acquireTimeoutMillis, permits.getQueueLength());
+            throw new DatabaseBusyException("Database is busy, try again later");
+        }
+    }
+}
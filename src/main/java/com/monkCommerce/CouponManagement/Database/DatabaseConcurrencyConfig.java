@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement.Database;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.Repository;
+
+/**
+ * Puts one shared {@link DatabaseAccessLimiter} in front of every Spring Data repository when
+ * requests run on virtual threads and {@code coupon.database.max-concurrency} is set. The
+ * {@code virtual} profile sets it to the connection pool size. On platform threads the Tomcat
+ * pool already bounds concurrency, so no limiter is created.
+ */
+@Configuration
+public class DatabaseConcurrencyConfig {
+
+    @Bean
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    @ConditionalOnProperty("coupon.database.max-concurrency")
+    public DatabaseAccessLimiter databaseAccessLimiter(
+            @Value("${coupon.database.max-concurrency}") int maxConcurrency,
+            @Value("${coupon.database.acquire-timeout-ms:30000}") long acquireTimeoutMillis) {
+        return new DatabaseAccessLimiter(maxConcurrency, acquireTimeoutMillis);
+    }
+
+    // Static so registering the post-processor does not instantiate this configuration early.
+    @Bean
+    public static BeanPostProcessor repositoryLimiter(ObjectProvider<DatabaseAccessLimiter> limiter) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof Repository) {
+                    DatabaseAccessLimiter databaseAccessLimiter = limiter.getIfAvailable();
+                    if (databaseAccessLimiter != null) {
+                        return databaseAccessLimiter.wrap(bean);
+                    }
+                }
+                return bean;
+            }
+        };
+    }
+}
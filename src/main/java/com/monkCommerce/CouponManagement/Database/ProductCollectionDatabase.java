@@ -0,0 +1,50 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement.Database;
+
+import com.monkCommerce.CouponManagement.Entities.ProductCollection;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface ProductCollectionDatabase extends JpaRepository<ProductCollection, Long> {
+
+    /**
+     * Creates the collection's row unless it exists; see {@link CouponRedemptionDatabase#insertIfAbsent}.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "insert into product_collection (id, version) select :id, 0"
+            + " where not exists (select 1 from product_collection where id = :id)", nativeQuery = true)
+    int insertIfAbsent(@Param("id") Long id);
+
+    /**
+     * Marks a membership change. The row stays locked until the transaction ends, so membership
+     * writes to one collection are serialized across instances.
+     */
+    @Transactional
+    @Modifying
+    @Query("update ProductCollection c set c.version = c.version + 1 where c.id = :id")
+    int incrementVersion(@Param("id") Long id);
+
+    @Query("select c.version from ProductCollection c where c.id = :id")
+    long findVersion(@Param("id") Long id);
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement.Database;
+
+import com.monkCommerce.CouponManagement.Entities.ProductCollectionMember;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ProductCollectionMemberDatabase extends JpaRepository<ProductCollectionMember, ProductCollectionMember.Key> {
+
+    @Query("select m.productId from ProductCollectionMember m where m.collectionId = :collectionId order by m.productId")
+    List<Long> findProductIds(@Param("collectionId") Long collectionId);
+
+    /**
+     * Which of {@code productIds} already belong to the collection.
+     */
+    @Query("select m.productId from ProductCollectionMember m"
+            + " where m.collectionId = :collectionId and m.productId in :productIds")
+    List<Long> findProductIdsIn(@Param("collectionId") Long collectionId,
+                                @Param("productIds") Collection<Long> productIds);
+
+    @Transactional
+    @Modifying
+    @Query("delete from ProductCollectionMember m where m.collectionId = :collectionId and m.productId in :productIds")
+    int deleteProducts(@Param("collectionId") Long collectionId, @Param("productIds") Collection<Long> productIds);
+}
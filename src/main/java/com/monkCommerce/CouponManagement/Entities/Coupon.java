@@ -1,22 +1,86 @@
 package com.monkCommerce.CouponManagement.Entities;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.monkCommerce.CouponManagement.Rules.CouponRuleColumns;
+import jakarta.persistence.CollectionTable;
+import jakarta.persistence.Column;
+import jakarta.persistence.ElementCollection;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import jakarta.persistence.Version;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "coupon_rule_type_threshold", columnList = "rule_type, threshold_minor"),
+        @Index(name = "coupon_expiration_date", columnList = "expiration_date")
+})
+@EntityListeners(CouponRuleColumns.class)
 public class Coupon {
 
+    // Pooled sequence: ids are handed out in blocks of 50 without a round trip per insert,
+    // which (unlike IDENTITY) lets Hibernate batch the inserts.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "coupon_seq")
+    @SequenceGenerator(name = "coupon_seq", sequenceName = "coupon_seq", allocationSize = 50)
     private Long id;
     private String type;
     private String details;
     private LocalDateTime expirationDate;
 
+    @Version
+    private Long version;
+
+    // Null means unlimited.
+    private Long maxRedemptions;
+    private Integer maxRedemptionsPerCustomer;
+
+    // Typed copy of the rule in details, kept up to date by CouponRuleColumns so the database can
+    // filter coupons. Not part of the API: details remains the source of truth.
+    @JsonIgnore
+    @Enumerated(EnumType.STRING)
+    @Column(name = "rule_type", length = 16)
+    private CouponType ruleType;
+
+    @JsonIgnore
+    @Column(name = "threshold_minor")
+    private Long thresholdMinor;
+
+    @JsonIgnore
+    private Long discountBasisPoints;
+
+    @JsonIgnore
+    private Integer repetitionLimit;
+
+    @JsonIgnore
+    @ElementCollection
+    @CollectionTable(name = "coupon_product", joinColumns = @JoinColumn(name = "coupon_id"),
+            indexes = @Index(name = "coupon_product_product_id", columnList = "product_id, role"))
+    private List<CouponProduct> products = new ArrayList<>();
+
+    // Type and details the typed columns were last written from, so CouponRuleColumns does not
+    // compile an unchanged rule again when the coupon is persisted.
+    @JsonIgnore
+    @Transient
+    private String ruleColumnsType;
+
+    @JsonIgnore
+    @Transient
+    private String ruleColumnsDetails;
+
     public Long getId() {
         return id;
     }
@@ -49,5 +113,85 @@ public class Coupon {
         this.expirationDate = expirationDate;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public Long getMaxRedemptions() {
+        return maxRedemptions;
+    }
+
+    public void setMaxRedemptions(Long maxRedemptions) {
+        this.maxRedemptions = maxRedemptions;
+    }
+
+    public Integer getMaxRedemptionsPerCustomer() {
+        return maxRedemptionsPerCustomer;
+    }
+
+    public void setMaxRedemptionsPerCustomer(Integer maxRedemptionsPerCustomer) {
+        this.maxRedemptionsPerCustomer = maxRedemptionsPerCustomer;
+    }
+
+    public CouponType getRuleType() {
+        return ruleType;
+    }
 
+    public void setRuleType(CouponType ruleType) {
+        this.ruleType = ruleType;
+    }
+
+    /**
+     * Cart-wise threshold in minor units.
+     */
+    public Long getThresholdMinor() {
+        return thresholdMinor;
+    }
+
+    public void setThresholdMinor(Long thresholdMinor) {
+        this.thresholdMinor = thresholdMinor;
+    }
+
+    /**
+     * Cart-wise or product-wise discount in basis points.
+     */
+    public Long getDiscountBasisPoints() {
+        return discountBasisPoints;
+    }
+
+    public void setDiscountBasisPoints(Long discountBasisPoints) {
+        this.discountBasisPoints = discountBasisPoints;
+    }
+
+    public Integer getRepetitionLimit() {
+        return repetitionLimit;
+    }
+
+    public void setRepetitionLimit(Integer repetitionLimit) {
+        this.repetitionLimit = repetitionLimit;
+    }
+
+    public List<CouponProduct> getProducts() {
+        return products;
+    }
+
+    public void setProducts(List<CouponProduct> products) {
+        this.products = products;
+    }
+
+    /**
+     * @return whether the typed columns were written from exactly the current type and details
+     */
+    public boolean hasRuleColumnsOf(String type, String details) {
+        return ruleColumnsType == type && ruleColumnsDetails == details;
+    }
+
+    public void setRuleColumnsSource(String type, String details) {
+        this.ruleColumnsType = type;
+        this.ruleColumnsDetails = details;
+    }
 }
@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement.Entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+
+import java.time.LocalDateTime;
+
+/**
+ * One committed write to a coupon, appended in the same transaction as the write itself. Other
+ * instances tail this table by {@link #getSeq() seq} to keep their in-memory catalogs current.
+ */
+@Entity
+@Table(name = "coupon_change", indexes = @Index(name = "coupon_change_created_at", columnList = "createdAt"))
+public class CouponChange {
+
+    public static final String UPSERT = "upsert";
+    public static final String DELETE = "delete";
+
+    // Unlike coupon_seq this sequence is not pooled: every instance must draw from the same counter,
+    // or a node could commit a change below another node's tail position long after it was passed.
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "coupon_change_seq")
+    @SequenceGenerator(name = "coupon_change_seq", sequenceName = "coupon_change_seq", allocationSize = 1)
+    private Long seq;
+
+    @Column(nullable = false)
+    private Long couponId;
+
+    @Column(nullable = false, length = 16)
+    private String operation;
+
+    @Column(nullable = false, length = 64)
+    private String origin;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    public CouponChange() {
+    }
+
+    public CouponChange(Long couponId, String operation, String origin, LocalDateTime createdAt) {
+        this.couponId = couponId;
+        this.operation = operation;
+        this.origin = origin;
+        this.createdAt = createdAt;
+    }
+
+    public Long getSeq() {
+        return seq;
+    }
+
+    public void setSeq(Long seq) {
+        this.seq = seq;
+    }
+
+    public Long getCouponId() {
+        return couponId;
+    }
+
+    public void setCouponId(Long couponId) {
+        this.couponId = couponId;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public void setOperation(String operation) {
+        this.operation = operation;
+    }
+
+    public String getOrigin() {
+        return origin;
+    }
+
+    public void setOrigin(String origin) {
+        this.origin = origin;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
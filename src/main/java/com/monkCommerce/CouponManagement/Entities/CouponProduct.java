@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement.Entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+
+import java.util.Objects;
+
+/**
+ * A product a coupon's rule refers to: the target of a product-wise coupon, or a buy or get
+ * product of a bxgy coupon. Stored in the {@code coupon_product} table.
+ */
+@Embeddable
+public class CouponProduct {
+
+    public enum Role {
+        TARGET,
+        BUY,
+        GET
+    }
+
+    @Column(name = "product_id", nullable = false)
+    private long productId;
+
+    @Column(nullable = false)
+    private int quantity;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 8)
+    private Role role;
+
+    public CouponProduct() {
+    }
+
+    public CouponProduct(long productId, int quantity, Role role) {
+        this.productId = productId;
+        this.quantity = quantity;
+        this.role = role;
+    }
+
+    public long getProductId() {
+        return productId;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public Role getRole() {
+        return role;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof CouponProduct product)) {
+            return false;
+        }
+        return productId == product.productId && quantity == product.quantity && role == product.role;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(productId, quantity, role);
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement.Entities;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+
+/**
+ * Redemption accounting for a coupon with a global cap. {@code leased} is how many redemptions
+ * instances have been allowed to hand out, and never exceeds the cap; {@code redeemed} is how many
+ * they have reported back as used.
+ */
+@Entity
+public class CouponRedemption {
+
+    @Id
+    private Long couponId;
+
+    private long leased;
+
+    private long redeemed;
+
+    public CouponRedemption() {
+    }
+
+    public CouponRedemption(Long couponId) {
+        this.couponId = couponId;
+    }
+
+    public Long getCouponId() {
+        return couponId;
+    }
+
+    public long getLeased() {
+        return leased;
+    }
+
+    public long getRedeemed() {
+        return redeemed;
+    }
+}
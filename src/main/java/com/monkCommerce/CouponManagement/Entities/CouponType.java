@@ -0,0 +1,30 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement.Entities;
+
+/**
+ * Typed form of {@link Coupon#getType()}, stored in its own indexed column. Anything that does not
+ * compile into a rule (unknown type or invalid details) is {@link #UNSUPPORTED}.
+ */
+public enum CouponType {
+    CART_WISE,
+    PRODUCT_WISE,
+    BXGY,
+    RULE,
+    COLLECTION_WISE,
+    UNSUPPORTED
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement.Entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * How many times one customer has redeemed a coupon with a per-customer cap.
+ */
+@Entity
+@Table(name = "coupon_customer_redemption")
+@IdClass(CustomerRedemption.Key.class)
+public class CustomerRedemption {
+
+    @Id
+    private Long couponId;
+
+    @Id
+    @Column(length = 64)
+    private String customerId;
+
+    private int redeemed;
+
+    public CustomerRedemption() {
+    }
+
+    public CustomerRedemption(Long couponId, String customerId, int redeemed) {
+        this.couponId = couponId;
+        this.customerId = customerId;
+        this.redeemed = redeemed;
+    }
+
+    public Long getCouponId() {
+        return couponId;
+    }
+
+    public String getCustomerId() {
+        return customerId;
+    }
+
+    public int getRedeemed() {
+        return redeemed;
+    }
+
+    public static class Key implements Serializable {
+        private Long couponId;
+        private String customerId;
+
+        public Key() {
+        }
+
+        public Key(Long couponId, String customerId) {
+            this.couponId = couponId;
+            this.customerId = customerId;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof Key key)) {
+                return false;
+            }
+            return Objects.equals(couponId, key.couponId) && Objects.equals(customerId, key.customerId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(couponId, customerId);
+        }
+    }
+}
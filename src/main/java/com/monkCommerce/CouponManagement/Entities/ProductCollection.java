@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement.Entities;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Transient;
+
+/**
+ * A category or collection of products that collection-wise coupons can target. Ids come from the
+ * product catalog. {@code version} goes up on every membership change, which is how other
+ * instances notice they need to reload the members.
+ */
+@Entity
+public class ProductCollection {
+
+    @Id
+    private Long id;
+
+    private long version;
+
+    // Members currently loaded on this instance; filled in for responses only.
+    @Transient
+    private int size;
+
+    public ProductCollection() {
+    }
+
+    public ProductCollection(Long id, long version) {
+        this.id = id;
+        this.version = version;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+}
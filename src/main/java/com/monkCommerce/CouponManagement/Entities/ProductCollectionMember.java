@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement.Entities;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * One product's membership in a {@link ProductCollection}. The primary key leads with the
+ * collection, so loading a collection's members is a range scan.
+ */
+@Entity
+@Table(name = "product_collection_member")
+@IdClass(ProductCollectionMember.Key.class)
+public class ProductCollectionMember {
+
+    @Id
+    private Long collectionId;
+
+    @Id
+    private Long productId;
+
+    public ProductCollectionMember() {
+    }
+
+    public ProductCollectionMember(Long collectionId, Long productId) {
+        this.collectionId = collectionId;
+        this.productId = productId;
+    }
+
+    public Long getCollectionId() {
+        return collectionId;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public static class Key implements Serializable {
+        private Long collectionId;
+        private Long productId;
+
+        public Key() {
+        }
+
+        public Key(Long collectionId, Long productId) {
+            this.collectionId = collectionId;
+            this.productId = productId;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof Key key)) {
+                return false;
+            }
+            return Objects.equals(collectionId, key.collectionId) && Objects.equals(productId, key.productId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(collectionId, productId);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement.Logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.MDC;
+import org.slf4j.Marker;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps DEBUG and TRACE logs for only a sample of requests, with a rate per endpoint. The
+ * decision is a hash of the request id that {@link RequestLoggingInterceptor} puts in the MDC,
+ * so a request keeps either all of its debug lines or none. Turbo filters run before the level
+ * check and before message formatting, so a rejected call costs an MDC lookup.
+ * <p>
+ * Configured in {@code logback-spring.xml}:
+ * <pre>
+ * &lt;turboFilter class="com.monkCommerce.CouponManagement.Logging.DebugSamplingFilter"&gt;
+ *     &lt;defaultRate&gt;0.01&lt;/defaultRate&gt;
+ *     &lt;rate&gt;POST /cart/applicable-coupons=0.001&lt;/rate&gt;
+ * &lt;/turboFilter&gt;
+ * </pre>
+ * Events outside a request are never sampled.
+ */
+public class DebugSamplingFilter extends TurboFilter {
+
+    private final Map<String, Double> rates = new ConcurrentHashMap<>();
+    private double defaultRate = 1.0;
+
+    public void setDefaultRate(double defaultRate) {
+        this.defaultRate = defaultRate;
+    }
+
+    /**
+     * @param rate {@code "<METHOD> <pattern>=<rate>"}, e.g. {@code "POST /cart/best-coupon=0.05"}
+     */
+    public void addRate(String rate) {
+        int separator = rate.lastIndexOf('=');
+        if (separator <= 0) {
+            addError("Expected <endpoint>=<rate> but got: " + rate);
+            return;
+        }
+        rates.put(rate.substring(0, separator).trim(), Double.parseDouble(rate.substring(separator + 1).trim()));
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (level == null || level.isGreaterOrEqual(Level.INFO)) {
+            return FilterReply.NEUTRAL;
+        }
+        String endpoint = MDC.get(RequestLoggingInterceptor.ENDPOINT);
+        String requestId = MDC.get(RequestLoggingInterceptor.REQUEST_ID);
+        if (endpoint == null || requestId == null) {
+            return FilterReply.NEUTRAL;
+        }
+        return isSampled(requestId, rates.getOrDefault(endpoint, defaultRate)) ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+
+    static boolean isSampled(String requestId, double rate) {
+        if (rate >= 1.0) {
+            return true;
+        }
+        long hash = requestId.hashCode() * 0x9E3779B97F4A7C15L;
+        // Top 53 bits as a uniform double in [0, 1).
+        return (hash >>> 11) * 0x1.0p-53 < rate;
+    }
+}
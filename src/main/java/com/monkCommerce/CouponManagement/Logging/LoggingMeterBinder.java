@@ -0,0 +1,50 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement.Logging;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Publishes the drop counters and queue depth of every {@link MeteredAsyncAppender}.
+ */
+@Component
+public class LoggingMeterBinder implements MeterBinder {
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (Map.Entry<String, MeteredAsyncAppender.Stats> entry : MeteredAsyncAppender.stats().entrySet()) {
+            MeteredAsyncAppender.Stats stats = entry.getValue();
+            FunctionCounter.builder("logging.events.dropped", stats, MeteredAsyncAppender.Stats::getDiscarded)
+                    .description("Log events dropped by an asynchronous appender")
+                    .tags("appender", entry.getKey(), "reason", "discarded")
+                    .register(registry);
+            FunctionCounter.builder("logging.events.dropped", stats, MeteredAsyncAppender.Stats::getOverflowed)
+                    .description("Log events dropped by an asynchronous appender")
+                    .tags("appender", entry.getKey(), "reason", "overflow")
+                    .register(registry);
+            Gauge.builder("logging.queue.size", stats, MeteredAsyncAppender.Stats::getQueued)
+                    .tag("appender", entry.getKey())
+                    .register(registry);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement.Logging;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link AsyncAppender} that counts the events it drops, so they can be published as metrics.
+ * Logback creates appenders before Spring starts, so the counts live in a static map keyed by
+ * appender name and survive reconfiguration; {@link LoggingMeterBinder} reads them from there.
+ * <p>
+ * Two kinds of drops are counted: {@code discarded} when the queue is past its discarding
+ * threshold and the event is INFO or below, and {@code overflow} when {@code neverBlock} is set
+ * and the queue is full. The checks race with the worker thread, so a drop that happens between
+ * the check here and the enqueue in {@link AsyncAppender} can go uncounted.
+ */
+public class MeteredAsyncAppender extends AsyncAppender {
+
+    private static final Map<String, Stats> STATS = new ConcurrentHashMap<>();
+
+    private Stats stats;
+
+    public static Map<String, Stats> stats() {
+        return STATS;
+    }
+
+    @Override
+    public void start() {
+        stats = STATS.computeIfAbsent(getName(), name -> new Stats());
+        stats.appender = this;
+        super.start();
+    }
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        if (isQueueBelowDiscardingThreshold() && isDiscardable(event)) {
+            stats.discarded.increment();
+            return;
+        }
+        if (isNeverBlock() && getRemainingCapacity() == 0) {
+            stats.overflowed.increment();
+            return;
+        }
+        super.append(event);
+    }
+
+    public static final class Stats {
+        private final LongAdder discarded = new LongAdder();
+        private final LongAdder overflowed = new LongAdder();
+        private volatile MeteredAsyncAppender appender;
+
+        public long getDiscarded() {
+            return discarded.sum();
+        }
+
+        public long getOverflowed() {
+            return overflowed.sum();
+        }
+
+        public int getQueued() {
+            MeteredAsyncAppender current = appender;
+            return current == null ? 0 : current.getNumberOfElementsInQueue();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement.Logging;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.MDC;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Tags every log line of a request with its endpoint (method and route pattern, e.g.
+ * {@code POST /cart/apply-coupon/{id}}) and a random request id. The JSON log output includes
+ * both, and {@link DebugSamplingFilter} samples on them.
+ */
+public class RequestLoggingInterceptor implements HandlerInterceptor {
+
+    public static final String ENDPOINT = "endpoint";
+    public static final String REQUEST_ID = "requestId";
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        MDC.put(ENDPOINT, request.getMethod() + " " + (pattern != null ? pattern : request.getRequestURI()));
+        MDC.put(REQUEST_ID, Long.toHexString(ThreadLocalRandom.current().nextLong()));
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        MDC.remove(ENDPOINT);
+        MDC.remove(REQUEST_ID);
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement.Rules;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Decides which cart units a bxgy coupon gives away. Each repetition needs the quantity of one buy
+ * product and earns the sum of the get quantities as free units, which go to the get products in
+ * the cart with the lowest unit price first, as far as the cart holds them. A unit is never both
+ * bought and free: a product that is both a buy and a get product only adds repetitions while the
+ * units it reserves leave room for more free units.
+ * <p>
+ * Products listed more than once are merged when the coupon is compiled. One allocation costs a
+ * hash lookup per listed product plus a heap of the get products in the cart, popped once per
+ * product that receives free units.
+ */
+final class BxGyAllocator {
+
+    private static final int NOT_A_GET_PRODUCT = -1;
+
+    private final long[] buyProductIds;
+    private final int[] buyQuantities;
+    // Index into getProductIds of each buy product, or NOT_A_GET_PRODUCT.
+    private final int[] buyGetIndexes;
+    private final long[] getProductIds;
+    private final long unitsPerRepetition;
+    private final int repetitionLimit;
+
+    BxGyAllocator(long[] buyProductIds, int[] buyQuantities, long[] getProductIds, int[] getQuantities,
+                  int repetitionLimit) {
+        Map<Long, Integer> buys = merge(buyProductIds, buyQuantities);
+        Map<Long, Integer> gets = merge(getProductIds, getQuantities);
+        Map<Long, Integer> getIndexes = new HashMap<>();
+        this.getProductIds = new long[gets.size()];
+        long units = 0;
+        for (Map.Entry<Long, Integer> get : gets.entrySet()) {
+            getIndexes.put(get.getKey(), getIndexes.size());
+            this.getProductIds[getIndexes.size() - 1] = get.getKey();
+            units += get.getValue();
+        }
+        this.unitsPerRepetition = units;
+        this.buyProductIds = new long[buys.size()];
+        this.buyQuantities = new int[buys.size()];
+        this.buyGetIndexes = new int[buys.size()];
+        int i = 0;
+        for (Map.Entry<Long, Integer> buy : buys.entrySet()) {
+            this.buyProductIds[i] = buy.getKey();
+            this.buyQuantities[i] = buy.getValue();
+            buyGetIndexes[i] = getIndexes.getOrDefault(buy.getKey(), NOT_A_GET_PRODUCT);
+            i++;
+        }
+        this.repetitionLimit = Math.max(0, repetitionLimit);
+    }
+
+    /**
+     * @return free units per merged get product; all zero if the coupon gives nothing away for
+     * this cart
+     */
+    Allocation allocate(CartView cart) {
+        int[] slots = new int[getProductIds.length];
+        int[] available = new int[getProductIds.length];
+        long capacity = 0;
+        for (int g = 0; g < getProductIds.length; g++) {
+            int slot = cart.indexOf(getProductIds[g]);
+            slots[g] = slot;
+            if (slot >= 0) {
+                available[g] = Math.max(0, cart.quantityAt(slot));
+                capacity += available[g];
+            }
+        }
+        int[] freeUnits = new int[getProductIds.length];
+        if (capacity == 0 || unitsPerRepetition == 0) {
+            return new Allocation(slots, freeUnits);
+        }
+
+        long repetitions = 0;
+        for (int i = 0; i < buyProductIds.length && repetitions < repetitionLimit; i++) {
+            if (buyGetIndexes[i] == NOT_A_GET_PRODUCT && buyQuantities[i] > 0) {
+                repetitions += Math.max(0, cart.quantityOf(buyProductIds[i])) / buyQuantities[i];
+            }
+        }
+        repetitions = Math.min(repetitions, repetitionLimit);
+        for (int i = 0; i < buyProductIds.length && repetitions < repetitionLimit; i++) {
+            int g = buyGetIndexes[i];
+            long demand = repetitions * unitsPerRepetition;
+            if (g == NOT_A_GET_PRODUCT || buyQuantities[i] <= 0 || demand >= capacity) {
+                continue;
+            }
+            long buy = buyQuantities[i];
+            long possible = Math.min(available[g] / buy, repetitionLimit - repetitions);
+            // Largest count that still leaves a free unit for every earned one...
+            long taken = Math.min(possible, (capacity - demand) / (unitsPerRepetition + buy));
+            // ...plus one partly rewarded repetition if it still frees more units than it reserves.
+            if (taken < possible && capacity - buy * (taken + 1) > demand + taken * unitsPerRepetition) {
+                taken++;
+            }
+            repetitions += taken;
+            available[g] -= (int) (buy * taken);
+            capacity -= buy * taken;
+        }
+
+        long remaining = Math.min(repetitions * unitsPerRepetition, capacity);
+        int[] heap = new int[getProductIds.length];
+        int size = 0;
+        for (int g = 0; g < getProductIds.length; g++) {
+            if (available[g] > 0) {
+                heap[size++] = g;
+            }
+        }
+        for (int i = size / 2 - 1; i >= 0; i--) {
+            siftDown(heap, i, size, cart, slots);
+        }
+        while (remaining > 0 && size > 0) {
+            int g = heap[0];
+            heap[0] = heap[--size];
+            siftDown(heap, 0, size, cart, slots);
+            int units = (int) Math.min(available[g], remaining);
+            freeUnits[g] = units;
+            remaining -= units;
+        }
+        return new Allocation(slots, freeUnits);
+    }
+
+    private static void siftDown(int[] heap, int index, int size, CartView cart, int[] slots) {
+        int g = heap[index];
+        while (true) {
+            int child = index * 2 + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && cheaper(cart, slots[heap[child + 1]], slots[heap[child]])) {
+                child++;
+            }
+            if (!cheaper(cart, slots[heap[child]], slots[g])) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = g;
+    }
+
+    // Compares average unit prices without dividing.
+    private static boolean cheaper(CartView cart, int slot, int other) {
+        return cart.amountAt(slot) * cart.quantityAt(other) < cart.amountAt(other) * cart.quantityAt(slot);
+    }
+
+    private static Map<Long, Integer> merge(long[] productIds, int[] quantities) {
+        Map<Long, Integer> merged = new LinkedHashMap<>();
+        for (int i = 0; i < productIds.length; i++) {
+            merged.merge(productIds[i], quantities[i], Integer::sum);
+        }
+        return merged;
+    }
+
+    /**
+     * Free units of each get product, with the cart slot it was found in ({@code -1} if absent).
+     */
+    record Allocation(int[] slots, int[] freeUnits) {
+
+        boolean isEmpty() {
+            for (int units : freeUnits) {
+                if (units > 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement.Rules;
+
+import com.monkCommerce.CouponManagement.Entities.Cart;
+import com.monkCommerce.CouponManagement.Entities.CartItem;
+
+import java.math.RoundingMode;
+
+/**
+ * Buy X, get Y. Free units are limited by the repetition limit and by what the cart actually holds,
+ * and go to the cheapest get products first; {@link BxGyAllocator} has the details. The coupon is
+ * only applicable when it would give at least one unit away.
+ */
+public final class BxGyRule extends CouponRule {
+
+    private final long[] buyProductIds;
+    private final int[] buyQuantities;
+    private final long[] getProductIds;
+    private final int[] getQuantities;
+    private final int repetitionLimit;
+    private final RoundingMode rounding;
+    private final BxGyAllocator allocator;
+
+    /**
+     * @param rounding used when free items are valued at a product's average unit price, i.e. when
+     *                 the cart has several lines of that product at different prices
+     */
+    public BxGyRule(Long couponId, Long version, long expiresAtMillis, long[] buyProductIds, int[] buyQuantities,
+                    long[] getProductIds, int[] getQuantities, int repetitionLimit, RoundingMode rounding) {
+        super(couponId, version, expiresAtMillis);
+        this.buyProductIds = buyProductIds;
+        this.buyQuantities = buyQuantities;
+        this.getProductIds = getProductIds;
+        this.getQuantities = getQuantities;
+        this.repetitionLimit = repetitionLimit;
+        this.rounding = rounding;
+        this.allocator = new BxGyAllocator(buyProductIds, buyQuantities, getProductIds, getQuantities, repetitionLimit);
+    }
+
+    public long[] getBuyProductIds() {
+        return buyProductIds.clone();
+    }
+
+    public int[] getBuyQuantities() {
+        return buyQuantities.clone();
+    }
+
+    public long[] getGetProductIds() {
+        return getProductIds.clone();
+    }
+
+    public int[] getGetQuantities() {
+        return getQuantities.clone();
+    }
+
+    public int getRepetitionLimit() {
+        return repetitionLimit;
+    }
+
+    public RoundingMode getRounding() {
+        return rounding;
+    }
+
+    @Override
+    public String getType() {
+        return CouponRuleCompiler.BXGY;
+    }
+
+    @Override
+    public boolean isApplicable(CartView cart) {
+        return !allocator.allocate(cart).isEmpty();
+    }
+
+    @Override
+    public long discount(CartView cart) {
+        BxGyAllocator.Allocation allocation = allocator.allocate(cart);
+        long totalDiscount = 0;
+        for (int g = 0; g < allocation.slots().length; g++) {
+            totalDiscount += freeAmount(cart, allocation, g);
+        }
+        return totalDiscount;
+    }
+
+    /**
+     * Each get product's discount is rounded once on its merged amount, then split over its lines
+     * so the line discounts add up to exactly what {@link #discount(CartView)} reported.
+     */
+    @Override
+    public void apply(Cart cart, CartView view) {
+        BxGyAllocator.Allocation allocation = allocator.allocate(view);
+        long totalDiscount = Money.toMinor(cart.getTotalDiscount());
+        for (int g = 0; g < allocation.slots().length; g++) {
+            int slot = allocation.slots()[g];
+            if (slot < 0) {
+                continue;
+            }
+            long remaining = freeAmount(view, allocation, g);
+            long remainingAmount = view.amountAt(slot);
+            for (int line = view.firstLine(slot); line >= 0; line = view.nextLine(line)) {
+                CartItem item = cart.getItems().get(line);
+                long lineAmount = Money.toMinor(item.getPrice()) * item.getQuantity();
+                long lineDiscount = view.nextLine(line) < 0 || remainingAmount == 0
+                        ? remaining
+                        : Money.mulDiv(remaining, lineAmount, remainingAmount, RoundingMode.HALF_UP);
+                remaining -= lineDiscount;
+                remainingAmount -= lineAmount;
+                item.setTotalDiscount(Money.toMajor(lineDiscount));
+                totalDiscount += lineDiscount;
+            }
+        }
+        cart.setTotalDiscount(Money.toMajor(totalDiscount));
+        cart.setFinalPrice(Money.toMajor(view.getTotalPrice() - totalDiscount));
+    }
+
+    private long freeAmount(CartView cart, BxGyAllocator.Allocation allocation, int g) {
+        int slot = allocation.slots()[g];
+        int units = allocation.freeUnits()[g];
+        return units == 0 ? 0 : Money.mulDiv(cart.amountAt(slot), units, cart.quantityAt(slot), rounding);
+    }
+}
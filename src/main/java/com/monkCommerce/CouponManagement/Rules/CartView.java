@@ -0,0 +1,262 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement.Rules;
+
+import com.monkCommerce.CouponManagement.Entities.CartItem;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compact, read-only view of a cart used for coupon evaluation. Lines of the same product are
+ * merged into one slot of parallel primitive arrays, and an open-addressing {@code long -> int}
+ * table maps a product id to its slot, so rule checks are hash lookups with no boxing and the
+ * whole view costs a fixed handful of array allocations regardless of cart size. Amounts are held
+ * in minor units (see {@link Money}) so totals are exact.
+ * <p>
+ * When built from cart lines the view also chains the lines of each product ({@link #firstLine},
+ * {@link #nextLine}) so rules can write per-line discounts without scanning the cart.
+ */
+public final class CartView {
+
+    private static final int NO_SLOT = -1;
+
+    private final long[] productIds;
+    private final int[] quantities;
+    private final long[] amounts;
+    private final int[] firstLines;
+    private final int[] nextLines;
+    private final int size;
+    private final long totalPrice;
+
+    private final long[] tableKeys;
+    private final int[] tableSlots;
+    private final int tableMask;
+
+    // Built on first use by a collection-wise rule; rules may run in parallel over one view.
+    private volatile ProductSets.CartProducts products;
+
+    private CartView(long[] productIds, int[] quantities, long[] amounts, int[] firstLines, int[] nextLines,
+                     int size, long totalPrice, long[] tableKeys, int[] tableSlots) {
+        this.productIds = productIds;
+        this.quantities = quantities;
+        this.amounts = amounts;
+        this.firstLines = firstLines;
+        this.nextLines = nextLines;
+        this.size = size;
+        this.totalPrice = totalPrice;
+        this.tableKeys = tableKeys;
+        this.tableSlots = tableSlots;
+        this.tableMask = tableKeys.length - 1;
+    }
+
+    public static CartView of(List<CartItem> items) {
+        int lines = items.size();
+        Builder builder = new Builder(lines);
+        int[] nextLines = new int[lines];
+        int[] lastLines = new int[lines];
+        for (int line = 0; line < lines; line++) {
+            CartItem item = items.get(line);
+            int slot = builder.add(item.getProductId(), item.getQuantity(), Money.toMinor(item.getPrice()) * item.getQuantity());
+            nextLines[line] = NO_SLOT;
+            if (builder.firstLines[slot] == NO_SLOT) {
+                builder.firstLines[slot] = line;
+            } else {
+                nextLines[lastLines[slot]] = line;
+            }
+            lastLines[slot] = line;
+        }
+        return builder.build(nextLines);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Cart total in minor units.
+     */
+    public long getTotalPrice() {
+        return totalPrice;
+    }
+
+    public long productIdAt(int slot) {
+        return productIds[slot];
+    }
+
+    public int quantityAt(int slot) {
+        return quantities[slot];
+    }
+
+    /**
+     * Line amount (price times quantity) of the product in {@code slot}, in minor units.
+     */
+    public long amountAt(int slot) {
+        return amounts[slot];
+    }
+
+    /**
+     * @return the slot of {@code productId}, or {@code -1} if the cart does not contain it
+     */
+    public int indexOf(long productId) {
+        int bucket = bucket(productId, tableMask);
+        while (true) {
+            int slot = tableSlots[bucket];
+            if (slot == NO_SLOT) {
+                return NO_SLOT;
+            }
+            if (tableKeys[bucket] == productId) {
+                return slot;
+            }
+            bucket = (bucket + 1) & tableMask;
+        }
+    }
+
+    public int quantityOf(long productId) {
+        int slot = indexOf(productId);
+        return slot == NO_SLOT ? 0 : quantities[slot];
+    }
+
+    /**
+     * First cart line of the product in {@code slot}, or {@code -1} if the view has no line information.
+     */
+    public int firstLine(int slot) {
+        return firstLines[slot];
+    }
+
+    /**
+     * Next cart line of the same product after {@code line}, or {@code -1}.
+     */
+    public int nextLine(int line) {
+        return nextLines[line];
+    }
+
+    /**
+     * Dense ids of this cart's products in {@code productSets}, computed once per view.
+     */
+    ProductSets.CartProducts products(ProductSets productSets) {
+        ProductSets.CartProducts cached = products;
+        if (cached == null) {
+            cached = productSets.productsOf(this);
+            products = cached;
+        }
+        return cached;
+    }
+
+    private static int bucket(long productId, int mask) {
+        long hash = productId * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    /**
+     * Accumulates products one at a time, merging repeated product ids. {@code expectedProducts} is
+     * only a sizing hint; the builder grows as needed.
+     */
+    public static final class Builder {
+        private long[] productIds;
+        private int[] quantities;
+        private long[] amounts;
+        private int[] firstLines;
+        private int size;
+        private long totalPrice;
+
+        private long[] tableKeys;
+        private int[] tableSlots;
+
+        public Builder(int expectedProducts) {
+            int capacity = Math.max(4, expectedProducts);
+            productIds = new long[capacity];
+            quantities = new int[capacity];
+            amounts = new long[capacity];
+            firstLines = new int[capacity];
+            allocateTable(tableCapacity(capacity));
+        }
+
+        /**
+         * @param amount price times quantity, in minor units
+         * @return the slot the product was merged into
+         */
+        public int add(long productId, int quantity, long amount) {
+            totalPrice += amount;
+            int mask = tableKeys.length - 1;
+            int bucket = bucket(productId, mask);
+            while (tableSlots[bucket] != NO_SLOT) {
+                if (tableKeys[bucket] == productId) {
+                    int slot = tableSlots[bucket];
+                    quantities[slot] += quantity;
+                    amounts[slot] += amount;
+                    return slot;
+                }
+                bucket = (bucket + 1) & mask;
+            }
+            if (size == productIds.length) {
+                grow();
+                mask = tableKeys.length - 1;
+                bucket = bucket(productId, mask);
+                while (tableSlots[bucket] != NO_SLOT) {
+                    bucket = (bucket + 1) & mask;
+                }
+            }
+            int slot = size++;
+            productIds[slot] = productId;
+            quantities[slot] = quantity;
+            amounts[slot] = amount;
+            firstLines[slot] = NO_SLOT;
+            tableKeys[bucket] = productId;
+            tableSlots[bucket] = slot;
+            return slot;
+        }
+
+        public CartView build() {
+            return build(null);
+        }
+
+        private CartView build(int[] nextLines) {
+            return new CartView(productIds, quantities, amounts, firstLines,
+                    nextLines == null ? new int[0] : nextLines, size, totalPrice, tableKeys, tableSlots);
+        }
+
+        private void grow() {
+            int capacity = productIds.length * 2;
+            productIds = Arrays.copyOf(productIds, capacity);
+            quantities = Arrays.copyOf(quantities, capacity);
+            amounts = Arrays.copyOf(amounts, capacity);
+            firstLines = Arrays.copyOf(firstLines, capacity);
+            allocateTable(tableCapacity(capacity));
+            int mask = tableKeys.length - 1;
+            for (int slot = 0; slot < size; slot++) {
+                int bucket = bucket(productIds[slot], mask);
+                while (tableSlots[bucket] != NO_SLOT) {
+                    bucket = (bucket + 1) & mask;
+                }
+                tableKeys[bucket] = productIds[slot];
+                tableSlots[bucket] = slot;
+            }
+        }
+
+        private void allocateTable(int capacity) {
+            tableKeys = new long[capacity];
+            tableSlots = new int[capacity];
+            Arrays.fill(tableSlots, NO_SLOT);
+        }
+
+        // Keeps the load factor at or below 0.5 so probe sequences stay short.
+        private static int tableCapacity(int products) {
+            return Integer.highestOneBit(Math.max(2, products) * 2 - 1) << 1;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement.Rules;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+
+/**
+ * Reads a cart ({@code {"items": [{"productId": .., "quantity": .., "price": ..}, ..]}}) token by
+ * token straight into a {@link CartView.Builder}, so totals and per-product quantities are
+ * accumulated as lines arrive and no {@code CartItem} or item list is ever allocated. Memory is
+ * proportional to the number of distinct products, not lines. Unknown fields are skipped, as the
+ * data binder does. Works with any Jackson parser, so Smile and CBOR carts can be read the same way.
+ * <p>
+ * The resulting view has no line information ({@link CartView#firstLine} is {@code -1}), so it
+ * supports applicability checks and discount amounts but not writing per-line discounts.
+ */
+public final class CartViewReader {
+
+    public static final String ITEMS = "items";
+    public static final String PRODUCT_ID = "productId";
+    public static final String QUANTITY = "quantity";
+    public static final String PRICE = "price";
+
+    private static final int EXPECTED_PRODUCTS = 16;
+
+    private CartViewReader() {
+    }
+
+    /**
+     * Reads one cart object from {@code parser}, leaving it positioned on the cart's closing token.
+     *
+     * @throws JsonParseException if the input is not a cart with an {@code items} array, or an item
+     *                            has no {@code productId}
+     */
+    public static CartView read(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "Expected a cart object");
+        }
+        CartView.Builder builder = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (ITEMS.equals(field) && value == JsonToken.START_ARRAY) {
+                builder = new CartView.Builder(EXPECTED_PRODUCTS);
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    readItem(parser, builder);
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        if (builder == null) {
+            throw new JsonParseException(parser, "Cart has no items array");
+        }
+        return builder.build();
+    }
+
+    private static void readItem(JsonParser parser, CartView.Builder builder) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "Expected a cart item object");
+        }
+        boolean hasProductId = false;
+        long productId = 0;
+        int quantity = 0;
+        double price = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (value == JsonToken.VALUE_NULL) {
+                continue;
+            }
+            if (!value.isNumeric() && (PRODUCT_ID.equals(field) || QUANTITY.equals(field) || PRICE.equals(field))) {
+                throw new JsonParseException(parser, "Expected a number for cart item " + field);
+            }
+            switch (field) {
+                case PRODUCT_ID -> {
+                    productId = parser.getValueAsLong();
+                    hasProductId = true;
+                }
+                case QUANTITY -> quantity = parser.getValueAsInt();
+                case PRICE -> price = parser.getValueAsDouble();
+                default -> parser.skipChildren();
+            }
+        }
+        if (!hasProductId) {
+            throw new JsonParseException(parser, "Cart item has no productId");
+        }
+        builder.add(productId, quantity, Money.toMinor(price) * quantity);
+    }
+}
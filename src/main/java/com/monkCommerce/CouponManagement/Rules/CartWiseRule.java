@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement.Rules;
+
+import com.monkCommerce.CouponManagement.Entities.Cart;
+
+import java.math.RoundingMode;
+
+public final class CartWiseRule extends CouponRule {
+
+    private final long threshold;
+    private final long discountBasisPoints;
+    private final RoundingMode rounding;
+
+    /**
+     * @param threshold           minimum cart total in minor units (exclusive)
+     * @param discountBasisPoints percentage off the cart total, in basis points
+     */
+    public CartWiseRule(Long couponId, Long version, long expiresAtMillis, long threshold, long discountBasisPoints,
+                        RoundingMode rounding) {
+        super(couponId, version, expiresAtMillis);
+        this.threshold = threshold;
+        this.discountBasisPoints = discountBasisPoints;
+        this.rounding = rounding;
+    }
+
+    public long getThreshold() {
+        return threshold;
+    }
+
+    public long getDiscountBasisPoints() {
+        return discountBasisPoints;
+    }
+
+    public RoundingMode getRounding() {
+        return rounding;
+    }
+
+    @Override
+    public String getType() {
+        return CouponRuleCompiler.CART_WISE;
+    }
+
+    @Override
+    public boolean isApplicable(CartView cart) {
+        return cart.getTotalPrice() > threshold;
+    }
+
+    @Override
+    public long discount(CartView cart) {
+        return cart.getTotalPrice() > threshold ? Money.percentOf(cart.getTotalPrice(), discountBasisPoints, rounding) : 0;
+    }
+
+    @Override
+    public void apply(Cart cart, CartView view) {
+        if (view.getTotalPrice() > threshold) {
+            long discountAmount = discount(view);
+            cart.setTotalDiscount(Money.toMajor(discountAmount));
+            cart.setFinalPrice(Money.toMajor(view.getTotalPrice() - discountAmount));
+        }
+    }
+}
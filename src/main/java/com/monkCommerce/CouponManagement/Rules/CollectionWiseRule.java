@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement.Rules;
+
+import com.monkCommerce.CouponManagement.Entities.Cart;
+import com.monkCommerce.CouponManagement.Entities.CartItem;
+
+import org.roaringbitmap.RoaringBitmap;
+
+import java.math.RoundingMode;
+
+/**
+ * Percentage off every product of a collection. Membership is read from the live {@link ProductSet}
+ * once per evaluation, so collection changes apply without recompiling the coupon and one
+ * evaluation never sees two memberships.
+ */
+public final class CollectionWiseRule extends CouponRule {
+
+    private final long collectionId;
+    private final ProductSet products;
+    private final long discountBasisPoints;
+    private final RoundingMode rounding;
+
+    /**
+     * @param discountBasisPoints percentage off the collection's lines, in basis points
+     */
+    public CollectionWiseRule(Long couponId, Long version, long expiresAtMillis, long collectionId, ProductSet products,
+                              long discountBasisPoints, RoundingMode rounding) {
+        super(couponId, version, expiresAtMillis);
+        this.collectionId = collectionId;
+        this.products = products;
+        this.discountBasisPoints = discountBasisPoints;
+        this.rounding = rounding;
+    }
+
+    public long getCollectionId() {
+        return collectionId;
+    }
+
+    /**
+     * Dense id of the collection, which the catalog indexes this coupon under.
+     */
+    public int getCollectionDenseId() {
+        return products.getDenseId();
+    }
+
+    public long getDiscountBasisPoints() {
+        return discountBasisPoints;
+    }
+
+    @Override
+    public String getType() {
+        return CouponRuleCompiler.COLLECTION_WISE;
+    }
+
+    @Override
+    public boolean isApplicable(CartView cart) {
+        return products.intersects(cart);
+    }
+
+    @Override
+    public long discount(CartView cart) {
+        RoaringBitmap members = products.members();
+        if (!products.intersects(members, cart)) {
+            return 0;
+        }
+        return Money.percentOf(matchingAmount(cart, members), discountBasisPoints, rounding);
+    }
+
+    /**
+     * The discount is rounded once on the amount of all matching products, then split over their
+     * lines so the line discounts add up to exactly what {@link #discount(CartView)} reported.
+     */
+    @Override
+    public void apply(Cart cart, CartView view) {
+        RoaringBitmap members = products.members();
+        long totalDiscount = Money.toMinor(cart.getTotalDiscount());
+        int[] slots = new int[view.size()];
+        int matching = 0;
+        long remainingAmount = 0;
+        for (int slot = 0; slot < view.size(); slot++) {
+            if (products.contains(members, view.productIdAt(slot))) {
+                slots[matching++] = slot;
+                remainingAmount += view.amountAt(slot);
+            }
+        }
+        long remaining = Money.percentOf(remainingAmount, discountBasisPoints, rounding);
+        totalDiscount += remaining;
+        for (int i = 0; i < matching; i++) {
+            for (int line = view.firstLine(slots[i]); line >= 0; line = view.nextLine(line)) {
+                CartItem item = cart.getItems().get(line);
+                long lineAmount = Money.toMinor(item.getPrice()) * item.getQuantity();
+                long lineDiscount = remainingAmount == 0
+                        ? remaining
+                        : Money.mulDiv(remaining, lineAmount, remainingAmount, RoundingMode.HALF_UP);
+                remaining -= lineDiscount;
+                remainingAmount -= lineAmount;
+                item.setTotalDiscount(Money.toMajor(lineDiscount));
+            }
+        }
+        cart.setTotalDiscount(Money.toMajor(totalDiscount));
+        cart.setFinalPrice(Money.toMajor(view.getTotalPrice() - totalDiscount));
+    }
+
+    private long matchingAmount(CartView cart, RoaringBitmap members) {
+        long amount = 0;
+        for (int slot = 0; slot < cart.size(); slot++) {
+            if (products.contains(members, cart.productIdAt(slot))) {
+                amount += cart.amountAt(slot);
+            }
+        }
+        return amount;
+    }
+}
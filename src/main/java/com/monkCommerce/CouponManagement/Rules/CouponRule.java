@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement.Rules;
+
+import com.monkCommerce.CouponManagement.Entities.Cart;
+
+/**
+ * Immutable, pre-parsed form of a {@link com.monkCommerce.CouponManagement.Entities.Coupon}.
+ * Built once per coupon version by {@link CouponRuleCompiler} so evaluation never touches the
+ * JSON {@code details} string.
+ */
+public abstract class CouponRule {
+
+    private final Long couponId;
+    private final Long version;
+    private final long expiresAtMillis;
+
+    protected CouponRule(Long couponId, Long version, long expiresAtMillis) {
+        this.couponId = couponId;
+        this.version = version;
+        this.expiresAtMillis = expiresAtMillis;
+    }
+
+    public Long getCouponId() {
+        return couponId;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    /**
+     * Expiration date as epoch millis, or {@link Long#MAX_VALUE} if the coupon never expires.
+     */
+    public long getExpiresAtMillis() {
+        return expiresAtMillis;
+    }
+
+    public boolean isExpired(long nowMillis) {
+        return expiresAtMillis <= nowMillis;
+    }
+
+    public abstract String getType();
+
+    public abstract boolean isApplicable(CartView cart);
+
+    /**
+     * Discount this coupon would give the cart. Unlike {@link #apply(Cart, CartView)} this does not
+     * modify anything, so it is safe to call concurrently for many coupons on one cart.
+     *
+     * @return the discount in minor units
+     */
+    public abstract long discount(CartView cart);
+
+    /**
+     * Writes the discount into {@code cart} and its items. {@code view} must have been built from
+     * {@code cart.getItems()}, in the same order.
+     */
+    public abstract void apply(Cart cart, CartView view);
+}
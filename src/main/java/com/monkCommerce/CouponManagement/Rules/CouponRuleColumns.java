@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement.Rules;
+
+import com.monkCommerce.CouponManagement.Entities.Coupon;
+import com.monkCommerce.CouponManagement.Entities.CouponProduct;
+import com.monkCommerce.CouponManagement.Entities.CouponType;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes the compiled rule of a coupon into its typed columns and {@code coupon_product} rows.
+ * Registered as an entity listener on {@link Coupon}, so every insert and update keeps them in step
+ * with {@code details}.
+ */
+public class CouponRuleColumns {
+
+    @PrePersist
+    @PreUpdate
+    void beforeWrite(Coupon coupon) {
+        if (!coupon.hasRuleColumnsOf(coupon.getType(), coupon.getDetails())) {
+            write(coupon);
+        }
+    }
+
+    public static void write(Coupon coupon) {
+        CouponRule rule;
+        try {
+            rule = CouponRuleCompiler.compile(coupon);
+        } catch (IOException | IllegalArgumentException e) {
+            rule = null;
+        }
+        write(coupon, rule);
+    }
+
+    /**
+     * Writes the columns of {@code rule}, already compiled from {@code coupon}, or the unsupported
+     * type if it is {@code null}. Writing the coupon afterwards does not compile it again unless its
+     * type or details change.
+     */
+    public static void write(Coupon coupon, CouponRule rule) {
+        Long threshold = null;
+        Long discount = null;
+        Integer repetitionLimit = null;
+        List<CouponProduct> products = new ArrayList<>();
+        CouponType type;
+        if (rule instanceof CartWiseRule cartWise) {
+            type = CouponType.CART_WISE;
+            threshold = cartWise.getThreshold();
+            discount = cartWise.getDiscountBasisPoints();
+        } else if (rule instanceof ProductWiseRule productWise) {
+            type = CouponType.PRODUCT_WISE;
+            discount = productWise.getDiscountBasisPoints();
+            products.add(new CouponProduct(productWise.getProductId(), 1, CouponProduct.Role.TARGET));
+        } else if (rule instanceof BxGyRule bxgy) {
+            type = CouponType.BXGY;
+            repetitionLimit = bxgy.getRepetitionLimit();
+            addAll(products, bxgy.getBuyProductIds(), bxgy.getBuyQuantities(), CouponProduct.Role.BUY);
+            addAll(products, bxgy.getGetProductIds(), bxgy.getGetQuantities(), CouponProduct.Role.GET);
+        } else if (rule instanceof CollectionWiseRule collectionWise) {
+            type = CouponType.COLLECTION_WISE;
+            discount = collectionWise.getDiscountBasisPoints();
+        } else if (rule instanceof DslRule dsl) {
+            type = CouponType.RULE;
+            if (dsl.getIndexProducts() != null) {
+                for (long productId : dsl.getIndexProducts()) {
+                    products.add(new CouponProduct(productId, 1, CouponProduct.Role.TARGET));
+                }
+            }
+        } else {
+            type = CouponType.UNSUPPORTED;
+        }
+
+        coupon.setRuleType(type);
+        coupon.setThresholdMinor(threshold);
+        coupon.setDiscountBasisPoints(discount);
+        coupon.setRepetitionLimit(repetitionLimit);
+        // Only touch the collection when it changed, so an unchanged coupon does not rewrite its rows.
+        if (coupon.getProducts() == null) {
+            coupon.setProducts(products);
+        } else if (!List.copyOf(coupon.getProducts()).equals(products)) {
+            coupon.getProducts().clear();
+            coupon.getProducts().addAll(products);
+        }
+        coupon.setRuleColumnsSource(coupon.getType(), coupon.getDetails());
+    }
+
+    private static void addAll(List<CouponProduct> products, long[] productIds, int[] quantities, CouponProduct.Role role) {
+        for (int i = 0; i < productIds.length; i++) {
+            products.add(new CouponProduct(productIds[i], quantities[i], role));
+        }
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement.Rules;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.monkCommerce.CouponManagement.Entities.Coupon;
+
+import java.io.IOException;
+import java.math.RoundingMode;
+import java.time.ZoneId;
+
+/**
+ * Turns the JSON {@code details} of a coupon into a typed {@link CouponRule}.
+ */
+public final class CouponRuleCompiler {
+
+    public static final String CART_WISE = "cart-wise";
+    public static final String PRODUCT_WISE = "product-wise";
+    public static final String BXGY = "bxgy";
+    public static final String RULE = "rule";
+    public static final String COLLECTION_WISE = "collection-wise";
+
+    /**
+     * Rounding applied when a coupon's {@code details} do not name one. Cart-wise discounts round
+     * half-even so large volumes of orders are not biased either way; product-wise discounts round
+     * half-up like a shelf price; bxgy only rounds when averaging mixed unit prices and rounds down
+     * so it never gives away more than the free items are worth. Rule and collection-wise coupons
+     * round half-up.
+     */
+    public static final RoundingMode CART_WISE_ROUNDING = RoundingMode.HALF_EVEN;
+    public static final RoundingMode PRODUCT_WISE_ROUNDING = RoundingMode.HALF_UP;
+    public static final RoundingMode BXGY_ROUNDING = RoundingMode.DOWN;
+    public static final RoundingMode RULE_ROUNDING = RoundingMode.HALF_UP;
+    public static final RoundingMode COLLECTION_WISE_ROUNDING = RoundingMode.HALF_UP;
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private CouponRuleCompiler() {
+    }
+
+    /**
+     * Compiles against an empty set of collections; enough to validate a coupon or read its columns.
+     *
+     * @throws IOException              if {@code details} is not valid JSON
+     * @throws IllegalArgumentException if a required field is missing or not numeric
+     */
+    public static CouponRule compile(Coupon coupon) throws IOException {
+        return compile(coupon, new ProductSets());
+    }
+
+    /**
+     * @param productSets collections that collection-wise coupons resolve their products against
+     * @throws IOException              if {@code details} is not valid JSON
+     * @throws IllegalArgumentException if a required field is missing or not numeric
+     */
+    public static CouponRule compile(Coupon coupon, ProductSets productSets) throws IOException {
+        if (coupon.getType() == null) {
+            return new UnsupportedRule(coupon.getId(), coupon.getVersion(), expiresAtMillis(coupon), null);
+        }
+        switch (coupon.getType()) {
+            case CART_WISE: {
+                JsonNode details = readDetails(coupon);
+                return new CartWiseRule(coupon.getId(), coupon.getVersion(), expiresAtMillis(coupon),
+                        Money.toMinor(number(details, "threshold").doubleValue()),
+                        Money.percentToBasisPoints(number(details, "discount").doubleValue()),
+                        rounding(details, CART_WISE_ROUNDING));
+            }
+            case PRODUCT_WISE: {
+                JsonNode details = readDetails(coupon);
+                return new ProductWiseRule(coupon.getId(), coupon.getVersion(), expiresAtMillis(coupon),
+                        number(details, "product_id").longValue(),
+                        Money.percentToBasisPoints(number(details, "discount").doubleValue()),
+                        rounding(details, PRODUCT_WISE_ROUNDING));
+            }
+            case BXGY: {
+                JsonNode details = readDetails(coupon);
+                JsonNode buyProducts = array(details, "buy_products");
+                JsonNode getProducts = array(details, "get_products");
+                long[] buyProductIds = new long[buyProducts.size()];
+                int[] buyQuantities = new int[buyProducts.size()];
+                for (int i = 0; i < buyProducts.size(); i++) {
+                    buyProductIds[i] = number(buyProducts.get(i), "product_id").longValue();
+                    buyQuantities[i] = number(buyProducts.get(i), "quantity").intValue();
+                }
+                long[] getProductIds = new long[getProducts.size()];
+                int[] getQuantities = new int[getProducts.size()];
+                for (int i = 0; i < getProducts.size(); i++) {
+                    getProductIds[i] = number(getProducts.get(i), "product_id").longValue();
+                    getQuantities[i] = number(getProducts.get(i), "quantity").intValue();
+                }
+                return new BxGyRule(coupon.getId(), coupon.getVersion(), expiresAtMillis(coupon),
+                        buyProductIds, buyQuantities, getProductIds, getQuantities,
+                        number(details, "repetition_limit").intValue(),
+                        rounding(details, BXGY_ROUNDING));
+            }
+            case COLLECTION_WISE: {
+                JsonNode details = readDetails(coupon);
+                long collectionId = number(details, "collection_id").longValue();
+                return new CollectionWiseRule(coupon.getId(), coupon.getVersion(), expiresAtMillis(coupon),
+                        collectionId, productSets.get(collectionId),
+                        Money.percentToBasisPoints(number(details, "discount").doubleValue()),
+                        rounding(details, COLLECTION_WISE_ROUNDING));
+            }
+            case RULE:
+                return DslCompiler.compile(coupon.getId(), coupon.getVersion(), expiresAtMillis(coupon), readDetails(coupon));
+            default:
+                return new UnsupportedRule(coupon.getId(), coupon.getVersion(), expiresAtMillis(coupon), coupon.getType());
+        }
+    }
+
+    /**
+     * Converts the expiration date once, in the same zone {@code LocalDateTime.now()} uses, so the
+     * hot path compares primitives. A coupon without an expiration date never expires.
+     */
+    public static long expiresAtMillis(Coupon coupon) {
+        if (coupon.getExpirationDate() == null) {
+            return Long.MAX_VALUE;
+        }
+        return coupon.getExpirationDate().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static JsonNode readDetails(Coupon coupon) throws IOException {
+        if (coupon.getDetails() == null) {
+            throw new IllegalArgumentException("Coupon details are missing");
+        }
+        return mapper.readTree(coupon.getDetails());
+    }
+
+    static Number number(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        if (value == null || !value.isNumber()) {
+            throw new IllegalArgumentException("Missing numeric field: " + field);
+        }
+        return value.numberValue();
+    }
+
+    /**
+     * Optional {@code "rounding"} field holding a {@link RoundingMode} name such as {@code "HALF_UP"}.
+     */
+    static RoundingMode rounding(JsonNode details, RoundingMode defaultRounding) {
+        JsonNode value = details.get("rounding");
+        if (value == null || value.isNull()) {
+            return defaultRounding;
+        }
+        for (RoundingMode rounding : RoundingMode.values()) {
+            if (rounding != RoundingMode.UNNECESSARY && rounding.name().equals(value.asText())) {
+                return rounding;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported rounding: " + value.asText());
+    }
+
+    static JsonNode array(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        if (value == null || !value.isArray()) {
+            throw new IllegalArgumentException("Missing array field: " + field);
+        }
+        return value;
+    }
+}
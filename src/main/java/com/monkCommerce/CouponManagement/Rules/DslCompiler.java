@@ -0,0 +1,258 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement.Rules;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+/**
+ * Compiles the {@code details} of a {@code rule} coupon into a {@link DslRule}:
+ * <pre>
+ * {"when": {"all": [{"min_quantity": {"product_id": 7, "quantity": 3}}, {"min_total": 200}]},
+ *  "then": {"percent_off": 15, "products": [7]},
+ *  "rounding": "HALF_UP"}
+ * </pre>
+ * Conditions ({@code when}, optional): {@code min_total} (cart total reaches the amount),
+ * {@code min_quantity} ({@code product_id} and {@code quantity}), {@code min_items} (units across
+ * the cart), and {@code all}, {@code any} and {@code not} to combine them.
+ * <p>
+ * Discounts ({@code then}): {@code percent_off} or {@code amount_off}, off the cart or, with
+ * {@code products}, off those products ({@code amount_off} is then per unit); or {@code tiers}, a
+ * list of {@code {"min_total": .., "percent_off": ..}} where the highest tier reached applies.
+ * Amounts are in major units, as elsewhere in {@code details}. A discount never exceeds what it
+ * applies to.
+ */
+final class DslCompiler {
+
+    private DslCompiler() {
+    }
+
+    static DslRule compile(Long couponId, Long version, long expiresAtMillis, JsonNode details) {
+        RoundingMode rounding = CouponRuleCompiler.rounding(details, CouponRuleCompiler.RULE_ROUNDING);
+        JsonNode then = details.get("then");
+        if (then == null || !then.isObject()) {
+            throw new IllegalArgumentException("Missing object field: then");
+        }
+        DslRule.Discount discount = discount(then, rounding);
+        Compiled when = details.hasNonNull("when") ? condition(details.get("when")) : null;
+        if (discount instanceof DslRule.ProductDiscount productDiscount) {
+            // A product discount is worth nothing unless one of its products is in the cart.
+            Compiled present = new Compiled(anyOf(productDiscount.products()), productDiscount.products());
+            when = when == null ? present : all(new Compiled[]{when, present});
+        } else if (when == null) {
+            when = new Compiled(cart -> true, null);
+        }
+        return new DslRule(couponId, version, expiresAtMillis, when.condition, discount, when.requires);
+    }
+
+    /**
+     * A condition and the products at least one of which a cart must contain for it to hold, or
+     * {@code null} if it can hold without any particular product.
+     */
+    private record Compiled(DslRule.Condition condition, long[] requires) {
+    }
+
+    private static Compiled condition(JsonNode node) {
+        if (node == null || !node.isObject() || node.size() != 1) {
+            throw new IllegalArgumentException("A condition is an object with exactly one of: "
+                    + "min_total, min_quantity, min_items, all, any, not");
+        }
+        Map.Entry<String, JsonNode> field = node.fields().next();
+        JsonNode value = field.getValue();
+        switch (field.getKey()) {
+            case "min_total": {
+                long minTotal = Money.toMinor(nonNegative(value, "min_total"));
+                return new Compiled(cart -> cart.getTotalPrice() >= minTotal, null);
+            }
+            case "min_quantity": {
+                long productId = CouponRuleCompiler.number(value, "product_id").longValue();
+                int quantity = CouponRuleCompiler.number(value, "quantity").intValue();
+                return new Compiled(cart -> cart.quantityOf(productId) >= quantity,
+                        quantity > 0 ? new long[]{productId} : null);
+            }
+            case "min_items": {
+                long minItems = (long) nonNegative(value, "min_items");
+                return new Compiled(cart -> {
+                    long items = 0;
+                    for (int slot = 0; slot < cart.size() && items < minItems; slot++) {
+                        items += cart.quantityAt(slot);
+                    }
+                    return items >= minItems;
+                }, null);
+            }
+            case "all":
+                return all(conditions(value, "all"));
+            case "any":
+                return any(conditions(value, "any"));
+            case "not": {
+                DslRule.Condition negated = condition(value).condition;
+                return new Compiled(cart -> !negated.test(cart), null);
+            }
+            default:
+                throw new IllegalArgumentException("Unknown condition: " + field.getKey());
+        }
+    }
+
+    private static Compiled[] conditions(JsonNode value, String field) {
+        if (!value.isArray() || value.isEmpty()) {
+            throw new IllegalArgumentException("Condition " + field + " needs a non-empty array");
+        }
+        Compiled[] conditions = new Compiled[value.size()];
+        for (int i = 0; i < conditions.length; i++) {
+            conditions[i] = condition(value.get(i));
+        }
+        return conditions;
+    }
+
+    // Any one child's required products will do, so keep the narrowest set.
+    private static Compiled all(Compiled[] parts) {
+        long[] requires = Arrays.stream(parts)
+                .map(Compiled::requires)
+                .filter(products -> products != null)
+                .min(Comparator.comparingInt(products -> products.length))
+                .orElse(null);
+        if (parts.length == 1) {
+            return new Compiled(parts[0].condition, requires);
+        }
+        if (parts.length == 2) {
+            DslRule.Condition first = parts[0].condition;
+            DslRule.Condition second = parts[1].condition;
+            return new Compiled(cart -> first.test(cart) && second.test(cart), requires);
+        }
+        DslRule.Condition[] conditions = Arrays.stream(parts).map(Compiled::condition).toArray(DslRule.Condition[]::new);
+        return new Compiled(cart -> {
+            for (DslRule.Condition condition : conditions) {
+                if (!condition.test(cart)) {
+                    return false;
+                }
+            }
+            return true;
+        }, requires);
+    }
+
+    // Needs one child to hold, so only narrows the candidates if every child does.
+    private static Compiled any(Compiled[] parts) {
+        long[] requires = Arrays.stream(parts).allMatch(part -> part.requires != null)
+                ? Arrays.stream(parts).flatMapToLong(part -> LongStream.of(part.requires)).distinct().toArray()
+                : null;
+        if (parts.length == 1) {
+            return new Compiled(parts[0].condition, requires);
+        }
+        if (parts.length == 2) {
+            DslRule.Condition first = parts[0].condition;
+            DslRule.Condition second = parts[1].condition;
+            return new Compiled(cart -> first.test(cart) || second.test(cart), requires);
+        }
+        DslRule.Condition[] conditions = Arrays.stream(parts).map(Compiled::condition).toArray(DslRule.Condition[]::new);
+        return new Compiled(cart -> {
+            for (DslRule.Condition condition : conditions) {
+                if (condition.test(cart)) {
+                    return true;
+                }
+            }
+            return false;
+        }, requires);
+    }
+
+    private static DslRule.Condition anyOf(long[] products) {
+        if (products.length == 1) {
+            long productId = products[0];
+            return cart -> cart.indexOf(productId) >= 0;
+        }
+        return cart -> {
+            for (long productId : products) {
+                if (cart.indexOf(productId) >= 0) {
+                    return true;
+                }
+            }
+            return false;
+        };
+    }
+
+    private static DslRule.Discount discount(JsonNode then, RoundingMode rounding) {
+        if (then.has("tiers")) {
+            JsonNode tiers = CouponRuleCompiler.array(then, "tiers");
+            if (tiers.isEmpty()) {
+                throw new IllegalArgumentException("Discount tiers must not be empty");
+            }
+            Integer[] order = IntStream.range(0, tiers.size()).boxed().toArray(Integer[]::new);
+            long[] minTotals = new long[tiers.size()];
+            long[] basisPoints = new long[tiers.size()];
+            for (int i = 0; i < tiers.size(); i++) {
+                minTotals[i] = Money.toMinor(nonNegative(tiers.get(i), "min_total"));
+                basisPoints[i] = percent(tiers.get(i));
+            }
+            Arrays.sort(order, Comparator.comparingLong((Integer i) -> minTotals[i]).reversed());
+            return new DslRule.TieredPercentOffCart(
+                    Arrays.stream(order).mapToLong(i -> minTotals[i]).toArray(),
+                    Arrays.stream(order).mapToLong(i -> basisPoints[i]).toArray(),
+                    rounding);
+        }
+        long[] products = then.has("products") ? products(CouponRuleCompiler.array(then, "products")) : null;
+        if (then.has("percent_off")) {
+            long basisPoints = percent(then);
+            return products == null
+                    ? new DslRule.PercentOffCart(basisPoints, rounding)
+                    : new DslRule.PercentOffProducts(products, basisPoints, rounding);
+        }
+        if (then.has("amount_off")) {
+            long amount = Money.toMinor(nonNegative(then, "amount_off"));
+            return products == null
+                    ? new DslRule.AmountOffCart(amount)
+                    : new DslRule.AmountOffProducts(products, amount);
+        }
+        throw new IllegalArgumentException("A discount needs one of: percent_off, amount_off, tiers");
+    }
+
+    private static long[] products(JsonNode array) {
+        long[] products = new long[array.size()];
+        for (int i = 0; i < products.length; i++) {
+            if (!array.get(i).isIntegralNumber()) {
+                throw new IllegalArgumentException("Discount products must be product ids");
+            }
+            products[i] = array.get(i).longValue();
+        }
+        products = LongStream.of(products).distinct().toArray();
+        if (products.length == 0) {
+            throw new IllegalArgumentException("Discount products must not be empty");
+        }
+        return products;
+    }
+
+    private static long percent(JsonNode node) {
+        double percent = nonNegative(node, "percent_off");
+        if (percent > 100) {
+            throw new IllegalArgumentException("percent_off must be at most 100");
+        }
+        return Money.percentToBasisPoints(percent);
+    }
+
+    // Accepts either {"field": n} or a bare number when the caller already unwrapped it.
+    private static double nonNegative(JsonNode node, String field) {
+        double value = node.isNumber() ? node.doubleValue() : CouponRuleCompiler.number(node, field).doubleValue();
+        if (value < 0) {
+            throw new IllegalArgumentException(field + " must not be negative");
+        }
+        return value;
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement.Rules;
+
+import com.monkCommerce.CouponManagement.Entities.Cart;
+import com.monkCommerce.CouponManagement.Entities.CartItem;
+
+import java.math.RoundingMode;
+
+/**
+ * Coupon of type {@code rule}: a condition and a discount written in the small rule language read
+ * by {@link DslCompiler}. Both are compiled into trees of single-purpose node objects, so
+ * evaluation is a walk over final fields with no map lookups, casts or type switches.
+ */
+public final class DslRule extends CouponRule {
+
+    private final Condition condition;
+    private final Discount discount;
+    // The same discount when it is product-scoped, otherwise null; resolved once so apply() needs no cast.
+    private final ProductDiscount productDiscount;
+    private final long[] indexProducts;
+
+    /**
+     * @param indexProducts products at least one of which any applicable cart contains, or
+     *                      {@code null} if the rule can apply to any cart
+     */
+    DslRule(Long couponId, Long version, long expiresAtMillis, Condition condition, Discount discount,
+            long[] indexProducts) {
+        super(couponId, version, expiresAtMillis);
+        this.condition = condition;
+        this.discount = discount;
+        this.productDiscount = discount instanceof ProductDiscount product ? product : null;
+        this.indexProducts = indexProducts;
+    }
+
+    /**
+     * Products to index this coupon under; {@code null} means it is a candidate for every cart.
+     */
+    public long[] getIndexProducts() {
+        return indexProducts;
+    }
+
+    @Override
+    public String getType() {
+        return CouponRuleCompiler.RULE;
+    }
+
+    @Override
+    public boolean isApplicable(CartView cart) {
+        return condition.test(cart);
+    }
+
+    @Override
+    public long discount(CartView cart) {
+        return condition.test(cart) ? discount.amount(cart) : 0;
+    }
+
+    /**
+     * Product-scoped discounts are written to the lines of each product, split as
+     * {@link ProductWiseRule} does; cart-level discounts only change the cart totals.
+     */
+    @Override
+    public void apply(Cart cart, CartView view) {
+        long totalDiscount = Money.toMinor(cart.getTotalDiscount());
+        if (condition.test(view)) {
+            if (productDiscount == null) {
+                totalDiscount += discount.amount(view);
+            } else {
+                for (long productId : productDiscount.products()) {
+                    int slot = view.indexOf(productId);
+                    if (slot >= 0) {
+                        long slotDiscount = productDiscount.slotAmount(view, slot);
+                        distribute(cart, view, slot, slotDiscount);
+                        totalDiscount += slotDiscount;
+                    }
+                }
+            }
+        }
+        cart.setTotalDiscount(Money.toMajor(totalDiscount));
+        cart.setFinalPrice(Money.toMajor(view.getTotalPrice() - totalDiscount));
+    }
+
+    private static void distribute(Cart cart, CartView view, int slot, long slotDiscount) {
+        long remaining = slotDiscount;
+        long remainingAmount = view.amountAt(slot);
+        for (int line = view.firstLine(slot); line >= 0; line = view.nextLine(line)) {
+            CartItem item = cart.getItems().get(line);
+            long lineAmount = Money.toMinor(item.getPrice()) * item.getQuantity();
+            long lineDiscount = view.nextLine(line) < 0 || remainingAmount == 0
+                    ? remaining
+                    : Money.mulDiv(remaining, lineAmount, remainingAmount, RoundingMode.HALF_UP);
+            remaining -= lineDiscount;
+            remainingAmount -= lineAmount;
+            item.setTotalDiscount(Money.toMajor(lineDiscount));
+        }
+    }
+
+    @FunctionalInterface
+    interface Condition {
+        boolean test(CartView cart);
+    }
+
+    /**
+     * Amount a rule takes off, in minor units. A discount applies to the whole cart unless it is a
+     * {@link ProductDiscount}.
+     */
+    abstract static class Discount {
+
+        abstract long amount(CartView cart);
+    }
+
+    static final class PercentOffCart extends Discount {
+        private final long basisPoints;
+        private final RoundingMode rounding;
+
+        PercentOffCart(long basisPoints, RoundingMode rounding) {
+            this.basisPoints = basisPoints;
+            this.rounding = rounding;
+        }
+
+        @Override
+        long amount(CartView cart) {
+            return Money.percentOf(cart.getTotalPrice(), basisPoints, rounding);
+        }
+    }
+
+    /** Fixed amount off the cart, never more than the cart is worth. */
+    static final class AmountOffCart extends Discount {
+        private final long amount;
+
+        AmountOffCart(long amount) {
+            this.amount = amount;
+        }
+
+        @Override
+        long amount(CartView cart) {
+            return Math.min(amount, cart.getTotalPrice());
+        }
+    }
+
+    /** Percentage of the cart total, at the rate of the highest tier whose minimum the cart reaches. */
+    static final class TieredPercentOffCart extends Discount {
+        // Sorted by minimum total, highest first.
+        private final long[] minTotals;
+        private final long[] basisPoints;
+        private final RoundingMode rounding;
+
+        TieredPercentOffCart(long[] minTotals, long[] basisPoints, RoundingMode rounding) {
+            this.minTotals = minTotals;
+            this.basisPoints = basisPoints;
+            this.rounding = rounding;
+        }
+
+        @Override
+        long amount(CartView cart) {
+            long total = cart.getTotalPrice();
+            for (int i = 0; i < minTotals.length; i++) {
+                if (total >= minTotals[i]) {
+                    return Money.percentOf(total, basisPoints[i], rounding);
+                }
+            }
+            return 0;
+        }
+    }
+
+    /**
+     * Discount scoped to {@link #products()}: the sum of {@link #slotAmount} over those in the cart.
+     */
+    abstract static class ProductDiscount extends Discount {
+        private final long[] products;
+
+        ProductDiscount(long[] products) {
+            this.products = products;
+        }
+
+        /**
+         * Products the discount is attributed to.
+         */
+        final long[] products() {
+            return products;
+        }
+
+        abstract long slotAmount(CartView cart, int slot);
+
+        @Override
+        final long amount(CartView cart) {
+            long amount = 0;
+            for (long productId : products) {
+                int slot = cart.indexOf(productId);
+                if (slot >= 0) {
+                    amount += slotAmount(cart, slot);
+                }
+            }
+            return amount;
+        }
+    }
+
+    static final class PercentOffProducts extends ProductDiscount {
+        private final long basisPoints;
+        private final RoundingMode rounding;
+
+        PercentOffProducts(long[] products, long basisPoints, RoundingMode rounding) {
+            super(products);
+            this.basisPoints = basisPoints;
+            this.rounding = rounding;
+        }
+
+        @Override
+        long slotAmount(CartView cart, int slot) {
+            return Money.percentOf(cart.amountAt(slot), basisPoints, rounding);
+        }
+    }
+
+    /** Fixed amount off every unit of the products, never more than a product's amount. */
+    static final class AmountOffProducts extends ProductDiscount {
+        private final long amountPerUnit;
+
+        AmountOffProducts(long[] products, long amountPerUnit) {
+            super(products);
+            this.amountPerUnit = amountPerUnit;
+        }
+
+        @Override
+        long slotAmount(CartView cart, int slot) {
+            return Math.min(amountPerUnit * cart.quantityAt(slot), cart.amountAt(slot));
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement.Rules;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Fixed-point money arithmetic used by coupon evaluation. Amounts are {@code long} counts of minor
+ * units (cents) and percentages are {@code long} basis points, so sums are exact and nothing on
+ * the evaluation path allocates. Conversion to and from {@code double} only happens at the API
+ * boundary, where {@link com.monkCommerce.CouponManagement.Entities.Cart} keeps its JSON shape.
+ */
+public final class Money {
+
+    public static final long MINOR_UNITS = 100;
+    public static final long BASIS_POINTS = 10_000;
+
+    private Money() {
+    }
+
+    public static long toMinor(double amount) {
+        return Math.round(amount * MINOR_UNITS);
+    }
+
+    public static double toMajor(long minor) {
+        return (double) minor / MINOR_UNITS;
+    }
+
+    /**
+     * Converts a percentage such as {@code 12.5} to basis points ({@code 1250}).
+     */
+    public static long percentToBasisPoints(double percent) {
+        return Math.round(percent * 100);
+    }
+
+    public static long percentOf(long minor, long basisPoints, RoundingMode rounding) {
+        return mulDiv(minor, basisPoints, BASIS_POINTS, rounding);
+    }
+
+    /**
+     * {@code a * b / c} rounded with {@code rounding}. Stays in {@code long} arithmetic unless the
+     * product overflows, which real cart amounts never do.
+     */
+    public static long mulDiv(long a, long b, long c, RoundingMode rounding) {
+        long high = Math.multiplyHigh(a, b);
+        long product = a * b;
+        if (high != (product >> 63)) {
+            return BigDecimal.valueOf(a).multiply(BigDecimal.valueOf(b))
+                    .divide(BigDecimal.valueOf(c), 0, rounding).longValueExact();
+        }
+        return divide(product, c, rounding);
+    }
+
+    private static long divide(long dividend, long divisor, RoundingMode rounding) {
+        long quotient = dividend / divisor;
+        long remainder = dividend % divisor;
+        if (remainder == 0) {
+            return quotient;
+        }
+        // Sign of the exact result; the truncated quotient is always rounded towards zero.
+        int signum = (dividend ^ divisor) < 0 ? -1 : 1;
+        boolean increment;
+        switch (rounding) {
+            case DOWN:
+                increment = false;
+                break;
+            case UP:
+                increment = true;
+                break;
+            case FLOOR:
+                increment = signum < 0;
+                break;
+            case CEILING:
+                increment = signum > 0;
+                break;
+            case HALF_UP:
+            case HALF_DOWN:
+            case HALF_EVEN: {
+                long twice = Math.abs(remainder) * 2;
+                long absDivisor = Math.abs(divisor);
+                if (twice != absDivisor) {
+                    increment = twice > absDivisor;
+                } else if (rounding == RoundingMode.HALF_UP) {
+                    increment = true;
+                } else if (rounding == RoundingMode.HALF_DOWN) {
+                    increment = false;
+                } else {
+                    increment = (quotient & 1) != 0;
+                }
+                break;
+            }
+            default:
+                throw new ArithmeticException("Rounding necessary");
+        }
+        return increment ? quotient + signum : quotient;
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement.Rules;
+
+import org.roaringbitmap.RoaringBitmap;
+
+/**
+ * Current members of one product collection. Changes go through {@link ProductSets}, which
+ * publishes a new bitmap on every write; the published bitmap is never modified, so a caller that
+ * needs one membership across several checks reads {@link #members()} once and passes it on.
+ */
+public final class ProductSet {
+
+    static final int PROBE_LIMIT = 8;
+
+    private final ProductSets owner;
+    private final int denseId;
+    private volatile RoaringBitmap members = new RoaringBitmap();
+
+    ProductSet(ProductSets owner, int denseId) {
+        this.owner = owner;
+        this.denseId = denseId;
+    }
+
+    /**
+     * Dense id of the collection, as listed by {@link ProductSets#collectionsOf}.
+     */
+    public int getDenseId() {
+        return denseId;
+    }
+
+    public int size() {
+        return members.getCardinality();
+    }
+
+    public boolean contains(long productId) {
+        return contains(members, productId);
+    }
+
+    boolean contains(RoaringBitmap members, long productId) {
+        int denseId = owner.denseId(productId);
+        return denseId >= 0 && members.contains(denseId);
+    }
+
+    /**
+     * Whether the cart holds at least one member, by intersecting with the cart's product bitmap.
+     * Intersection merges matching containers, which costs up to a few thousand comparisons each,
+     * so carts with few products probe the members one product at a time instead.
+     */
+    public boolean intersects(CartView cart) {
+        return intersects(members, cart);
+    }
+
+    boolean intersects(RoaringBitmap members, CartView cart) {
+        ProductSets.CartProducts products = cart.products(owner);
+        if (products.bitmap() != null) {
+            return RoaringBitmap.intersects(members, products.bitmap());
+        }
+        for (int denseId : products.sorted()) {
+            if (members.contains(denseId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    RoaringBitmap members() {
+        return members;
+    }
+
+    void publish(RoaringBitmap members) {
+        this.members = members;
+    }
+}
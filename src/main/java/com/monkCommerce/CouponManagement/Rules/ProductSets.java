@@ -0,0 +1,302 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement.Rules;
+
+import org.roaringbitmap.RoaringBitmap;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Product collections that collection-wise coupons target, each held as a compressed bitmap over
+ * dense product ids. Product ids are mapped to consecutive ints the first time they join any
+ * collection, so bitmaps stay compact however sparse the real ids are, and a cart's eligibility
+ * is an intersection with the dense ids of its own products ({@link ProductSet#intersects}).
+ * <p>
+ * Collections get dense ids too, and each product lists the collections it belongs to, so the
+ * collections a cart touches ({@link #collectionsOf}) cost one lookup per cart product, however
+ * many collections and coupons there are.
+ * <p>
+ * Bitmaps are not run-optimized: intersecting a run container scans its runs, while array and
+ * bitmap containers answer in time independent of the collection's size.
+ * <p>
+ * Reads are lock-free. Writes are serialized and copy the affected bitmap before changing it, so
+ * a rule always sees a whole membership, either before or after a change. The per-product lists
+ * are copied and published just before the bitmap, so for a moment they may already list a change
+ * the bitmap does not show yet; they only pick candidates, which the bitmap then decides. Dense ids
+ * are never reclaimed; a product that leaves every collection keeps its id.
+ */
+public final class ProductSets {
+
+    private static final int[] NO_COLLECTIONS = new int[0];
+
+    private final Map<Long, ProductSet> sets = new ConcurrentHashMap<>();
+    private final AtomicInteger nextCollectionId = new AtomicInteger();
+    private volatile DenseIds denseIds = new DenseIds(1024);
+    // Sorted dense collection ids of each dense product id; null for none.
+    private volatile int[][] collectionsByProduct = new int[1024][];
+
+    /**
+     * The set of {@code collectionId}, created empty if the collection has no members yet. The
+     * same instance is returned for the life of this object, so compiled rules can hold on to it.
+     */
+    public ProductSet get(long collectionId) {
+        return sets.computeIfAbsent(collectionId, id -> new ProductSet(this, nextCollectionId.getAndIncrement()));
+    }
+
+    public synchronized void add(long collectionId, Collection<Long> productIds) {
+        ProductSet set = get(collectionId);
+        RoaringBitmap members = set.members().clone();
+        for (long productId : productIds) {
+            members.add(assign(productId));
+        }
+        publish(set, members);
+    }
+
+    public synchronized void remove(long collectionId, Collection<Long> productIds) {
+        ProductSet set = get(collectionId);
+        RoaringBitmap members = set.members().clone();
+        for (long productId : productIds) {
+            int denseId = denseId(productId);
+            if (denseId >= 0) {
+                members.remove(denseId);
+            }
+        }
+        publish(set, members);
+    }
+
+    /**
+     * Replaces the whole membership of {@code collectionId}, e.g. after reloading it from the database.
+     */
+    public synchronized void replace(long collectionId, Collection<Long> productIds) {
+        RoaringBitmap members = new RoaringBitmap();
+        for (long productId : productIds) {
+            members.add(assign(productId));
+        }
+        publish(get(collectionId), members);
+    }
+
+    /**
+     * @return the dense id of {@code productId}, or {@code -1} if it never joined a collection
+     */
+    public int denseId(long productId) {
+        return denseIds.get(productId);
+    }
+
+    /**
+     * Dense ids of the collections that hold at least one of the cart's products, sorted.
+     */
+    public int[] collectionsOf(CartView cart) {
+        return cart.products(this).collections();
+    }
+
+    /**
+     * Dense ids of the cart's products that belong to some collection, sorted, and of the
+     * collections they belong to. Carts with more than {@link ProductSet#PROBE_LIMIT} such products
+     * get a bitmap to intersect with instead of the sorted ids.
+     */
+    CartProducts productsOf(CartView cart) {
+        int[][] collectionsByProduct = this.collectionsByProduct;
+        DenseIds ids = denseIds;
+        int[] bits = new int[cart.size()];
+        int count = 0;
+        for (int slot = 0; slot < cart.size(); slot++) {
+            int denseId = ids.get(cart.productIdAt(slot));
+            if (denseId >= 0) {
+                bits[count++] = denseId;
+            }
+        }
+        Arrays.sort(bits, 0, count);
+        int[] collections = collectionsOf(bits, count, collectionsByProduct);
+        if (count <= ProductSet.PROBE_LIMIT) {
+            return new CartProducts(Arrays.copyOf(bits, count), null, collections);
+        }
+        RoaringBitmap bitmap = new RoaringBitmap();
+        for (int i = 0; i < count; i++) {
+            bitmap.add(bits[i]);
+        }
+        return new CartProducts(null, bitmap, collections);
+    }
+
+    private static int[] collectionsOf(int[] denseIds, int count, int[][] collectionsByProduct) {
+        int total = 0;
+        for (int i = 0; i < count; i++) {
+            // A product given its dense id after the lists were read has no collections in them yet.
+            if (denseIds[i] < collectionsByProduct.length && collectionsByProduct[denseIds[i]] != null) {
+                total += collectionsByProduct[denseIds[i]].length;
+            }
+        }
+        if (total == 0) {
+            return NO_COLLECTIONS;
+        }
+        int[] collections = new int[total];
+        int size = 0;
+        for (int i = 0; i < count; i++) {
+            if (denseIds[i] < collectionsByProduct.length && collectionsByProduct[denseIds[i]] != null) {
+                for (int collection : collectionsByProduct[denseIds[i]]) {
+                    collections[size++] = collection;
+                }
+            }
+        }
+        Arrays.sort(collections);
+        int distinct = 0;
+        for (int i = 0; i < size; i++) {
+            if (i == 0 || collections[i] != collections[i - 1]) {
+                collections[distinct++] = collections[i];
+            }
+        }
+        return distinct == size ? collections : Arrays.copyOf(collections, distinct);
+    }
+
+    // Only called while holding the lock.
+    private void publish(ProductSet set, RoaringBitmap members) {
+        RoaringBitmap joined = RoaringBitmap.andNot(members, set.members());
+        RoaringBitmap left = RoaringBitmap.andNot(set.members(), members);
+        if (!joined.isEmpty() || !left.isEmpty()) {
+            int[][] lists = Arrays.copyOf(collectionsByProduct, Math.max(collectionsByProduct.length, denseIds.capacity()));
+            int collection = set.getDenseId();
+            joined.forEach((int product) -> lists[product] = with(lists[product], collection));
+            left.forEach((int product) -> lists[product] = without(lists[product], collection));
+            collectionsByProduct = lists;
+        }
+        set.publish(members);
+    }
+
+    private static int[] with(int[] collections, int collection) {
+        if (collections == null) {
+            return new int[]{collection};
+        }
+        int index = Arrays.binarySearch(collections, collection);
+        if (index >= 0) {
+            return collections;
+        }
+        int insert = -index - 1;
+        int[] next = new int[collections.length + 1];
+        System.arraycopy(collections, 0, next, 0, insert);
+        next[insert] = collection;
+        System.arraycopy(collections, insert, next, insert + 1, collections.length - insert);
+        return next;
+    }
+
+    private static int[] without(int[] collections, int collection) {
+        int index = collections == null ? -1 : Arrays.binarySearch(collections, collection);
+        if (index < 0) {
+            return collections;
+        }
+        if (collections.length == 1) {
+            return null;
+        }
+        int[] next = new int[collections.length - 1];
+        System.arraycopy(collections, 0, next, 0, index);
+        System.arraycopy(collections, index + 1, next, index, next.length - index);
+        return next;
+    }
+
+    // Only called while holding the lock.
+    private int assign(long productId) {
+        DenseIds ids = denseIds;
+        int denseId = ids.get(productId);
+        if (denseId >= 0) {
+            return denseId;
+        }
+        if (ids.size * 2 >= ids.capacity()) {
+            ids = ids.grow();
+            denseIds = ids;
+        }
+        denseId = ids.size;
+        ids.put(productId, denseId);
+        return denseId;
+    }
+
+    /**
+     * The dense ids of a cart's products, where exactly one of {@code sorted} and {@code bitmap}
+     * is set, and of the collections they belong to.
+     */
+    record CartProducts(int[] sorted, RoaringBitmap bitmap, int[] collections) {
+    }
+
+    /**
+     * Open-addressing {@code long -> int} table, written by one thread at a time and read
+     * concurrently without locks. Each key sits next to its id in one array, so a lookup touches a
+     * single cache line. The id is stored (plus one, so zero means empty) with release semantics
+     * after its key, so a reader that sees the id also sees the key. Entries are never removed; a
+     * full table is copied into a larger one that is then published.
+     */
+    private static final class DenseIds {
+
+        private static final VarHandle ENTRIES = MethodHandles.arrayElementVarHandle(long[].class);
+
+        // key at 2 * bucket, id + 1 at 2 * bucket + 1
+        private final long[] entries;
+        private final int mask;
+        private int size;
+
+        DenseIds(int capacity) {
+            this.entries = new long[capacity * 2];
+            this.mask = capacity - 1;
+        }
+
+        int capacity() {
+            return mask + 1;
+        }
+
+        int get(long productId) {
+            int bucket = bucket(productId);
+            while (true) {
+                long id = (long) ENTRIES.getAcquire(entries, 2 * bucket + 1);
+                if (id == 0) {
+                    return -1;
+                }
+                if (entries[2 * bucket] == productId) {
+                    return (int) id - 1;
+                }
+                bucket = (bucket + 1) & mask;
+            }
+        }
+
+        void put(long productId, int denseId) {
+            int bucket = bucket(productId);
+            while (entries[2 * bucket + 1] != 0) {
+                bucket = (bucket + 1) & mask;
+            }
+            entries[2 * bucket] = productId;
+            ENTRIES.setRelease(entries, 2 * bucket + 1, denseId + 1L);
+            size++;
+        }
+
+        DenseIds grow() {
+            DenseIds grown = new DenseIds(capacity() * 2);
+            for (int bucket = 0; bucket <= mask; bucket++) {
+                long id = entries[2 * bucket + 1];
+                if (id != 0) {
+                    grown.put(entries[2 * bucket], (int) id - 1);
+                }
+            }
+            return grown;
+        }
+
+        private int bucket(long productId) {
+            long hash = productId * 0x9E3779B97F4A7C15L;
+            return (int) (hash ^ (hash >>> 32)) & mask;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement.Rules;
+
+import com.monkCommerce.CouponManagement.Entities.Cart;
+import com.monkCommerce.CouponManagement.Entities.CartItem;
+
+import java.math.RoundingMode;
+
+public final class ProductWiseRule extends CouponRule {
+
+    private final long productId;
+    private final long discountBasisPoints;
+    private final RoundingMode rounding;
+
+    /**
+     * @param discountBasisPoints percentage off the product's lines, in basis points
+     */
+    public ProductWiseRule(Long couponId, Long version, long expiresAtMillis, long productId, long discountBasisPoints,
+                           RoundingMode rounding) {
+        super(couponId, version, expiresAtMillis);
+        this.productId = productId;
+        this.discountBasisPoints = discountBasisPoints;
+        this.rounding = rounding;
+    }
+
+    public long getProductId() {
+        return productId;
+    }
+
+    public long getDiscountBasisPoints() {
+        return discountBasisPoints;
+    }
+
+    public RoundingMode getRounding() {
+        return rounding;
+    }
+
+    @Override
+    public String getType() {
+        return CouponRuleCompiler.PRODUCT_WISE;
+    }
+
+    @Override
+    public boolean isApplicable(CartView cart) {
+        return cart.indexOf(productId) >= 0;
+    }
+
+    @Override
+    public long discount(CartView cart) {
+        int slot = cart.indexOf(productId);
+        return slot < 0 ? 0 : Money.percentOf(cart.amountAt(slot), discountBasisPoints, rounding);
+    }
+
+    /**
+     * The discount is rounded once on the product's merged amount, then split over its lines so
+     * the line discounts add up to exactly what {@link #discount(CartView)} reported.
+     */
+    @Override
+    public void apply(Cart cart, CartView view) {
+        long totalDiscount = Money.toMinor(cart.getTotalDiscount());
+        int slot = view.indexOf(productId);
+        if (slot >= 0) {
+            long remaining = discount(view);
+            long remainingAmount = view.amountAt(slot);
+            for (int line = view.firstLine(slot); line >= 0; line = view.nextLine(line)) {
+                CartItem item = cart.getItems().get(line);
+                long lineAmount = Money.toMinor(item.getPrice()) * item.getQuantity();
+                long lineDiscount = view.nextLine(line) < 0 || remainingAmount == 0
+                        ? remaining
+                        : Money.mulDiv(remaining, lineAmount, remainingAmount, RoundingMode.HALF_UP);
+                remaining -= lineDiscount;
+                remainingAmount -= lineAmount;
+                item.setTotalDiscount(Money.toMajor(lineDiscount));
+                totalDiscount += lineDiscount;
+            }
+        }
+        cart.setTotalDiscount(Money.toMajor(totalDiscount));
+        cart.setFinalPrice(Money.toMajor(view.getTotalPrice() - totalDiscount));
+    }
+}
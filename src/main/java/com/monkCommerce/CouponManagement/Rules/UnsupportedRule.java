@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement.Rules;
+
+import com.monkCommerce.CouponManagement.Entities.Cart;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Placeholder for coupons whose type is unknown or whose details could not be parsed.
+ * It is never applicable, so such coupons are compiled once and then skipped cheaply.
+ */
+public final class UnsupportedRule extends CouponRule {
+
+    private static final Logger logger = LoggerFactory.getLogger(UnsupportedRule.class);
+
+    private final String type;
+
+    public UnsupportedRule(Long couponId, Long version, long expiresAtMillis, String type) {
+        super(couponId, version, expiresAtMillis);
+        this.type = type;
+    }
+
+    @Override
+    public String getType() {
+        return type;
+    }
+
+    @Override
+    public boolean isApplicable(CartView cart) {
+        return false;
+    }
+
+    @Override
+    public long discount(CartView cart) {
+        return 0;
+    }
+
+    @Override
+    public void apply(Cart cart, CartView view) {
+        logger.warn("Unknown coupon type: {}", type);
+    }
+}
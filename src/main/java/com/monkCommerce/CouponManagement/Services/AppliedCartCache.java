@@ -0,0 +1,196 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement.Services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.monkCommerce.CouponManagement.Entities.Cart;
+import com.monkCommerce.CouponManagement.Entities.CartItem;
+import com.monkCommerce.CouponManagement.Entities.Coupon;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Caches the outcome of applying a coupon to a cart, keyed by the coupon id and version and a
+ * fingerprint of the cart that does not depend on the order of its items. Entries are bounded by
+ * count and expire a fixed time after being written; a coupon write changes its version, so stale
+ * results are never served and simply age out. Collection membership changes clear the cache.
+ * <p>
+ * Only per-line discounts and totals are stored. Every call returns a new {@link Cart} over copies
+ * of the caller's items, in the caller's order, so cached state is never shared with a response.
+ * Hit, miss and eviction counts are published by {@link CouponMeterBinder}.
+ */
+@Component
+public class AppliedCartCache {
+
+    // productId, quantity, price and incoming discount of each line
+    private static final int FIELDS = 4;
+
+    private final Cache<Key, Result> results;
+
+    @Autowired
+    public AppliedCartCache(@Value("${coupon.apply-cache.max-size}") long maximumSize,
+                            @Value("${coupon.apply-cache.ttl-ms}") long ttlMillis) {
+        this.results = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofMillis(ttlMillis))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Returns the cart {@code apply} would produce for {@code items}, calling it only on a miss.
+     * Concurrent misses on the same key each compute the result; the last one written wins.
+     */
+    public Cart get(Coupon coupon, List<CartItem> items, Supplier<Cart> apply) {
+        if (coupon.getId() == null) {
+            return apply.get();
+        }
+        int[] order = canonicalOrder(items);
+        Key key = new Key(coupon.getId(), coupon.getVersion() == null ? -1 : coupon.getVersion(), lines(items, order));
+        Result cached = results.getIfPresent(key);
+        if (cached != null) {
+            return cached.toCart(items, order);
+        }
+        Cart cart = apply.get();
+        results.put(key, Result.of(cart, order));
+        return cart;
+    }
+
+    /**
+     * Drops every result, for changes that alter what a coupon does without changing its version,
+     * such as a product joining or leaving a collection.
+     */
+    public void invalidateAll() {
+        results.invalidateAll();
+    }
+
+    public long size() {
+        return results.estimatedSize();
+    }
+
+    Cache<Key, Result> getCache() {
+        return results;
+    }
+
+    private static int[] canonicalOrder(List<CartItem> items) {
+        Integer[] order = new Integer[items.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.<Integer>comparingLong(i -> items.get(i).getProductId())
+                .thenComparingInt(i -> items.get(i).getQuantity())
+                .thenComparingDouble(i -> items.get(i).getPrice())
+                .thenComparingDouble(i -> items.get(i).getTotalDiscount()));
+        int[] result = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            result[i] = order[i];
+        }
+        return result;
+    }
+
+    private static long[] lines(List<CartItem> items, int[] order) {
+        long[] lines = new long[order.length * FIELDS];
+        for (int i = 0; i < order.length; i++) {
+            CartItem item = items.get(order[i]);
+            lines[i * FIELDS] = item.getProductId();
+            lines[i * FIELDS + 1] = item.getQuantity();
+            lines[i * FIELDS + 2] = Double.doubleToLongBits(item.getPrice());
+            lines[i * FIELDS + 3] = Double.doubleToLongBits(item.getTotalDiscount());
+        }
+        return lines;
+    }
+
+    /** Equality compares every line, so two carts only share a result if they are the same cart. */
+    static final class Key {
+
+        private final long couponId;
+        private final long couponVersion;
+        private final long[] lines;
+        private final int hash;
+
+        Key(long couponId, long couponVersion, long[] lines) {
+            this.couponId = couponId;
+            this.couponVersion = couponVersion;
+            this.lines = lines;
+            this.hash = 31 * (31 * Long.hashCode(couponId) + Long.hashCode(couponVersion)) + Arrays.hashCode(lines);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key other)) {
+                return false;
+            }
+            return hash == other.hash && couponId == other.couponId && couponVersion == other.couponVersion
+                    && Arrays.equals(lines, other.lines);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /** Line discounts in canonical order, plus the cart totals. */
+    static final class Result {
+
+        private final double[] discounts;
+        private final double totalPrice;
+        private final double totalDiscount;
+        private final double finalPrice;
+
+        private Result(double[] discounts, double totalPrice, double totalDiscount, double finalPrice) {
+            this.discounts = discounts;
+            this.totalPrice = totalPrice;
+            this.totalDiscount = totalDiscount;
+            this.finalPrice = finalPrice;
+        }
+
+        static Result of(Cart cart, int[] order) {
+            double[] discounts = new double[order.length];
+            for (int i = 0; i < order.length; i++) {
+                discounts[i] = cart.getItems().get(order[i]).getTotalDiscount();
+            }
+            return new Result(discounts, cart.getTotalPrice(), cart.getTotalDiscount(), cart.getFinalPrice());
+        }
+
+        Cart toCart(List<CartItem> items, int[] order) {
+            CartItem[] lines = new CartItem[order.length];
+            for (int i = 0; i < order.length; i++) {
+                CartItem item = items.get(order[i]);
+                lines[order[i]] = new CartItem(item.getProductId(), item.getQuantity(), item.getPrice(), discounts[i]);
+            }
+            Cart cart = new Cart();
+            cart.setItems(new ArrayList<>(Arrays.asList(lines)));
+            cart.setTotalPrice(totalPrice);
+            cart.setTotalDiscount(totalDiscount);
+            cart.setFinalPrice(finalPrice);
+            return cart;
+        }
+    }
+}
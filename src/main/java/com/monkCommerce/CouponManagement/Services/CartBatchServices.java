@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement.Services;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.monkCommerce.CouponManagement.DTO.CartBatchResult;
+import com.monkCommerce.CouponManagement.DTO.CartRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Streams many carts through {@link CartServices}. Carts are read one at a time from a stream of
+ * concatenated JSON objects (NDJSON) or a single JSON array, and one result line is written per
+ * cart as soon as it is computed, so neither side has to hold the whole batch in memory.
+ */
+@Service
+public class CartBatchServices {
+
+    private static final Logger logger = LoggerFactory.getLogger(CartBatchServices.class);
+
+    // Results are flushed in small groups rather than per line to keep syscalls off the hot path.
+    private static final int FLUSH_EVERY = 64;
+
+    @Autowired
+    private CartServices cartServices;
+
+    @Autowired
+    private CouponCatalog couponCatalog;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * @return the number of carts read from {@code input}
+     */
+    public long getApplicableCoupons(InputStream input, OutputStream output) throws IOException {
+        return getApplicableCoupons(input, output, couponCatalog.snapshot());
+    }
+
+    /**
+     * Evaluates every cart in {@code input} against {@code snapshot}.
+     *
+     * @return the number of carts read from {@code input}
+     */
+    public long getApplicableCoupons(InputStream input, OutputStream output, CouponCatalog.Snapshot snapshot)
+            throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(CartBatchResult.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        long index = 0;
+        try (MappingIterator<CartRequest> carts = objectMapper.readerFor(CartRequest.class).readValues(input);
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(output)) {
+            generator.setRootValueSeparator(null);
+            while (true) {
+                CartRequest cartRequest;
+                try {
+                    if (!carts.hasNextValue()) {
+                        break;
+                    }
+                    cartRequest = carts.nextValue();
+                } catch (JsonProcessingException e) {
+                    // The parser cannot resynchronize after malformed input, so the batch ends here.
+                    logger.error("Error reading cart {} of batch: {}", index, e.getOriginalMessage());
+                    write(writer, generator, new CartBatchResult(index, null, "Malformed cart: " + e.getOriginalMessage()));
+                    index++;
+                    break;
+                }
+
+                CartBatchResult result;
+                try {
+                    result = new CartBatchResult(index, cartServices.getApplicableCoupons(cartRequest, snapshot), null);
+                } catch (RuntimeException e) {
+                    logger.error("Error evaluating cart {} of batch: {}", index, e.getMessage());
+                    result = new CartBatchResult(index, null, "Cart could not be evaluated");
+                }
+                write(writer, generator, result);
+                index++;
+                if (index % FLUSH_EVERY == 0) {
+                    generator.flush();
+                }
+            }
+        }
+        return index;
+    }
+
+    private static void write(ObjectWriter writer, JsonGenerator generator, CartBatchResult result) throws IOException {
+        writer.writeValue(generator, result);
+        generator.writeRaw('\n');
+    }
+}
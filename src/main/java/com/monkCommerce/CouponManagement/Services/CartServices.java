@@ -16,194 +16,256 @@
 
 package com.monkCommerce.CouponManagement.Services;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.monkCommerce.CouponManagement.DTO.BestCouponResponse;
 import com.monkCommerce.CouponManagement.DTO.CartRequest;
+import com.monkCommerce.CouponManagement.DTO.CouponSavings;
 import com.monkCommerce.CouponManagement.Database.CouponDatabase;
 import com.monkCommerce.CouponManagement.Entities.Cart;
 import com.monkCommerce.CouponManagement.Entities.CartItem;
 import com.monkCommerce.CouponManagement.Entities.Coupon;
 import com.monkCommerce.CouponManagement.Exceptions.CouponExceptions;
+import com.monkCommerce.CouponManagement.Exceptions.CouponNotApplicableException;
+import com.monkCommerce.CouponManagement.Exceptions.MalformedCartException;
+import com.monkCommerce.CouponManagement.Rules.CartView;
+import com.monkCommerce.CouponManagement.Rules.CartViewReader;
+import com.monkCommerce.CouponManagement.Rules.CouponRule;
+import com.monkCommerce.CouponManagement.Rules.Money;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
-import java.time.LocalDateTime;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class CartServices {
 
     private static final Logger logger = LoggerFactory.getLogger(CartServices.class);
 
+    // Below this many candidates the fork/join overhead outweighs evaluating on the request thread.
+    private static final int PARALLEL_EVALUATION_THRESHOLD = 256;
+
     @Autowired
     private CouponDatabase couponDatabase;
 
+    @Autowired
+    private CouponRuleCache couponRuleCache;
+
+    @Autowired
+    private CouponCatalog couponCatalog;
+
+    @Autowired
+    private CouponMetrics couponMetrics;
+
+    @Autowired
+    private CouponRedemptionServices couponRedemptionServices;
+
+    @Autowired
+    private AppliedCartCache appliedCartCache;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     public List<Coupon> getApplicableCoupons(CartRequest cartRequest) {
+        return getApplicableCoupons(cartRequest, couponCatalog.snapshot());
+    }
+
+    /**
+     * Same as {@link #getApplicableCoupons(CartRequest)} but against a snapshot taken by the caller,
+     * so a batch of carts is evaluated against one consistent catalog, or so the caller can report
+     * the catalog version.
+     */
+    public List<Coupon> getApplicableCoupons(CartRequest cartRequest, CouponCatalog.Snapshot snapshot) {
         logger.debug("Fetching applicable coupons for cart: {}", cartRequest);
-        Cart cart = new Cart();
-        cart.setItems(cartRequest.getItems());
-        calculateTotalPrice(cart);
-        return couponDatabase.findAll().stream()
-                .filter(coupon -> isCouponApplicable(coupon, cart))
-                .collect(Collectors.toList());
+        long start = System.nanoTime();
+        return getApplicableCoupons(CartView.of(cartRequest.getItems()), snapshot, start);
     }
 
-    public Cart applyCoupon(Long id, CartRequest cartRequest) {
-        logger.debug("Applying coupon with ID: {} to cart: {}", id, cartRequest);
-        Coupon coupon = couponDatabase.findById(id).orElseThrow(() -> {
-            logger.error("Coupon not found with ID: {}", id);
-            return new CouponExceptions("Coupon not found");
-        });
+    /**
+     * Streaming variant for very large carts: the cart is read from {@code input} straight into a
+     * {@link CartView} by {@link CartViewReader}, without binding a {@link CartRequest} or any of
+     * its items.
+     */
+    public List<Coupon> getApplicableCoupons(InputStream input, CouponCatalog.Snapshot snapshot) throws IOException {
+        CartView cart;
+        try (JsonParser parser = objectMapper.createParser(input)) {
+            cart = CartViewReader.read(parser);
+        } catch (JsonProcessingException e) {
+            logger.error("Error reading streamed cart: {}", e.getOriginalMessage());
+            throw new MalformedCartException("Malformed cart: " + e.getOriginalMessage());
+        }
+        logger.debug("Fetching applicable coupons for streamed cart of {} products", cart.size());
+        return getApplicableCoupons(cart, snapshot, System.nanoTime());
+    }
 
-        if (coupon.getExpirationDate().isBefore(LocalDateTime.now())) { // Bonus: Add expiration dates for coupons.
-            logger.error("Coupon with ID: {} is expired", id);
-            throw new CouponExceptions("Coupon is expired");
+    private List<Coupon> getApplicableCoupons(CartView cart, CouponCatalog.Snapshot snapshot, long start) {
+        List<CouponCatalog.Entry> candidates = snapshot.candidates(cart);
+        List<Coupon> coupons = new ArrayList<>();
+        for (CouponCatalog.Entry entry : candidates) {
+            if (entry.getRule().isApplicable(cart)) {
+                coupons.add(entry.getCoupon());
+            }
         }
+        // Candidates come in index order; only the matches are put back in id order.
+        coupons.sort(Comparator.comparing(Coupon::getId));
+        couponMetrics.recordRequest(CouponMetrics.APPLICABLE, start, candidates.size(), coupons.size());
+        return coupons;
+    }
 
-        Cart cart = new Cart();
-        cart.setItems(cartRequest.getItems());
-        calculateTotalPrice(cart);
-        applyCouponToCart(coupon, cart);
+    public Cart applyCoupon(Long id, CartRequest cartRequest) {
+        return applyCoupon(id, cartRequest, couponCatalog.snapshot());
+    }
+
+    /**
+     * Prices the cart with the coupon applied. Redemption caps are checked but nothing is redeemed,
+     * so a cart can be priced any number of times; {@link #redeemCoupon} redeems the coupon.
+     */
+    public Cart applyCoupon(Long id, CartRequest cartRequest, CouponCatalog.Snapshot snapshot) {
+        logger.debug("Applying coupon with ID: {} to cart: {}", id, cartRequest);
+        long start = System.nanoTime();
+        Coupon coupon = coupon(id, snapshot);
+        CouponRule rule = unexpiredRule(coupon);
+        couponRedemptionServices.check(coupon, cartRequest.getCustomerId());
+        Cart cart = apply(coupon, rule, cartRequest);
+        couponMetrics.recordRequest(CouponMetrics.APPLY, start, 1, 1);
         logger.info("Coupon applied with ID: {} to cart", id);
         return cart;
     }
 
-    private boolean isCouponApplicable(Coupon coupon, Cart cart) {
+    public Cart redeemCoupon(Long id, CartRequest cartRequest) {
+        return redeemCoupon(id, cartRequest, couponCatalog.snapshot());
+    }
+
+    /**
+     * Applies the coupon at checkout, counting one redemption against its caps. A cart the coupon
+     * does not apply to is rejected before anything is reserved. The cart is always
+     * evaluated afresh rather than served from {@link AppliedCartCache}, so the cache only ever
+     * answers apply-coupon, which redeems nothing.
+     */
+    public Cart redeemCoupon(Long id, CartRequest cartRequest, CouponCatalog.Snapshot snapshot) {
+        logger.debug("Redeeming coupon with ID: {} for cart: {}", id, cartRequest);
+        long start = System.nanoTime();
+        Coupon coupon = coupon(id, snapshot);
+        CouponRule rule = unexpiredRule(coupon);
+        CartView view = CartView.of(cartRequest.getItems());
+        if (!rule.isApplicable(view)) {
+            logger.error("Coupon with ID: {} is not applicable to cart", id);
+            throw new CouponNotApplicableException("Coupon is not applicable to cart");
+        }
+        CouponRedemptionServices.Reservation reservation = couponRedemptionServices.reserve(coupon, cartRequest.getCustomerId());
+        Cart cart;
         try {
-            ObjectMapper mapper = new ObjectMapper();
-            Map<String, Object> details = mapper.readValue(coupon.getDetails(), Map.class);
-
-            switch (coupon.getType()) {
-                case "cart-wise":
-                    double threshold = ((Number) details.get("threshold")).doubleValue();
-                    return cart.getTotalPrice() > threshold;
-                case "product-wise":
-                    Long productId = ((Number) details.get("product_id")).longValue();
-                    return cart.getItems().stream().anyMatch(item -> item.getProductId().equals(productId));
-                case "bxgy":
-                    List<Map<String, Object>> buyProducts = (List<Map<String, Object>>) details.get("buy_products");
-                    int buyCount = 0;
-                    for (Map<String, Object> buyProduct : buyProducts) {
-                        Long buyProductId = ((Number) buyProduct.get("product_id")).longValue();
-                        int quantity = ((Number) buyProduct.get("quantity")).intValue();
-                        for (CartItem item : cart.getItems()) {
-                            if (item.getProductId().equals(buyProductId)) {
-                                buyCount += item.getQuantity() / quantity;
-                            }
-                        }
-                    }
-                    return buyCount > 0;
-                default:
-                    return false;
-            }
-        } catch (IOException e) {
-            logger.error("Error parsing coupon details: {}", e.getMessage());
-            return false;
+            cart = evaluate(rule, cartRequest, view);
+        } catch (RuntimeException e) {
+            couponRedemptionServices.release(reservation);
+            throw e;
         }
+        couponRedemptionServices.commit(reservation);
+        couponMetrics.recordRequest(CouponMetrics.REDEEM, start, 1, 1);
+        logger.info("Coupon redeemed with ID: {} for cart", id);
+        return cart;
     }
 
-    private void calculateTotalPrice(Cart cart) {
-        double totalPrice = 0.0;
-        for (CartItem item : cart.getItems()) {
-            totalPrice += item.getPrice() * item.getQuantity();
+    private CouponRule unexpiredRule(Coupon coupon) {
+        CouponRule rule = couponRuleCache.get(coupon);
+        if (rule.isExpired(System.currentTimeMillis())) { // Bonus: Add expiration dates for coupons.
+            logger.error("Coupon with ID: {} is expired", coupon.getId());
+            throw new CouponExceptions("Coupon is expired");
         }
-        cart.setTotalPrice(totalPrice);
+        return rule;
     }
 
-    private void applyCouponToCart(Coupon coupon, Cart cart) {
-        switch (coupon.getType()) {
-            case "cart-wise":
-                applyCartWiseCoupon(coupon, cart);
-                break;
-            case "product-wise":
-                applyProductWiseCoupon(coupon, cart);
-                break;
-            case "bxgy":
-                applyBxGyCoupon(coupon, cart);
-                break;
-            default:
-                logger.warn("Unknown coupon type: {}", coupon.getType());
-        }
+    private Cart apply(Coupon coupon, CouponRule rule, CartRequest cartRequest) {
+        return appliedCartCache.get(coupon, cartRequest.getItems(),
+                () -> evaluate(rule, cartRequest, CartView.of(cartRequest.getItems())));
     }
 
-    private void applyCartWiseCoupon(Coupon coupon, Cart cart) {
-        try {
-            ObjectMapper mapper = new ObjectMapper();
-            Map<String, Object> details = mapper.readValue(coupon.getDetails(), Map.class);
-            double threshold = ((Number) details.get("threshold")).doubleValue();
-            double discount = ((Number) details.get("discount")).doubleValue();
-
-            if (cart.getTotalPrice() > threshold) {
-                double discountAmount = cart.getTotalPrice() * (discount / 100);
-                cart.setTotalDiscount(discountAmount);
-                cart.setFinalPrice(cart.getTotalPrice() - discountAmount);
-            }
-        } catch (IOException e) {
-            logger.error("Error parsing coupon details: {}", e.getMessage());
-        }
+    private Cart evaluate(CouponRule rule, CartRequest cartRequest, CartView view) {
+        Cart applied = newCart(cartRequest, view);
+        long applyStart = System.nanoTime();
+        rule.apply(applied, view);
+        couponMetrics.recordApply(rule.getType(), applyStart);
+        return applied;
     }
 
-    private void applyProductWiseCoupon(Coupon coupon, Cart cart) {
-        try {
-            ObjectMapper mapper = new ObjectMapper();
-            Map<String, Object> details = mapper.readValue(coupon.getDetails(), Map.class);
-            Long productId = ((Number) details.get("product_id")).longValue();
-            double discount = ((Number) details.get("discount")).doubleValue();
-
-            for (CartItem item : cart.getItems()) {
-                if (item.getProductId().equals(productId)) {
-                    double discountAmount = item.getPrice() * (discount / 100) * item.getQuantity();
-                    item.setTotalDiscount(discountAmount);
-                    cart.setTotalDiscount(cart.getTotalDiscount() + discountAmount);
-                }
-            }
-            cart.setFinalPrice(cart.getTotalPrice() - cart.getTotalDiscount());
-        } catch (IOException e) {
-            logger.error("Error parsing coupon details: {}", e.getMessage());
-        }
+    public BestCouponResponse getBestCoupon(CartRequest cartRequest) {
+        return getBestCoupon(cartRequest, couponCatalog.snapshot());
     }
 
-    private void applyBxGyCoupon(Coupon coupon, Cart cart) {
-        try {
-            ObjectMapper mapper = new ObjectMapper();
-            Map<String, Object> details = mapper.readValue(coupon.getDetails(), Map.class);
-            List<Map<String, Object>> buyProducts = (List<Map<String, Object>>) details.get("buy_products");
-            List<Map<String, Object>> getProducts = (List<Map<String, Object>>) details.get("get_products");
-            int repetitionLimit = ((Number) details.get("repetition_limit")).intValue();
-
-            int buyCount = 0;
-            for (Map<String, Object> buyProduct : buyProducts) {
-                Long productId = ((Number) buyProduct.get("product_id")).longValue();
-                int quantity = ((Number) buyProduct.get("quantity")).intValue();
-
-                for (CartItem item : cart.getItems()) {
-                    if (item.getProductId().equals(productId)) {
-                        buyCount += item.getQuantity() / quantity;
-                    }
-                }
-            }
+    public BestCouponResponse getBestCoupon(CartRequest cartRequest, CouponCatalog.Snapshot snapshot) {
+        logger.debug("Finding best coupon for cart: {}", cartRequest);
+        long start = System.nanoTime();
+        CartView cart = CartView.of(cartRequest.getItems());
+
+        List<CouponCatalog.Entry> candidates = snapshot.candidates(cart);
+        Stream<CouponCatalog.Entry> stream = candidates.size() >= PARALLEL_EVALUATION_THRESHOLD
+                ? candidates.parallelStream()
+                : candidates.stream();
+        List<CouponSavings> ranking = stream
+                .filter(entry -> entry.getRule().isApplicable(cart))
+                .map(entry -> new CouponSavings(entry.getCoupon().getId(), entry.getCoupon().getType(),
+                        Money.toMajor(entry.getRule().discount(cart))))
+                .sorted(Comparator.comparingDouble(CouponSavings::getDiscount).reversed()
+                        .thenComparing(CouponSavings::getCouponId))
+                .collect(Collectors.toList());
 
-            int applicableRepetitions = Math.min(buyCount, repetitionLimit);
+        if (ranking.isEmpty()) {
+            Cart result = newCart(cartRequest, cart);
+            result.setFinalPrice(result.getTotalPrice());
+            couponMetrics.recordRequest(CouponMetrics.BEST, start, candidates.size(), 0);
+            logger.info("No applicable coupon for cart");
+            return new BestCouponResponse(null, result, ranking);
+        }
 
-            for (Map<String, Object> getProduct : getProducts) {
-                Long productId = ((Number) getProduct.get("product_id")).longValue();
-                int quantity = ((Number) getProduct.get("quantity")).intValue();
+        CouponCatalog.Entry best = candidates.stream()
+                .filter(entry -> entry.getCoupon().getId().equals(ranking.get(0).getCouponId()))
+                .findFirst()
+                .orElseThrow();
+        Cart result = newCart(cartRequest, cart);
+        long applyStart = System.nanoTime();
+        best.getRule().apply(result, cart);
+        couponMetrics.recordApply(best.getRule().getType(), applyStart);
+        couponMetrics.recordRequest(CouponMetrics.BEST, start, candidates.size(), ranking.size());
+        logger.info("Best coupon with ID: {} out of {} applicable coupons", ranking.get(0).getCouponId(), ranking.size());
+        return new BestCouponResponse(ranking.get(0).getCouponId(), result, ranking);
+    }
 
-                for (CartItem item : cart.getItems()) {
-                    if (item.getProductId().equals(productId)) {
-                        double discountAmount = item.getPrice() * quantity * applicableRepetitions;
-                        item.setTotalDiscount(discountAmount);
-                        cart.setTotalDiscount(cart.getTotalDiscount() + discountAmount);
-                    }
-                }
-            }
-            cart.setFinalPrice(cart.getTotalPrice() - cart.getTotalDiscount());
-        } catch (IOException e) {
-            logger.error("Error parsing coupon details: {}", e.getMessage());
+    /**
+     * Served from the snapshot, which also holds expired and unsupported coupons; the database is
+     * only asked about ids the snapshot has never seen (e.g. written by another instance).
+     */
+    private Coupon coupon(Long id, CouponCatalog.Snapshot snapshot) {
+        Coupon coupon = snapshot.getCoupon(id);
+        if (coupon != null) {
+            return coupon;
         }
+        return couponDatabase.findById(id).orElseThrow(() -> {
+            logger.error("Coupon not found with ID: {}", id);
+            return new CouponExceptions("Coupon not found");
+        });
+    }
+
+    /**
+     * Builds a cart over copies of the requested items, so applying a coupon never writes
+     * discounts into objects that other evaluations of the same request can see.
+     */
+    private Cart newCart(CartRequest cartRequest, CartView view) {
+        List<CartItem> items = new ArrayList<>(cartRequest.getItems().size());
+        for (CartItem item : cartRequest.getItems()) {
+            items.add(new CartItem(item.getProductId(), item.getQuantity(), item.getPrice(), item.getTotalDiscount()));
+        }
+        Cart cart = new Cart();
+        cart.setItems(items);
+        cart.setTotalPrice(Money.toMajor(view.getTotalPrice()));
+        return cart;
     }
 }
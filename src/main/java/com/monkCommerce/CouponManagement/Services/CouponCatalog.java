@@ -0,0 +1,602 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement.Services;
+
+import com.monkCommerce.CouponManagement.Database.CouponDatabase;
+import com.monkCommerce.CouponManagement.Entities.Coupon;
+import com.monkCommerce.CouponManagement.Rules.BxGyRule;
+import com.monkCommerce.CouponManagement.Rules.CartView;
+import com.monkCommerce.CouponManagement.Rules.CartWiseRule;
+import com.monkCommerce.CouponManagement.Rules.CollectionWiseRule;
+import com.monkCommerce.CouponManagement.Rules.CouponRule;
+import com.monkCommerce.CouponManagement.Rules.DslRule;
+import com.monkCommerce.CouponManagement.Rules.ProductSets;
+import com.monkCommerce.CouponManagement.Rules.ProductWiseRule;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.LongStream;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * In-memory, copy-on-write coupon catalog. Readers take the current {@link Snapshot} with one
+ * volatile read and evaluate against it without locks or database round trips; a snapshot never
+ * changes once published. Writers are serialized: each write patches the previous snapshot (only
+ * the touched shards of each {@link ShardedLongMap} are copied) and publishes the result under the
+ * next version number, so a response can say which catalog version it was computed from.
+ * <p>
+ * The eligibility index keys product-wise coupons by their product, bxgy coupons by each of their
+ * buy products and keeps cart-wise coupons sorted by threshold, so the candidates for a cart come
+ * from one lookup per cart product plus a prefix of the cart-wise array. A coupon keyed by several
+ * of the cart's products is taken at the first of its keys the cart contains, so candidates need no
+ * deduplication; they come in index order, not by id. Rule coupons are keyed by
+ * the products their condition requires; those that require none are candidates for every cart,
+ * so they should stay few. Collection-wise coupons are keyed by the dense id of their collection
+ * and found through {@link ProductSets#collectionsOf}, which reads the live memberships, so a
+ * membership change needs no coupon write. Candidates still have to pass
+ * {@link CouponRule#isApplicable} (bxgy needs enough quantity and a get product to give away).
+ * <p>
+ * {@link CouponDatabase} stays the system of record: the catalog is loaded from it on first use
+ * and kept in sync by {@link CouponServices} and {@link CouponImportServices}. Every stored coupon
+ * can be looked up by id, but only active coupons are indexed: expired coupons and unsupported
+ * types are skipped, and every coupon with an expiration date is scheduled on an
+ * {@link ExpiryTimer} to drop out at that instant, so evaluation never looks at expiration dates.
+ * Stored coupons past their expiration date are counted by {@link #expiredSize()}.
+ */
+@Service
+public class CouponCatalog {
+
+    private static final Logger logger = LoggerFactory.getLogger(CouponCatalog.class);
+
+    @Autowired
+    private CouponDatabase couponDatabase;
+
+    @Autowired
+    private CouponRuleCache couponRuleCache;
+
+    private final AtomicReference<Snapshot> current = new AtomicReference<>();
+
+    private final ExpiryTimer<Entry> expiryTimer = new ExpiryTimer<>("coupon-expiry", this::expire);
+
+    public Snapshot snapshot() {
+        Snapshot snapshot = current.get();
+        return snapshot != null ? snapshot : load();
+    }
+
+    public List<Entry> candidates(CartView cart) {
+        return snapshot().candidates(cart);
+    }
+
+    /**
+     * @return the version of the snapshot that contains the change
+     */
+    public long put(Coupon coupon) {
+        return putAll(List.of(coupon));
+    }
+
+    /**
+     * Adds or replaces {@code coupons} in a single new snapshot.
+     *
+     * @return the version of the snapshot that contains the change
+     */
+    public long putAll(Collection<Coupon> coupons) {
+        return update(coupons, List.of());
+    }
+
+    /**
+     * @return the version of the snapshot that contains the change
+     */
+    public long remove(Long id) {
+        return update(List.of(), List.of(id));
+    }
+
+    /**
+     * Adds or replaces {@code coupons} and drops {@code removedIds} in a single new snapshot. A
+     * coupon older than the stored one (by {@link Coupon#getVersion() version}) is ignored, so
+     * local writes and changes replayed from other instances can arrive in any order.
+     *
+     * @return the version of the snapshot that contains the change
+     */
+    public synchronized long update(Collection<Coupon> coupons, Collection<Long> removedIds) {
+        Patch patch = new Patch(snapshot(), couponRuleCache.getProductSets());
+        long now = System.currentTimeMillis();
+        for (Coupon coupon : coupons) {
+            if (coupon.getId() != null && !patch.hasNewerThan(coupon)) {
+                patch.put(coupon, couponRuleCache.get(coupon), now);
+            }
+        }
+        for (Long id : removedIds) {
+            patch.remove(id);
+        }
+        return publish(patch);
+    }
+
+    /**
+     * Number of active coupons in the current snapshot.
+     */
+    public int size() {
+        Snapshot snapshot = current.get();
+        return snapshot == null ? 0 : snapshot.size();
+    }
+
+    /**
+     * Number of stored coupons in the current snapshot whose expiration date has passed.
+     */
+    public int expiredSize() {
+        Snapshot snapshot = current.get();
+        return snapshot == null ? 0 : snapshot.expiredSize();
+    }
+
+    /**
+     * Version of the current snapshot, or 0 before the catalog is loaded.
+     */
+    public long version() {
+        Snapshot snapshot = current.get();
+        return snapshot == null ? 0 : snapshot.getVersion();
+    }
+
+    @PreDestroy
+    public void close() {
+        expiryTimer.stop();
+    }
+
+    private synchronized Snapshot load() {
+        Snapshot snapshot = current.get();
+        if (snapshot != null) {
+            return snapshot;
+        }
+        Patch patch = new Patch(Snapshot.EMPTY, couponRuleCache.getProductSets());
+        long now = System.currentTimeMillis();
+        for (Coupon coupon : couponDatabase.findAll()) {
+            if (coupon.getId() != null) {
+                patch.put(coupon, couponRuleCache.get(coupon), now);
+            }
+        }
+        publish(patch);
+        snapshot = current.get();
+        logger.info("Coupon catalog loaded with {} active coupons", snapshot.size());
+        return snapshot;
+    }
+
+    private long publish(Patch patch) {
+        Snapshot snapshot = patch.build();
+        current.set(snapshot);
+        for (Entry entry : patch.expiring) {
+            expiryTimer.schedule(entry.getRule().getExpiresAtMillis(), entry);
+        }
+        return snapshot.getVersion();
+    }
+
+    private synchronized void expire(List<Entry> entries) {
+        Patch patch = new Patch(snapshot(), couponRuleCache.getProductSets());
+        int expired = 0;
+        for (Entry entry : entries) {
+            // The coupon may have been updated or deleted since this expiry was scheduled.
+            if (patch.expire(entry)) {
+                expired++;
+            }
+        }
+        if (expired > 0) {
+            long version = publish(patch);
+            logger.debug("{} coupons expired and were removed from the catalog (version {})", expired, version);
+        }
+    }
+
+    private static int compareCartWise(Entry left, Entry right) {
+        int byThreshold = Long.compare(threshold(left), threshold(right));
+        return byThreshold != 0 ? byThreshold : Long.compare(left.getCoupon().getId(), right.getCoupon().getId());
+    }
+
+    private static long threshold(Entry entry) {
+        return ((CartWiseRule) entry.getRule()).getThreshold();
+    }
+
+    private static List<Entry> with(List<Entry> entries, Entry entry) {
+        List<Entry> next = new ArrayList<>(entries == null ? 1 : entries.size() + 1);
+        if (entries != null) {
+            next.addAll(entries);
+        }
+        next.add(entry);
+        return Collections.unmodifiableList(next);
+    }
+
+    private static List<Entry> without(List<Entry> entries, Entry entry) {
+        if (entries == null) {
+            return null;
+        }
+        List<Entry> next = new ArrayList<>(entries.size());
+        for (Entry other : entries) {
+            if (other != entry) {
+                next.add(other);
+            }
+        }
+        return next.isEmpty() ? null : Collections.unmodifiableList(next);
+    }
+
+    // Adds the entries keyed under productId that no other product of the cart has added already.
+    private static void addAll(List<Entry> target, List<Entry> entries, long productId, CartView cart) {
+        if (entries == null) {
+            return;
+        }
+        for (Entry entry : entries) {
+            if (entry.isFirstKeyIn(cart, productId)) {
+                target.add(entry);
+            }
+        }
+    }
+
+    /**
+     * Immutable, versioned view of the catalog. Holding on to one gives a consistent catalog for
+     * as long as needed (e.g. a whole batch of carts) at no cost to writers.
+     */
+    public static final class Snapshot {
+
+        private static final Snapshot EMPTY = new Snapshot(0, ShardedLongMap.empty(), ShardedLongMap.empty(),
+                ShardedLongMap.empty(), ShardedLongMap.empty(), new long[0], new Entry[0],
+                ShardedLongMap.empty(), ShardedLongMap.empty(), null, new Entry[0], ShardedLongMap.empty());
+
+        private final long version;
+        private final ShardedLongMap<Coupon> coupons;
+        private final ShardedLongMap<Entry> active;
+        private final ShardedLongMap<List<Entry>> productWiseByProduct;
+        private final ShardedLongMap<List<Entry>> bxgyByBuyProduct;
+        private final long[] cartWiseThresholds;
+        private final Entry[] cartWiseByThreshold;
+        private final ShardedLongMap<List<Entry>> rulesByProduct;
+        private final ShardedLongMap<List<Entry>> collectionWiseByCollection;
+        private final ProductSets productSets;
+        private final Entry[] unindexed;
+        private final ShardedLongMap<Coupon> expired;
+
+        private Snapshot(long version, ShardedLongMap<Coupon> coupons, ShardedLongMap<Entry> active,
+                         ShardedLongMap<List<Entry>> productWiseByProduct, ShardedLongMap<List<Entry>> bxgyByBuyProduct,
+                         long[] cartWiseThresholds, Entry[] cartWiseByThreshold,
+                         ShardedLongMap<List<Entry>> rulesByProduct,
+                         ShardedLongMap<List<Entry>> collectionWiseByCollection, ProductSets productSets,
+                         Entry[] unindexed, ShardedLongMap<Coupon> expired) {
+            this.version = version;
+            this.coupons = coupons;
+            this.active = active;
+            this.productWiseByProduct = productWiseByProduct;
+            this.bxgyByBuyProduct = bxgyByBuyProduct;
+            this.cartWiseThresholds = cartWiseThresholds;
+            this.cartWiseByThreshold = cartWiseByThreshold;
+            this.rulesByProduct = rulesByProduct;
+            this.collectionWiseByCollection = collectionWiseByCollection;
+            this.productSets = productSets;
+            this.unindexed = unindexed;
+            this.expired = expired;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        /**
+         * Any stored coupon, including expired and unsupported ones, or {@code null}.
+         */
+        public Coupon getCoupon(Long id) {
+            return coupons.get(id);
+        }
+
+        /**
+         * The active coupon with {@code id} and its compiled rule, or {@code null}.
+         */
+        public Entry getEntry(Long id) {
+            return active.get(id);
+        }
+
+        public int size() {
+            return active.size();
+        }
+
+        /**
+         * Number of stored coupons whose expiration date has passed.
+         */
+        public int expiredSize() {
+            return expired.size();
+        }
+
+        public List<Entry> candidates(CartView cart) {
+            int end = thresholdsBelow(cart.getTotalPrice());
+            List<Entry> candidates = new ArrayList<>(cart.size() + end + unindexed.length);
+            for (int slot = 0; slot < cart.size(); slot++) {
+                long productId = cart.productIdAt(slot);
+                addAll(candidates, productWiseByProduct.get(productId), productId, cart);
+                addAll(candidates, bxgyByBuyProduct.get(productId), productId, cart);
+                addAll(candidates, rulesByProduct.get(productId), productId, cart);
+            }
+            for (int i = 0; i < end; i++) {
+                candidates.add(cartWiseByThreshold[i]);
+            }
+            if (collectionWiseByCollection.size() > 0) {
+                for (int collection : productSets.collectionsOf(cart)) {
+                    List<Entry> entries = collectionWiseByCollection.get(collection);
+                    if (entries != null) {
+                        candidates.addAll(entries);
+                    }
+                }
+            }
+            Collections.addAll(candidates, unindexed);
+            return candidates;
+        }
+
+        // Number of cart-wise thresholds strictly below total.
+        private int thresholdsBelow(long total) {
+            int low = 0;
+            int high = cartWiseThresholds.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (cartWiseThresholds[mid] < total) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+
+    /**
+     * Changes to one snapshot, applied to copies of just the parts they touch.
+     */
+    private static final class Patch {
+        private final Snapshot base;
+        private final ShardedLongMap.Editor<Coupon> coupons;
+        private final ShardedLongMap.Editor<Entry> active;
+        private final ShardedLongMap.Editor<List<Entry>> productWiseByProduct;
+        private final ShardedLongMap.Editor<List<Entry>> bxgyByBuyProduct;
+        private final ShardedLongMap.Editor<List<Entry>> rulesByProduct;
+        private final ShardedLongMap.Editor<List<Entry>> collectionWiseByCollection;
+        private final ProductSets productSets;
+        private final ShardedLongMap.Editor<Coupon> expired;
+        private final List<Entry> cartWiseAdded = new ArrayList<>();
+        private final Set<Entry> cartWiseRemoved = Collections.newSetFromMap(new IdentityHashMap<>());
+        private final List<Entry> unindexedAdded = new ArrayList<>();
+        private final Set<Entry> unindexedRemoved = Collections.newSetFromMap(new IdentityHashMap<>());
+        private final List<Entry> expiring = new ArrayList<>();
+
+        private Patch(Snapshot base, ProductSets productSets) {
+            this.base = base;
+            this.coupons = base.coupons.edit();
+            this.active = base.active.edit();
+            this.productWiseByProduct = base.productWiseByProduct.edit();
+            this.bxgyByBuyProduct = base.bxgyByBuyProduct.edit();
+            this.rulesByProduct = base.rulesByProduct.edit();
+            this.collectionWiseByCollection = base.collectionWiseByCollection.edit();
+            this.productSets = productSets;
+            this.expired = base.expired.edit();
+        }
+
+        /**
+         * Whether the stored copy of {@code coupon} is a later version than {@code coupon}.
+         */
+        boolean hasNewerThan(Coupon coupon) {
+            Coupon stored = coupons.get(coupon.getId());
+            return stored != null && stored.getVersion() != null && coupon.getVersion() != null
+                    && stored.getVersion() > coupon.getVersion();
+        }
+
+        void put(Coupon coupon, CouponRule rule, long now) {
+            remove(coupon.getId());
+            coupons.put(coupon.getId(), coupon);
+            if (rule.isExpired(now)) {
+                expired.put(coupon.getId(), coupon);
+                return;
+            }
+            Entry entry = new Entry(coupon, rule, indexKeys(rule));
+            // Unsupported coupons are scheduled too, so that they are counted as expired in time.
+            if (rule.getExpiresAtMillis() != Long.MAX_VALUE) {
+                expiring.add(entry);
+            }
+            if (rule instanceof CartWiseRule) {
+                cartWiseAdded.add(entry);
+            } else if (rule instanceof ProductWiseRule productWise) {
+                productWiseByProduct.put(productWise.getProductId(),
+                        with(productWiseByProduct.get(productWise.getProductId()), entry));
+            } else if (rule instanceof BxGyRule) {
+                for (long productId : entry.indexKeys) {
+                    bxgyByBuyProduct.put(productId, with(bxgyByBuyProduct.get(productId), entry));
+                }
+            } else if (rule instanceof CollectionWiseRule collectionWise) {
+                int collection = collectionWise.getCollectionDenseId();
+                collectionWiseByCollection.put(collection, with(collectionWiseByCollection.get(collection), entry));
+            } else if (rule instanceof DslRule) {
+                if (entry.indexKeys == null) {
+                    unindexedAdded.add(entry);
+                } else {
+                    for (long productId : entry.indexKeys) {
+                        rulesByProduct.put(productId, with(rulesByProduct.get(productId), entry));
+                    }
+                }
+            } else {
+                // Unknown types and unparsable details are never applicable, so they are not indexed.
+                return;
+            }
+            active.put(coupon.getId(), entry);
+        }
+
+        void remove(Long id) {
+            coupons.remove(id);
+            expired.remove(id);
+            deactivate(active.get(id));
+        }
+
+        /**
+         * Moves the coupon of {@code entry} from the index to the expired coupons, if it is still
+         * stored as it was when {@code entry} was created.
+         */
+        boolean expire(Entry entry) {
+            Long id = entry.getCoupon().getId();
+            if (coupons.get(id) != entry.getCoupon() || expired.get(id) != null) {
+                return false;
+            }
+            deactivate(entry);
+            expired.put(id, entry.getCoupon());
+            return true;
+        }
+
+        /**
+         * Drops {@code entry} from the index if it is still the active entry of its coupon.
+         */
+        boolean deactivate(Entry entry) {
+            if (entry == null || active.get(entry.getCoupon().getId()) != entry) {
+                return false;
+            }
+            active.remove(entry.getCoupon().getId());
+            CouponRule rule = entry.getRule();
+            if (rule instanceof CartWiseRule) {
+                if (!cartWiseAdded.remove(entry)) {
+                    cartWiseRemoved.add(entry);
+                }
+            } else if (rule instanceof ProductWiseRule productWise) {
+                putOrRemove(productWiseByProduct, productWise.getProductId(),
+                        without(productWiseByProduct.get(productWise.getProductId()), entry));
+            } else if (rule instanceof BxGyRule) {
+                for (long productId : entry.indexKeys) {
+                    putOrRemove(bxgyByBuyProduct, productId, without(bxgyByBuyProduct.get(productId), entry));
+                }
+            } else if (rule instanceof DslRule && entry.indexKeys != null) {
+                for (long productId : entry.indexKeys) {
+                    putOrRemove(rulesByProduct, productId, without(rulesByProduct.get(productId), entry));
+                }
+            } else if (rule instanceof CollectionWiseRule collectionWise) {
+                int collection = collectionWise.getCollectionDenseId();
+                putOrRemove(collectionWiseByCollection, collection, without(collectionWiseByCollection.get(collection), entry));
+            } else if (rule instanceof DslRule) {
+                if (!unindexedAdded.remove(entry)) {
+                    unindexedRemoved.add(entry);
+                }
+            }
+            return true;
+        }
+
+        Snapshot build() {
+            long[] thresholds = base.cartWiseThresholds;
+            Entry[] cartWise = base.cartWiseByThreshold;
+            if (!cartWiseAdded.isEmpty() || !cartWiseRemoved.isEmpty()) {
+                cartWise = mergeCartWise();
+                thresholds = new long[cartWise.length];
+                for (int i = 0; i < cartWise.length; i++) {
+                    thresholds[i] = threshold(cartWise[i]);
+                }
+            }
+            Entry[] unindexed = base.unindexed;
+            if (!unindexedAdded.isEmpty() || !unindexedRemoved.isEmpty()) {
+                List<Entry> entries = new ArrayList<>(unindexed.length + unindexedAdded.size());
+                for (Entry entry : unindexed) {
+                    if (!unindexedRemoved.contains(entry)) {
+                        entries.add(entry);
+                    }
+                }
+                entries.addAll(unindexedAdded);
+                unindexed = entries.toArray(new Entry[0]);
+            }
+            return new Snapshot(base.version + 1, coupons.build(), active.build(),
+                    productWiseByProduct.build(), bxgyByBuyProduct.build(), thresholds, cartWise,
+                    rulesByProduct.build(), collectionWiseByCollection.build(), productSets, unindexed,
+                    expired.build());
+        }
+
+        // One linear merge of the surviving base entries with the sorted additions.
+        private Entry[] mergeCartWise() {
+            cartWiseAdded.sort(CouponCatalog::compareCartWise);
+            Entry[] merged = new Entry[base.cartWiseByThreshold.length - cartWiseRemoved.size() + cartWiseAdded.size()];
+            int size = 0;
+            int added = 0;
+            for (Entry entry : base.cartWiseByThreshold) {
+                if (cartWiseRemoved.contains(entry)) {
+                    continue;
+                }
+                while (added < cartWiseAdded.size() && compareCartWise(cartWiseAdded.get(added), entry) < 0) {
+                    merged[size++] = cartWiseAdded.get(added++);
+                }
+                merged[size++] = entry;
+            }
+            while (added < cartWiseAdded.size()) {
+                merged[size++] = cartWiseAdded.get(added++);
+            }
+            return merged;
+        }
+
+        // Distinct products a bxgy or rule coupon is keyed by, so each per-product list holds it once.
+        private static long[] indexKeys(CouponRule rule) {
+            if (rule instanceof BxGyRule bxgy) {
+                return LongStream.of(bxgy.getBuyProductIds()).distinct().toArray();
+            }
+            if (rule instanceof DslRule dsl && dsl.getIndexProducts() != null) {
+                return LongStream.of(dsl.getIndexProducts()).distinct().toArray();
+            }
+            return null;
+        }
+
+        private static void putOrRemove(ShardedLongMap.Editor<List<Entry>> map, long key, List<Entry> entries) {
+            if (entries == null) {
+                map.remove(key);
+            } else {
+                map.put(key, entries);
+            }
+        }
+    }
+
+    public static final class Entry {
+        private final Coupon coupon;
+        private final CouponRule rule;
+        private final long[] indexKeys;
+
+        Entry(Coupon coupon, CouponRule rule, long[] indexKeys) {
+            this.coupon = coupon;
+            this.rule = rule;
+            this.indexKeys = indexKeys;
+        }
+
+        public Coupon getCoupon() {
+            return coupon;
+        }
+
+        public CouponRule getRule() {
+            return rule;
+        }
+
+        /**
+         * Whether {@code key} is the first of this entry's index keys that {@code cart} contains.
+         */
+        private boolean isFirstKeyIn(CartView cart, long key) {
+            if (indexKeys == null || indexKeys.length == 1) {
+                return true;
+            }
+            for (long other : indexKeys) {
+                if (other == key) {
+                    return true;
+                }
+                if (cart.indexOf(other) >= 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
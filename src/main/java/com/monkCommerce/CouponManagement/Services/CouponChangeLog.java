@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement.Services;
+
+import com.monkCommerce.CouponManagement.Database.CouponChangeDatabase;
+import com.monkCommerce.CouponManagement.Entities.Coupon;
+import com.monkCommerce.CouponManagement.Entities.CouponChange;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Writer side of the coupon change log. Every coupon write records which coupon changed, and
+ * {@link CouponChangeTailer} on each instance replays the log into its local catalog.
+ */
+@Service
+public class CouponChangeLog {
+
+    private static final Logger logger = LoggerFactory.getLogger(CouponChangeLog.class);
+
+    @Autowired
+    private CouponChangeDatabase couponChangeDatabase;
+
+    @Value("${coupon.node-id:}")
+    private String nodeId;
+
+    @Value("${coupon.changes.retention-hours:24}")
+    private long retentionHours;
+
+    @PostConstruct
+    void init() {
+        if (nodeId == null || nodeId.isBlank()) {
+            nodeId = UUID.randomUUID().toString();
+        }
+        logger.info("Recording coupon changes as node {}", nodeId);
+    }
+
+    /**
+     * Identifies the changes written by this instance, which the tailer skips because they were
+     * applied locally already.
+     */
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Must run inside the transaction that writes the coupon, so the change commits or rolls back
+     * with it.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(String operation, Coupon coupon) {
+        couponChangeDatabase.save(new CouponChange(coupon.getId(), operation, nodeId, LocalDateTime.now()));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void appendAll(String operation, Collection<Coupon> coupons) {
+        LocalDateTime now = LocalDateTime.now();
+        List<CouponChange> changes = new ArrayList<>(coupons.size());
+        for (Coupon coupon : coupons) {
+            changes.add(new CouponChange(coupon.getId(), operation, nodeId, now));
+        }
+        couponChangeDatabase.saveAll(changes);
+    }
+
+    /**
+     * Drops changes older than the retention period. An instance that has been down for longer
+     * than that has to start with a fresh catalog, which it does anyway on startup.
+     */
+    @Scheduled(fixedDelayString = "${coupon.changes.purge-interval-ms:3600000}",
+            initialDelayString = "${coupon.changes.purge-interval-ms:3600000}")
+    public void purge() {
+        int purged = couponChangeDatabase.deleteCreatedBefore(LocalDateTime.now().minusHours(retentionHours));
+        if (purged > 0) {
+            logger.info("Purged {} coupon changes older than {} hours", purged, retentionHours);
+        }
+    }
+}
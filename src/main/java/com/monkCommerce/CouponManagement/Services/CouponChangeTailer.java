@@ -0,0 +1,219 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement.Services;
+
+import com.monkCommerce.CouponManagement.Database.CouponChangeDatabase;
+import com.monkCommerce.CouponManagement.Database.CouponDatabase;
+import com.monkCommerce.CouponManagement.Entities.Coupon;
+import com.monkCommerce.CouponManagement.Entities.CouponChange;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps this instance's {@link CouponCatalog} in step with writes made on other instances by
+ * polling the {@link CouponChange} log. Changes only say which coupons changed; their current
+ * rows are read back in one query per poll, so a batch collapses repeated writes to a coupon and
+ * ordering between changes does not matter.
+ * <p>
+ * Sequence numbers are drawn before commit, so a slow transaction can commit a change below the
+ * position already reached. Missing numbers are re-checked on every poll for
+ * {@code coupon.changes.gap-timeout-ms} before being written off as rolled back. Staleness is
+ * therefore bounded by the poll interval for ordinary writes and by the gap timeout for writes
+ * whose transactions commit out of order.
+ */
+@Component
+@ConditionalOnProperty(name = "coupon.changes.tail.enabled", havingValue = "true", matchIfMissing = true)
+public class CouponChangeTailer {
+
+    private static final Logger logger = LoggerFactory.getLogger(CouponChangeTailer.class);
+
+    // A jump larger than this (e.g. sequence values lost on a database restart) is not tracked.
+    static final int MAX_TRACKED_GAPS = 1000;
+
+    @Autowired
+    private CouponChangeDatabase couponChangeDatabase;
+
+    @Autowired
+    private CouponDatabase couponDatabase;
+
+    @Autowired
+    private CouponCatalog couponCatalog;
+
+    @Autowired
+    private CouponRuleCache couponRuleCache;
+
+    @Autowired
+    private CouponChangeLog couponChangeLog;
+
+    @Value("${coupon.changes.batch-size:500}")
+    private int batchSize;
+
+    @Value("${coupon.changes.gap-timeout-ms:10000}")
+    private long gapTimeoutMillis;
+
+    // Only touched by the polling thread
+    private final Map<Long, Long> gaps = new HashMap<>();
+
+    private volatile long position;
+    private volatile long caughtUpAtMillis = System.currentTimeMillis();
+    private volatile long lastDelayMillis;
+    private volatile int pendingGaps;
+    private final LongAdder applied = new LongAdder();
+
+    /**
+     * Starts from the end of the log. This runs before the catalog is first loaded, so every
+     * change the load might miss is still replayed.
+     */
+    @PostConstruct
+    void start() {
+        position = couponChangeDatabase.findLastSeq();
+        logger.info("Tailing coupon changes after sequence {}", position);
+    }
+
+    @Scheduled(fixedDelayString = "${coupon.changes.poll-interval-ms:1000}")
+    public void poll() {
+        try {
+            pollOnce();
+        } catch (RuntimeException e) {
+            logger.error("Error tailing coupon changes after sequence {}: {}", position, e.getMessage());
+        }
+    }
+
+    /**
+     * Reads and applies the next page of changes plus any late commits into earlier gaps.
+     *
+     * @return the number of changes read
+     */
+    synchronized int pollOnce() {
+        long now = System.currentTimeMillis();
+        List<CouponChange> changes = new ArrayList<>();
+        if (!gaps.isEmpty()) {
+            for (CouponChange late : couponChangeDatabase.findBySeqIn(new ArrayList<>(gaps.keySet()))) {
+                gaps.remove(late.getSeq());
+                changes.add(late);
+            }
+            gaps.values().removeIf(firstSeen -> now - firstSeen > gapTimeoutMillis);
+        }
+
+        List<CouponChange> page = couponChangeDatabase.findAfter(position, PageRequest.of(0, batchSize));
+        long expected = position + 1;
+        for (CouponChange change : page) {
+            if (change.getSeq() - expected <= MAX_TRACKED_GAPS - gaps.size()) {
+                for (long missing = expected; missing < change.getSeq(); missing++) {
+                    gaps.put(missing, now);
+                }
+            }
+            expected = change.getSeq() + 1;
+            changes.add(change);
+        }
+
+        apply(changes);
+        if (!page.isEmpty()) {
+            position = page.get(page.size() - 1).getSeq();
+        }
+        if (page.size() < batchSize) {
+            caughtUpAtMillis = now;
+        }
+        pendingGaps = gaps.size();
+        return changes.size();
+    }
+
+    private void apply(List<CouponChange> changes) {
+        Set<Long> couponIds = new HashSet<>();
+        LocalDateTime oldest = null;
+        for (CouponChange change : changes) {
+            // This instance applied its own writes when it made them.
+            if (!couponChangeLog.getNodeId().equals(change.getOrigin())) {
+                couponIds.add(change.getCouponId());
+                if (oldest == null || change.getCreatedAt().isBefore(oldest)) {
+                    oldest = change.getCreatedAt();
+                }
+            }
+        }
+        if (couponIds.isEmpty()) {
+            return;
+        }
+
+        List<Coupon> coupons = couponDatabase.findAllById(couponIds);
+        Set<Long> removedIds = new HashSet<>(couponIds);
+        for (Coupon coupon : coupons) {
+            removedIds.remove(coupon.getId());
+        }
+        removedIds.forEach(couponRuleCache::invalidate);
+        // An unloaded catalog will read the current rows when it loads.
+        if (couponCatalog.version() > 0) {
+            long version = couponCatalog.update(coupons, removedIds);
+            logger.debug("Applied {} coupon changes from other nodes (catalog version {})", couponIds.size(), version);
+        }
+        applied.add(couponIds.size());
+        lastDelayMillis = Math.max(0, Duration.between(oldest, LocalDateTime.now()).toMillis());
+    }
+
+    /**
+     * Sequence number of the last change read.
+     */
+    public long getPosition() {
+        return position;
+    }
+
+    /**
+     * Milliseconds since a poll last reached the end of the log; an upper bound on how stale this
+     * instance's catalog is, apart from changes still inside a gap.
+     */
+    public long getStalenessMillis() {
+        return Math.max(0, System.currentTimeMillis() - caughtUpAtMillis);
+    }
+
+    /**
+     * Time from the oldest change in the most recent applied batch being written on another
+     * instance to it being applied here. Relies on the instances' clocks agreeing.
+     */
+    public long getLastDelayMillis() {
+        return lastDelayMillis;
+    }
+
+    /**
+     * Coupons refreshed from changes made by other instances.
+     */
+    public long getApplied() {
+        return applied.sum();
+    }
+
+    /**
+     * Missing sequence numbers still waiting for a late commit.
+     */
+    public int getPendingGaps() {
+        return pendingGaps;
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement.Services;
+
+import com.monkCommerce.CouponManagement.Database.CouponDatabase;
+import com.monkCommerce.CouponManagement.Entities.Coupon;
+import com.monkCommerce.CouponManagement.Rules.CouponRuleColumns;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Fills the typed rule columns of coupons stored before they existed, from their {@code details}.
+ * Runs once at startup in chunks of {@value #CHUNK_SIZE}, one transaction each, and finds nothing
+ * to do once every row has been migrated. New and updated coupons are handled by
+ * {@link CouponRuleColumns} as they are written.
+ */
+@Component
+public class CouponColumnsBackfill implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(CouponColumnsBackfill.class);
+
+    static final int CHUNK_SIZE = 500;
+
+    @Autowired
+    private CouponDatabase couponDatabase;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        backfill();
+    }
+
+    /**
+     * @return the number of coupons migrated
+     */
+    public long backfill() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        long migrated = 0;
+        long afterId = 0;
+        while (true) {
+            List<Long> ids = couponDatabase.findIdsWithoutRuleType(afterId, PageRequest.of(0, CHUNK_SIZE));
+            if (ids.isEmpty()) {
+                break;
+            }
+            afterId = ids.get(ids.size() - 1);
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    for (Coupon coupon : couponDatabase.findAllById(ids)) {
+                        CouponRuleColumns.write(coupon);
+                    }
+                    entityManager.flush();
+                    entityManager.clear();
+                });
+                migrated += ids.size();
+            } catch (RuntimeException e) {
+                // Typically a concurrent update, which writes the columns itself; the rest are retried on the next start.
+                logger.error("Error migrating coupons up to ID {}: {}", afterId, e.getMessage());
+            }
+        }
+        if (migrated > 0) {
+            logger.info("Migrated {} coupons to typed rule columns", migrated);
+        }
+        return migrated;
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement.Services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.monkCommerce.CouponManagement.DTO.BulkImportResult;
+import com.monkCommerce.CouponManagement.DTO.CouponRequest;
+import com.monkCommerce.CouponManagement.Database.CouponDatabase;
+import com.monkCommerce.CouponManagement.Entities.Coupon;
+import com.monkCommerce.CouponManagement.Entities.CouponChange;
+import com.monkCommerce.CouponManagement.Rules.CouponRule;
+import com.monkCommerce.CouponManagement.Rules.CouponRuleColumns;
+import com.monkCommerce.CouponManagement.Rules.CouponRuleCompiler;
+import com.monkCommerce.CouponManagement.Rules.UnsupportedRule;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bulk coupon import. Rows are read one at a time, validated by compiling their rule, and inserted
+ * in chunks of {@value #CHUNK_SIZE}, one transaction per chunk, so Hibernate can send JDBC batches
+ * (see {@code hibernate.jdbc.batch_size}) and the persistence context is cleared between chunks.
+ */
+@Service
+public class CouponImportServices {
+
+    private static final Logger logger = LoggerFactory.getLogger(CouponImportServices.class);
+
+    static final int CHUNK_SIZE = 1000;
+
+    // Columns: type,details,expirationDate
+    private static final CsvMapper csvMapper = CsvMapper.builder().addModule(new JavaTimeModule()).build();
+
+    @Autowired
+    private CouponDatabase couponDatabase;
+
+    @Autowired
+    private CouponCatalog couponCatalog;
+
+    @Autowired
+    private CouponChangeLog couponChangeLog;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public BulkImportResult importJson(InputStream input) throws IOException {
+        return importRows(objectMapper.readerFor(CouponRequest.class).readValues(input));
+    }
+
+    public BulkImportResult importCsv(InputStream input) throws IOException {
+        return importRows(csvMapper.readerFor(CouponRequest.class)
+                .with(CsvSchema.emptySchema().withHeader())
+                .readValues(input));
+    }
+
+    private BulkImportResult importRows(MappingIterator<CouponRequest> rows) throws IOException {
+        long start = System.nanoTime();
+        BulkImportResult result = new BulkImportResult();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        List<Coupon> chunk = new ArrayList<>(CHUNK_SIZE);
+        long[] chunkRows = new long[CHUNK_SIZE];
+        long row = 0;
+
+        try (rows) {
+            while (true) {
+                CouponRequest couponRequest;
+                try {
+                    if (!rows.hasNextValue()) {
+                        break;
+                    }
+                    couponRequest = rows.nextValue();
+                } catch (JsonProcessingException e) {
+                    // The reader cannot resynchronize after malformed input, so the import stops here.
+                    row++;
+                    logger.error("Error reading coupon import row {}: {}", row, e.getOriginalMessage());
+                    result.addError(row, "Malformed row: " + e.getOriginalMessage());
+                    break;
+                }
+                row++;
+
+                Coupon coupon = new Coupon();
+                coupon.setType(couponRequest.getType());
+                coupon.setDetails(couponRequest.getDetails());
+                coupon.setExpirationDate(couponRequest.getExpirationDate());
+                coupon.setMaxRedemptions(couponRequest.getMaxRedemptions());
+                coupon.setMaxRedemptionsPerCustomer(couponRequest.getMaxRedemptionsPerCustomer());
+                String error = validate(coupon);
+                if (error != null) {
+                    result.addError(row, error);
+                    continue;
+                }
+
+                chunkRows[chunk.size()] = row;
+                chunk.add(coupon);
+                if (chunk.size() == CHUNK_SIZE) {
+                    insert(transactionTemplate, chunk, chunkRows, result);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                insert(transactionTemplate, chunk, chunkRows, result);
+            }
+        }
+
+        long durationNanos = System.nanoTime() - start;
+        result.setReceived(row);
+        result.setDurationMillis(durationNanos / 1_000_000);
+        result.setRowsPerSecond(durationNanos == 0 ? 0.0 : result.getImported() * 1_000_000_000.0 / durationNanos);
+        logger.info("Imported {} of {} coupons in {} ms ({} rows/s)", result.getImported(), row,
+                result.getDurationMillis(), Math.round(result.getRowsPerSecond()));
+        return result;
+    }
+
+    /**
+     * On success the compiled rule is also written to the coupon's typed columns, so inserting it
+     * does not compile the details a second time.
+     */
+    private static String validate(Coupon coupon) {
+        if (coupon.getType() == null || coupon.getType().isBlank()) {
+            return "Coupon type is required";
+        }
+        if ((coupon.getMaxRedemptions() != null && coupon.getMaxRedemptions() < 0)
+                || (coupon.getMaxRedemptionsPerCustomer() != null && coupon.getMaxRedemptionsPerCustomer() < 0)) {
+            return "Redemption limits cannot be negative";
+        }
+        try {
+            CouponRule rule = CouponRuleCompiler.compile(coupon);
+            if (rule instanceof UnsupportedRule) {
+                return "Unknown coupon type: " + coupon.getType();
+            }
+            CouponRuleColumns.write(coupon, rule);
+        } catch (IOException | IllegalArgumentException e) {
+            return "Invalid coupon details: " + e.getMessage();
+        }
+        return null;
+    }
+
+    private void insert(TransactionTemplate transactionTemplate, List<Coupon> chunk, long[] chunkRows,
+                        BulkImportResult result) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                couponDatabase.saveAll(chunk);
+                couponChangeLog.appendAll(CouponChange.UPSERT, chunk);
+                entityManager.flush();
+                entityManager.clear();
+            });
+        } catch (RuntimeException e) {
+            logger.error("Error inserting coupon import chunk: {}", e.getMessage());
+            for (int i = 0; i < chunk.size(); i++) {
+                result.addError(chunkRows[i], "Insert failed: " + e.getMessage());
+            }
+            return;
+        }
+        result.setImported(result.getImported() + chunk.size());
+        couponCatalog.putAll(chunk);
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement.Services;
+
+import com.monkCommerce.CouponManagement.Database.DatabaseAccessLimiter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Catalog gauges, rule and result cache counters and change log lag. They are read from the services on each scrape, so the
+ * services themselves stay free of metrics code.
+ */
+@Component
+public class CouponMeterBinder implements MeterBinder {
+
+    @Autowired
+    private CouponCatalog couponCatalog;
+
+    @Autowired
+    private CouponRuleCache couponRuleCache;
+
+    @Autowired
+    private CouponRedemptionServices couponRedemptionServices;
+
+    @Autowired
+    private AppliedCartCache appliedCartCache;
+
+    @Autowired
+    private ObjectProvider<DatabaseAccessLimiter> databaseAccessLimiter;
+
+    @Autowired
+    private ObjectProvider<CouponChangeTailer> couponChangeTailer;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("coupons.active", couponCatalog, CouponCatalog::size)
+                .description("Unexpired, supported coupons in the eligibility index")
+                .register(registry);
+        Gauge.builder("coupon.catalog.version", couponCatalog, CouponCatalog::version)
+                .description("Version of the published catalog snapshot")
+                .register(registry);
+        Gauge.builder("coupons.expired", couponCatalog, CouponCatalog::expiredSize)
+                .description("Stored coupons whose expiration date has passed, as of the catalog snapshot")
+                .register(registry);
+        Gauge.builder("coupon.rule.cache.size", couponRuleCache, CouponRuleCache::size)
+                .register(registry);
+        FunctionCounter.builder("coupon.rule.cache.requests", couponRuleCache, CouponRuleCache::getHits)
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("coupon.rule.cache.requests", couponRuleCache, CouponRuleCache::getMisses)
+                .tag("result", "miss")
+                .register(registry);
+        for (String type : CouponRuleCache.PARSED_TYPES) {
+            parseFailures(registry, type);
+        }
+        parseFailures(registry, CouponRuleCache.OTHER_TYPE);
+        CaffeineCacheMetrics.monitor(registry, appliedCartCache.getCache(), "coupon.apply");
+
+        redemptions(registry, "committed", CouponRedemptionServices::getCommitted);
+        redemptions(registry, "released", CouponRedemptionServices::getReleased);
+        redemptions(registry, "rejected", CouponRedemptionServices::getRejected);
+        FunctionCounter.builder("coupon.redemption.leases", couponRedemptionServices, CouponRedemptionServices::getLeases)
+                .description("Blocks of redemptions leased from the database")
+                .register(registry);
+        Gauge.builder("coupon.redemptions.unflushed", couponRedemptionServices, CouponRedemptionServices::getUnflushed)
+                .description("Committed redemptions not yet written to the database")
+                .register(registry);
+
+        DatabaseAccessLimiter limiter = databaseAccessLimiter.getIfAvailable();
+        if (limiter != null) {
+            Gauge.builder("coupon.database.permits.available", limiter, DatabaseAccessLimiter::getAvailablePermits)
+                    .register(registry);
+            Gauge.builder("coupon.database.permits.waiting", limiter, DatabaseAccessLimiter::getWaiting)
+                    .register(registry);
+        }
+
+        CouponChangeTailer tailer = couponChangeTailer.getIfAvailable();
+        if (tailer != null) {
+            Gauge.builder("coupon.changes.position", tailer, CouponChangeTailer::getPosition)
+                    .description("Sequence number of the last coupon change read from the change log")
+                    .register(registry);
+            TimeGauge.builder("coupon.changes.staleness", tailer, TimeUnit.MILLISECONDS, CouponChangeTailer::getStalenessMillis)
+                    .description("Time since the change log was last read to the end")
+                    .register(registry);
+            TimeGauge.builder("coupon.changes.delay", tailer, TimeUnit.MILLISECONDS, CouponChangeTailer::getLastDelayMillis)
+                    .description("Delay between a change being written on another node and applied here, for the last batch")
+                    .register(registry);
+            Gauge.builder("coupon.changes.gaps", tailer, CouponChangeTailer::getPendingGaps)
+                    .description("Sequence numbers still waiting for a late commit")
+                    .register(registry);
+            FunctionCounter.builder("coupon.changes.applied", tailer, CouponChangeTailer::getApplied)
+                    .description("Coupons refreshed from changes made by other nodes")
+                    .register(registry);
+        }
+    }
+
+    private void redemptions(MeterRegistry registry, String result, ToDoubleFunction<CouponRedemptionServices> count) {
+        FunctionCounter.builder("coupon.redemptions", couponRedemptionServices, count)
+                .description("Redemption reservations by outcome")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    private void parseFailures(MeterRegistry registry, String type) {
+        FunctionCounter.builder("coupon.details.parse.failures", couponRuleCache, cache -> cache.getParseFailures(type))
+                .description("Coupon details that could not be compiled into a rule")
+                .tag("type", type)
+                .register(registry);
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement.Services;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency and work counters for cart evaluation. Every meter is created up front or once per
+ * coupon type, so recording is a map lookup and a few atomic adds.
+ */
+@Component
+public class CouponMetrics {
+
+    public static final String APPLICABLE = "applicable";
+    public static final String APPLY = "apply";
+    public static final String BEST = "best";
+    public static final String REDEEM = "redeem";
+
+    private final MeterRegistry registry;
+    private final Map<String, Timer> requestTimers;
+    private final Map<String, DistributionSummary> evaluated;
+    private final Map<String, DistributionSummary> matched;
+    private final Map<String, Timer> applyTimers = new ConcurrentHashMap<>();
+
+    @Autowired
+    public CouponMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.requestTimers = Map.of(
+                APPLICABLE, requestTimer(APPLICABLE), APPLY, requestTimer(APPLY), BEST, requestTimer(BEST),
+                REDEEM, requestTimer(REDEEM));
+        this.evaluated = Map.of(
+                APPLICABLE, candidates("coupon.candidates.evaluated", APPLICABLE),
+                BEST, candidates("coupon.candidates.evaluated", BEST));
+        this.matched = Map.of(
+                APPLICABLE, candidates("coupon.candidates.matched", APPLICABLE),
+                BEST, candidates("coupon.candidates.matched", BEST));
+    }
+
+    /**
+     * Records one evaluation request. {@code candidates} and {@code matched} are ignored for
+     * {@link #APPLY} and {@link #REDEEM}, which always evaluate exactly one coupon.
+     */
+    public void recordRequest(String operation, long startNanos, int candidates, int matched) {
+        requestTimers.get(operation).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        DistributionSummary evaluatedSummary = evaluated.get(operation);
+        if (evaluatedSummary != null) {
+            evaluatedSummary.record(candidates);
+            this.matched.get(operation).record(matched);
+        }
+    }
+
+    /**
+     * Records how long writing one coupon's discount into a cart took.
+     */
+    public void recordApply(String type, long startNanos) {
+        applyTimers.computeIfAbsent(type == null ? CouponRuleCache.OTHER_TYPE : type, this::applyTimer)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private Timer requestTimer(String operation) {
+        return Timer.builder("coupon.evaluation")
+                .description("Time to evaluate a cart against the coupon catalog")
+                .tag("operation", operation)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(10_000))
+                .maximumExpectedValue(Duration.ofSeconds(5))
+                .register(registry);
+    }
+
+    private Timer applyTimer(String type) {
+        return Timer.builder("coupon.apply")
+                .description("Time to apply one coupon to a cart")
+                .tag("type", type)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(100))
+                .maximumExpectedValue(Duration.ofMillis(100))
+                .register(registry);
+    }
+
+    private DistributionSummary candidates(String name, String operation) {
+        return DistributionSummary.builder(name)
+                .description("Coupons per request")
+                .baseUnit("coupons")
+                .tag("operation", operation)
+                .publishPercentileHistogram()
+                .maximumExpectedValue(1_000_000.0)
+                .register(registry);
+    }
+}
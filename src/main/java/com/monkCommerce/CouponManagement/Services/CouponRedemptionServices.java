@@ -0,0 +1,348 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement.Services;
+
+import com.monkCommerce.CouponManagement.Database.CouponRedemptionDatabase;
+import com.monkCommerce.CouponManagement.Database.CustomerRedemptionDatabase;
+import com.monkCommerce.CouponManagement.Entities.Coupon;
+import com.monkCommerce.CouponManagement.Entities.CouponRedemption;
+import com.monkCommerce.CouponManagement.Entities.CustomerRedemption;
+import com.monkCommerce.CouponManagement.Exceptions.RedemptionLimitException;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Enforces {@link Coupon#getMaxRedemptions() global} and
+ * {@link Coupon#getMaxRedemptionsPerCustomer() per-customer} redemption caps with a
+ * reserve/commit/release protocol: a {@link Reservation} holds one redemption while the coupon is
+ * redeemed, and is then either committed or released. {@link #check} answers whether a redemption
+ * could be reserved without taking one, for pricing a cart that is not being checked out.
+ * <p>
+ * The global cap is leased out to instances in blocks: the {@code coupon_redemption} row records
+ * how many redemptions have been leased, and a lease is a compare-and-set that never takes it past
+ * the cap. Reservations are then served from an in-memory {@link StripedQuota} without touching the
+ * database, so a hot coupon costs one row update per block instead of a row lock per redemption.
+ * Committed counts are written back every {@code coupon.redemptions.flush-interval-ms}, and leases
+ * an instance stops using are returned after {@code coupon.redemptions.lease-idle-ms}.
+ * <p>
+ * On a clean shutdown every count is flushed and every unused lease returned. After a crash the
+ * unflushed counts and unused leases of that instance are lost: {@code redeemed} falls short, but
+ * the lost leases stay counted against the cap, so it is undersold by at most one lease rather
+ * than oversold.
+ * <p>
+ * Per-customer caps are counted synchronously on a row per customer and coupon. Only redemptions
+ * by the same customer contend for it, and counting it in memory would let a customer exceed the
+ * cap by spreading requests over instances.
+ */
+@Service
+public class CouponRedemptionServices {
+
+    private static final Logger logger = LoggerFactory.getLogger(CouponRedemptionServices.class);
+
+    // Near the cap, leases shrink to this fraction of what is left, so one instance does not hold it all.
+    static final int LEASE_FRACTION = 8;
+
+    private static final int STRIPES = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors()) * 2);
+
+    @Autowired
+    private CouponRedemptionDatabase couponRedemptionDatabase;
+
+    @Autowired
+    private CustomerRedemptionDatabase customerRedemptionDatabase;
+
+    @Value("${coupon.redemptions.lease-size:100}")
+    private long leaseSize;
+
+    @Value("${coupon.redemptions.lease-idle-ms:30000}")
+    private long leaseIdleMillis;
+
+    private final Map<Long, Quota> quotas = new ConcurrentHashMap<>();
+    private final LongAdder committed = new LongAdder();
+    private final LongAdder released = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder leases = new LongAdder();
+
+    /**
+     * Fails like {@link #reserve} would, but takes nothing. The global cap is read from this
+     * instance's lease and only goes to the database once the lease is used up; the per-customer
+     * cap reads the customer's row.
+     *
+     * @throws RedemptionLimitException if a cap has been reached, or the coupon has a per-customer
+     *                                  cap and {@code customerId} is missing
+     */
+    public void check(Coupon coupon, String customerId) {
+        Long maxRedemptions = coupon.getMaxRedemptions();
+        Integer maxPerCustomer = coupon.getMaxRedemptionsPerCustomer();
+        if (maxRedemptions == null && maxPerCustomer == null) {
+            return;
+        }
+        if (maxPerCustomer != null && (customerId == null || customerId.isBlank())) {
+            throw new RedemptionLimitException("Coupon is limited per customer; customerId is required");
+        }
+        if (maxRedemptions != null && !hasRedemptionsLeft(coupon.getId(), maxRedemptions)) {
+            throw new RedemptionLimitException("Coupon redemption limit reached");
+        }
+        if (maxPerCustomer != null && customerRedemptionDatabase
+                .findById(new CustomerRedemption.Key(coupon.getId(), customerId))
+                .map(redemption -> redemption.getRedeemed() >= maxPerCustomer)
+                .orElse(false)) {
+            throw new RedemptionLimitException("Customer redemption limit reached");
+        }
+    }
+
+    /**
+     * @throws RedemptionLimitException if a cap has been reached, or the coupon has a per-customer
+     *                                  cap and {@code customerId} is missing
+     */
+    public Reservation reserve(Coupon coupon, String customerId) {
+        Long maxRedemptions = coupon.getMaxRedemptions();
+        Integer maxPerCustomer = coupon.getMaxRedemptionsPerCustomer();
+        if (maxRedemptions == null && maxPerCustomer == null) {
+            return Reservation.UNLIMITED;
+        }
+        if (maxPerCustomer != null && (customerId == null || customerId.isBlank())) {
+            throw new RedemptionLimitException("Coupon is limited per customer; customerId is required");
+        }
+
+        Quota quota = null;
+        if (maxRedemptions != null) {
+            quota = quotas.computeIfAbsent(coupon.getId(), id -> new Quota());
+            if (!acquire(coupon.getId(), quota, maxRedemptions)) {
+                rejected.increment();
+                logger.info("Coupon with ID: {} reached its redemption limit of {}", coupon.getId(), maxRedemptions);
+                throw new RedemptionLimitException("Coupon redemption limit reached");
+            }
+        }
+        if (maxPerCustomer != null && !incrementCustomer(coupon.getId(), customerId, maxPerCustomer)) {
+            if (quota != null) {
+                quota.available.release();
+            }
+            rejected.increment();
+            throw new RedemptionLimitException("Customer redemption limit reached");
+        }
+        return new Reservation(coupon.getId(), quota, maxPerCustomer != null ? customerId : null);
+    }
+
+    public void commit(Reservation reservation) {
+        if (reservation.quota != null) {
+            reservation.quota.unflushed.increment();
+        }
+        if (reservation != Reservation.UNLIMITED) {
+            committed.increment();
+        }
+    }
+
+    public void release(Reservation reservation) {
+        if (reservation.quota != null) {
+            reservation.quota.available.release();
+        }
+        if (reservation.customerId != null) {
+            customerRedemptionDatabase.decrement(reservation.couponId, reservation.customerId);
+        }
+        if (reservation != Reservation.UNLIMITED) {
+            released.increment();
+        }
+    }
+
+    /**
+     * Writes committed counts back and returns leases that have not been used for a while.
+     */
+    @Scheduled(fixedDelayString = "${coupon.redemptions.flush-interval-ms:1000}")
+    public void flush() {
+        long now = System.currentTimeMillis();
+        for (Map.Entry<Long, Quota> entry : quotas.entrySet()) {
+            flushCounts(entry.getKey(), entry.getValue());
+            if (now - entry.getValue().lastUsedMillis > leaseIdleMillis) {
+                returnLease(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        for (Map.Entry<Long, Quota> entry : quotas.entrySet()) {
+            flushCounts(entry.getKey(), entry.getValue());
+            returnLease(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private boolean acquire(Long couponId, Quota quota, long maxRedemptions) {
+        quota.lastUsedMillis = System.currentTimeMillis();
+        if (quota.available.tryAcquire()) {
+            return true;
+        }
+        // One lease at a time per coupon; everyone else waits for it instead of leasing too.
+        synchronized (quota) {
+            if (quota.available.tryAcquire()) {
+                return true;
+            }
+            long granted = lease(couponId, maxRedemptions);
+            if (granted == 0) {
+                return false;
+            }
+            quota.available.add(granted - 1);
+            return true;
+        }
+    }
+
+    private boolean hasRedemptionsLeft(Long couponId, long maxRedemptions) {
+        Quota quota = quotas.get(couponId);
+        if (quota != null && quota.available.available() > 0) {
+            return true;
+        }
+        return couponRedemptionDatabase.findById(couponId)
+                .map(redemption -> redemption.getLeased() < maxRedemptions)
+                .orElse(maxRedemptions > 0);
+    }
+
+    /**
+     * @return how many redemptions were leased; 0 once the cap is reached
+     */
+    private long lease(Long couponId, long maxRedemptions) {
+        while (true) {
+            CouponRedemption redemption = couponRedemptionDatabase.findById(couponId).orElse(null);
+            if (redemption == null) {
+                try {
+                    couponRedemptionDatabase.insertIfAbsent(couponId);
+                } catch (DataIntegrityViolationException e) {
+                    // Another instance created it first.
+                }
+                continue;
+            }
+            long remaining = maxRedemptions - redemption.getLeased();
+            if (remaining <= 0) {
+                return 0;
+            }
+            long granted = Math.min(leaseSize, Math.max(1, remaining / LEASE_FRACTION));
+            if (couponRedemptionDatabase.lease(couponId, redemption.getLeased(), granted) == 1) {
+                leases.increment();
+                logger.debug("Leased {} redemptions of coupon with ID: {}", granted, couponId);
+                return granted;
+            }
+        }
+    }
+
+    private boolean incrementCustomer(Long couponId, String customerId, int maxPerCustomer) {
+        if (customerRedemptionDatabase.increment(couponId, customerId, maxPerCustomer) == 1) {
+            return true;
+        }
+        try {
+            customerRedemptionDatabase.insertIfAbsent(couponId, customerId);
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent request by the same customer created it first.
+        }
+        return customerRedemptionDatabase.increment(couponId, customerId, maxPerCustomer) == 1;
+    }
+
+    private void flushCounts(Long couponId, Quota quota) {
+        long count = quota.unflushed.sumThenReset();
+        if (count == 0) {
+            return;
+        }
+        try {
+            couponRedemptionDatabase.addRedeemed(couponId, count);
+        } catch (RuntimeException e) {
+            quota.unflushed.add(count);
+            logger.error("Error flushing {} redemptions of coupon with ID: {}: {}", count, couponId, e.getMessage());
+        }
+    }
+
+    private void returnLease(Long couponId, Quota quota) {
+        synchronized (quota) {
+            long unused = quota.available.drain();
+            if (unused == 0) {
+                return;
+            }
+            try {
+                couponRedemptionDatabase.returnLease(couponId, unused);
+                logger.debug("Returned {} unused redemptions of coupon with ID: {}", unused, couponId);
+            } catch (RuntimeException e) {
+                quota.available.add(unused);
+                logger.error("Error returning {} leased redemptions of coupon with ID: {}: {}", unused, couponId, e.getMessage());
+            }
+        }
+    }
+
+    public long getCommitted() {
+        return committed.sum();
+    }
+
+    public long getReleased() {
+        return released.sum();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public long getLeases() {
+        return leases.sum();
+    }
+
+    /**
+     * Committed redemptions not yet written to the database.
+     */
+    public long getUnflushed() {
+        long unflushed = 0;
+        for (Quota quota : quotas.values()) {
+            unflushed += quota.unflushed.sum();
+        }
+        return unflushed;
+    }
+
+    /**
+     * Leased redemptions this instance can still hand out for {@code couponId}.
+     */
+    public long getAvailable(Long couponId) {
+        Quota quota = quotas.get(couponId);
+        return quota == null ? 0 : quota.available.available();
+    }
+
+    private static final class Quota {
+        private final StripedQuota available = new StripedQuota(STRIPES);
+        private final LongAdder unflushed = new LongAdder();
+        private volatile long lastUsedMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * One redemption held while a coupon is redeemed. Must be committed or released exactly once.
+     */
+    public static final class Reservation {
+
+        static final Reservation UNLIMITED = new Reservation(null, null, null);
+
+        private final Long couponId;
+        private final Quota quota;
+        private final String customerId;
+
+        private Reservation(Long couponId, Quota quota, String customerId) {
+            this.couponId = couponId;
+            this.quota = quota;
+            this.customerId = customerId;
+        }
+    }
+}
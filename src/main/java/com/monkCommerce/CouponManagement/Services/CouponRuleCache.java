@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement.Services;
+
+import com.monkCommerce.CouponManagement.Entities.Coupon;
+import com.monkCommerce.CouponManagement.Rules.CouponRule;
+import com.monkCommerce.CouponManagement.Rules.CouponRuleCompiler;
+import com.monkCommerce.CouponManagement.Rules.ProductSets;
+import com.monkCommerce.CouponManagement.Rules.UnsupportedRule;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caches the compiled {@link CouponRule} of every coupon by id. An entry is only reused while its
+ * version matches the coupon's, and {@link CouponServices} evicts entries on every write.
+ * Hit, miss and parse failure counts are kept in {@link LongAdder}s and published by
+ * {@link CouponMeterBinder}.
+ * <p>
+ * Collection-wise rules resolve their products against {@link #getProductSets()}, which
+ * {@link ProductCollectionServices} keeps current; membership changes do not invalidate rules.
+ */
+@Service
+public class CouponRuleCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(CouponRuleCache.class);
+
+    /** Coupon types parse failures are counted under; anything else counts as {@link #OTHER_TYPE}. */
+    public static final List<String> PARSED_TYPES = List.of(
+            CouponRuleCompiler.CART_WISE, CouponRuleCompiler.PRODUCT_WISE, CouponRuleCompiler.BXGY,
+            CouponRuleCompiler.RULE, CouponRuleCompiler.COLLECTION_WISE);
+    public static final String OTHER_TYPE = "other";
+
+    private final Map<Long, CouponRule> rules = new ConcurrentHashMap<>();
+    private final ProductSets productSets = new ProductSets();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final Map<String, LongAdder> parseFailures = Map.of(
+            CouponRuleCompiler.CART_WISE, new LongAdder(),
+            CouponRuleCompiler.PRODUCT_WISE, new LongAdder(),
+            CouponRuleCompiler.BXGY, new LongAdder(),
+            CouponRuleCompiler.RULE, new LongAdder(),
+            CouponRuleCompiler.COLLECTION_WISE, new LongAdder(),
+            OTHER_TYPE, new LongAdder());
+
+    public CouponRule get(Coupon coupon) {
+        if (coupon.getId() == null) {
+            return compile(coupon);
+        }
+        CouponRule rule = rules.get(coupon.getId());
+        if (rule != null && Objects.equals(rule.getVersion(), coupon.getVersion())) {
+            hits.increment();
+            return rule;
+        }
+        misses.increment();
+        rule = compile(coupon);
+        rules.put(coupon.getId(), rule);
+        return rule;
+    }
+
+    public void invalidate(Long id) {
+        rules.remove(id);
+    }
+
+    public ProductSets getProductSets() {
+        return productSets;
+    }
+
+    public int size() {
+        return rules.size();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @param type one of {@link #PARSED_TYPES} or {@link #OTHER_TYPE}
+     */
+    public long getParseFailures(String type) {
+        return parseFailures.get(type).sum();
+    }
+
+    private CouponRule compile(Coupon coupon) {
+        try {
+            return CouponRuleCompiler.compile(coupon, productSets);
+        } catch (IOException | IllegalArgumentException e) {
+            logger.error("Error parsing coupon details: {}", e.getMessage());
+            parseFailures.getOrDefault(coupon.getType() == null ? OTHER_TYPE : coupon.getType(),
+                    parseFailures.get(OTHER_TYPE)).increment();
+            return new UnsupportedRule(coupon.getId(), coupon.getVersion(),
+                    CouponRuleCompiler.expiresAtMillis(coupon), coupon.getType());
+        }
+    }
+}
@@ -16,64 +16,194 @@
 
 package com.monkCommerce.CouponManagement.Services;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.monkCommerce.CouponManagement.DTO.CouponFilter;
 import com.monkCommerce.CouponManagement.DTO.CouponRequest;
 import com.monkCommerce.CouponManagement.Database.CouponDatabase;
 import com.monkCommerce.CouponManagement.Entities.Coupon;
+import com.monkCommerce.CouponManagement.Entities.CouponChange;
 import com.monkCommerce.CouponManagement.Exceptions.CouponExceptions;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 @Service
 public class CouponServices {
 
     private static final Logger logger = LoggerFactory.getLogger(CouponServices.class);
 
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    private static final int EXPORT_FLUSH_EVERY = 500;
+
     @Autowired
     private CouponDatabase couponDatabase;
 
+    @Autowired
+    private CouponRuleCache couponRuleCache;
+
+    @Autowired
+    private CouponCatalog couponCatalog;
+
+    @Autowired
+    private CouponChangeLog couponChangeLog;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
     public Coupon createCoupon(CouponRequest couponRequest) {
         logger.debug("Creating coupon with details: {}", couponRequest);
         Coupon coupon = new Coupon();
         coupon.setType(couponRequest.getType());
         coupon.setDetails(couponRequest.getDetails());
         coupon.setExpirationDate(couponRequest.getExpirationDate());
-        Coupon savedCoupon = couponDatabase.save(coupon);
+        coupon.setMaxRedemptions(couponRequest.getMaxRedemptions());
+        coupon.setMaxRedemptionsPerCustomer(couponRequest.getMaxRedemptionsPerCustomer());
+        Coupon savedCoupon = inTransaction(() -> {
+            Coupon saved = couponDatabase.save(coupon);
+            couponChangeLog.append(CouponChange.UPSERT, saved);
+            return saved;
+        });
+        couponRuleCache.invalidate(savedCoupon.getId());
+        couponCatalog.put(savedCoupon);
         logger.info("Coupon created with ID: {}", savedCoupon.getId());
-        return couponDatabase.save(coupon);
+        return savedCoupon;
     }
 
-    public List<Coupon> getAllCoupons() {
+    /**
+     * Every coupon matching {@code filter}, in id order. Prefer {@link #getCoupons} or
+     * {@link #exportCoupons} for large catalogs.
+     */
+    public List<Coupon> getAllCoupons(CouponFilter filter) {
         logger.debug("Retrieving all coupons");
-        return couponDatabase.findAll();
+        return couponDatabase.findPage(0L, filter.getType(), filter.getExpiresFrom(), filter.getExpiresTo(),
+                Pageable.unpaged());
     }
 
+    /**
+     * One keyset page of coupons with an id greater than {@code afterId}, in id order. The id of the
+     * last coupon is the cursor for the next page.
+     */
+    public List<Coupon> getCoupons(Long afterId, int limit, CouponFilter filter) {
+        int pageSize = pageSize(limit);
+        logger.debug("Retrieving up to {} coupons after ID: {}", pageSize, afterId);
+        return couponDatabase.findPage(afterId == null ? 0L : afterId, filter.getType(),
+                filter.getExpiresFrom(), filter.getExpiresTo(), PageRequest.of(0, pageSize));
+    }
+
+    public static int pageSize(int limit) {
+        return Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+    }
+
+    /**
+     * Writes every coupon matching {@code filter} to {@code output} as NDJSON while reading them from a
+     * database cursor. Each row is detached once written, so memory stays flat regardless of catalog size.
+     *
+     * @return the number of coupons written
+     */
+    @Transactional(readOnly = true)
+    public long exportCoupons(CouponFilter filter, OutputStream output) throws IOException {
+        logger.debug("Exporting coupons");
+        ObjectWriter writer = objectMapper.writerFor(Coupon.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        long count = 0;
+        try (Stream<Coupon> coupons = couponDatabase.streamAll(filter.getType(), filter.getExpiresFrom(), filter.getExpiresTo());
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(output)) {
+            generator.setRootValueSeparator(null);
+            Iterator<Coupon> iterator = coupons.iterator();
+            while (iterator.hasNext()) {
+                Coupon coupon = iterator.next();
+                writer.writeValue(generator, coupon);
+                generator.writeRaw('\n');
+                entityManager.detach(coupon);
+                if (++count % EXPORT_FLUSH_EVERY == 0) {
+                    generator.flush();
+                }
+            }
+        }
+        logger.info("Exported {} coupons", count);
+        return count;
+    }
+
+    /**
+     * Served from the catalog; the database is only asked for coupons the catalog does not know.
+     * The returned coupon is shared with the catalog and must not be modified.
+     */
     public Coupon getCouponById(Long id) {
         logger.debug("Retrieving coupon with ID: {}", id);
-        return couponDatabase.findById(id).orElseThrow(() -> {
-            logger.error("Coupon not found with ID: {}", id);
-            return new CouponExceptions("Coupon not found");
-        });
+        Coupon coupon = couponCatalog.snapshot().getCoupon(id);
+        return coupon != null ? coupon : findCoupon(id);
     }
 
     public Coupon updateCoupon(Long id, CouponRequest couponRequest) {
         logger.debug("Updating coupon with ID: {}", id);
-        Coupon coupon = getCouponById(id);
-        coupon.setType(couponRequest.getType());
-        coupon.setDetails(couponRequest.getDetails());
-        coupon.setExpirationDate(couponRequest.getExpirationDate());
-        Coupon updatedCoupon = couponDatabase.save(coupon);
+        Coupon updatedCoupon = inTransaction(() -> {
+            Coupon coupon = findCoupon(id);
+            coupon.setType(couponRequest.getType());
+            coupon.setDetails(couponRequest.getDetails());
+            coupon.setExpirationDate(couponRequest.getExpirationDate());
+            coupon.setMaxRedemptions(couponRequest.getMaxRedemptions());
+            coupon.setMaxRedemptionsPerCustomer(couponRequest.getMaxRedemptionsPerCustomer());
+            Coupon saved = couponDatabase.save(coupon);
+            couponChangeLog.append(CouponChange.UPSERT, saved);
+            return saved;
+        });
+        couponRuleCache.invalidate(updatedCoupon.getId());
+        couponCatalog.put(updatedCoupon);
         logger.info("Coupon updated with ID: {}", updatedCoupon.getId());
-        return couponDatabase.save(coupon);
+        return updatedCoupon;
     }
 
     public void deleteCoupon(Long id) {
         logger.debug("Deleting coupon with ID: {}", id);
-        Coupon coupon = getCouponById(id);
-        couponDatabase.delete(coupon);
+        inTransaction(() -> {
+            Coupon coupon = findCoupon(id);
+            couponDatabase.delete(coupon);
+            couponChangeLog.append(CouponChange.DELETE, coupon);
+            return coupon;
+        });
+        couponRuleCache.invalidate(id);
+        couponCatalog.remove(id);
         logger.info("Coupon deleted with ID: {}", id);
     }
+
+    /**
+     * Runs a write together with its change log entry. The catalog is only updated once the
+     * transaction has committed.
+     */
+    private <T> T inTransaction(Supplier<T> write) {
+        return new TransactionTemplate(transactionManager).execute(status -> write.get());
+    }
+
+    private Coupon findCoupon(Long id) {
+        return couponDatabase.findById(id).orElseThrow(() -> {
+            logger.error("Coupon not found with ID: {}", id);
+            return new CouponExceptions("Coupon not found");
+        });
+    }
 }
\ No newline at end of file
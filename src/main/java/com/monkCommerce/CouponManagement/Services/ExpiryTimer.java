@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement.Services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+
+/**
+ * Hands items to a callback at their wall-clock deadline, using a min-heap drained by a single
+ * daemon thread. Items that fall due together (e.g. a campaign ending at midnight) are delivered
+ * in one call, so the callback can apply them as one change. The callback runs outside the
+ * timer's lock, so it may take other locks (and schedule more items). There is no cancel: the
+ * callback is expected to check whether an item still applies when it fires.
+ */
+final class ExpiryTimer<T> {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExpiryTimer.class);
+
+    private final String name;
+    private final Consumer<List<T>> onExpired;
+    private final PriorityQueue<Task<T>> queue = new PriorityQueue<>(Comparator.comparingLong(Task::deadlineMillis));
+    private Thread thread;
+    private boolean stopped;
+
+    ExpiryTimer(String name, Consumer<List<T>> onExpired) {
+        this.name = name;
+        this.onExpired = onExpired;
+    }
+
+    synchronized void schedule(long deadlineMillis, T item) {
+        if (stopped) {
+            return;
+        }
+        Task<T> task = new Task<>(deadlineMillis, item);
+        queue.add(task);
+        if (thread == null) {
+            thread = new Thread(this::run, name);
+            thread.setDaemon(true);
+            thread.start();
+        } else if (queue.peek() == task) {
+            notifyAll();
+        }
+    }
+
+    synchronized int pending() {
+        return queue.size();
+    }
+
+    synchronized void stop() {
+        stopped = true;
+        queue.clear();
+        notifyAll();
+    }
+
+    private void run() {
+        List<T> due = new ArrayList<>();
+        while (true) {
+            synchronized (this) {
+                try {
+                    while (!stopped && due.isEmpty()) {
+                        Task<T> head = queue.peek();
+                        long delay = head == null ? 0 : head.deadlineMillis() - System.currentTimeMillis();
+                        if (head == null) {
+                            wait();
+                        } else if (delay > 0) {
+                            wait(delay);
+                        } else {
+                            while (!queue.isEmpty() && queue.peek().deadlineMillis() <= System.currentTimeMillis()) {
+                                due.add(queue.poll().item());
+                            }
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                if (stopped) {
+                    return;
+                }
+            }
+            try {
+                onExpired.accept(List.copyOf(due));
+            } catch (RuntimeException e) {
+                logger.error("Expiry action failed: {}", e.getMessage());
+            }
+            due.clear();
+        }
+    }
+
+    private record Task<T>(long deadlineMillis, T item) {
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement.Services;
+
+import com.monkCommerce.CouponManagement.Database.ProductCollectionDatabase;
+import com.monkCommerce.CouponManagement.Database.ProductCollectionMemberDatabase;
+import com.monkCommerce.CouponManagement.Entities.ProductCollection;
+import com.monkCommerce.CouponManagement.Entities.ProductCollectionMember;
+import com.monkCommerce.CouponManagement.Exceptions.CouponExceptions;
+import com.monkCommerce.CouponManagement.Rules.ProductSets;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Product collections targeted by collection-wise coupons. Membership is stored in
+ * {@code product_collection_member} and mirrored into the {@link ProductSets} of
+ * {@link CouponRuleCache}, which compiled rules read on every evaluation.
+ * <p>
+ * Writes on this instance are applied to the bitmaps incrementally once they commit. Other
+ * instances notice them because each write bumps the collection's version; {@link #poll()} reloads
+ * any collection whose version differs from the one loaded here, so memberships converge within
+ * {@code coupon.collections.poll-interval-ms}.
+ */
+@Service
+public class ProductCollectionServices {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductCollectionServices.class);
+
+    // Keeps IN lists within what every database accepts.
+    static final int CHUNK_SIZE = 1000;
+
+    @Autowired
+    private ProductCollectionDatabase productCollectionDatabase;
+
+    @Autowired
+    private ProductCollectionMemberDatabase productCollectionMemberDatabase;
+
+    @Autowired
+    private CouponRuleCache couponRuleCache;
+
+    @Autowired
+    private AppliedCartCache appliedCartCache;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Version of each collection the bitmaps reflect. Only touched while holding this object's lock.
+    private final Map<Long, Long> loadedVersions = new HashMap<>();
+
+    @PostConstruct
+    void load() {
+        logger.info("Loaded {} product collections", refresh());
+    }
+
+    public synchronized ProductCollection addProducts(Long collectionId, List<Long> productIds) {
+        Set<Long> added = new LinkedHashSet<>(productIds);
+        long version = inTransaction(() -> {
+            productCollectionDatabase.insertIfAbsent(collectionId);
+            productCollectionDatabase.incrementVersion(collectionId);
+            for (List<Long> chunk : chunks(added)) {
+                Set<Long> existing = new HashSet<>(productCollectionMemberDatabase.findProductIdsIn(collectionId, chunk));
+                for (Long productId : chunk) {
+                    if (!existing.contains(productId)) {
+                        entityManager.persist(new ProductCollectionMember(collectionId, productId));
+                    }
+                }
+            }
+            return productCollectionDatabase.findVersion(collectionId);
+        });
+        couponRuleCache.getProductSets().add(collectionId, added);
+        applied(collectionId, version);
+        logger.info("Added {} products to collection {} (version {})", added.size(), collectionId, version);
+        return collection(collectionId, version);
+    }
+
+    public synchronized ProductCollection removeProducts(Long collectionId, List<Long> productIds) {
+        Set<Long> removed = new LinkedHashSet<>(productIds);
+        long version = inTransaction(() -> {
+            if (productCollectionDatabase.incrementVersion(collectionId) == 0) {
+                throw new CouponExceptions("Product collection not found");
+            }
+            for (List<Long> chunk : chunks(removed)) {
+                productCollectionMemberDatabase.deleteProducts(collectionId, chunk);
+            }
+            return productCollectionDatabase.findVersion(collectionId);
+        });
+        couponRuleCache.getProductSets().remove(collectionId, removed);
+        applied(collectionId, version);
+        logger.info("Removed {} products from collection {} (version {})", removed.size(), collectionId, version);
+        return collection(collectionId, version);
+    }
+
+    public List<Long> getProducts(Long collectionId) {
+        if (!productCollectionDatabase.existsById(collectionId)) {
+            logger.error("Product collection not found with ID: {}", collectionId);
+            throw new CouponExceptions("Product collection not found");
+        }
+        return productCollectionMemberDatabase.findProductIds(collectionId);
+    }
+
+    @Scheduled(fixedDelayString = "${coupon.collections.poll-interval-ms:1000}")
+    public void poll() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            logger.error("Error refreshing product collections: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Reloads every collection changed since it was last loaded here.
+     *
+     * @return the number of collections reloaded
+     */
+    synchronized int refresh() {
+        int reloaded = 0;
+        for (ProductCollection collection : productCollectionDatabase.findAll()) {
+            Long loaded = loadedVersions.get(collection.getId());
+            if (loaded == null || loaded != collection.getVersion()) {
+                // Members may already include later changes; the next poll then reloads once more.
+                couponRuleCache.getProductSets().replace(collection.getId(),
+                        productCollectionMemberDatabase.findProductIds(collection.getId()));
+                loadedVersions.put(collection.getId(), collection.getVersion());
+                reloaded++;
+            }
+        }
+        if (reloaded > 0) {
+            appliedCartCache.invalidateAll();
+            logger.debug("Reloaded {} product collections", reloaded);
+        }
+        return reloaded;
+    }
+
+    /**
+     * Records a local write. If another instance wrote in between, the bitmap is missing its change,
+     * so the loaded version is left behind and the next poll reloads the collection.
+     */
+    private void applied(Long collectionId, long version) {
+        long loaded = loadedVersions.getOrDefault(collectionId, 0L);
+        if (loaded == version - 1) {
+            loadedVersions.put(collectionId, version);
+        }
+        appliedCartCache.invalidateAll();
+    }
+
+    private ProductCollection collection(Long collectionId, long version) {
+        ProductCollection collection = new ProductCollection(collectionId, version);
+        collection.setSize(couponRuleCache.getProductSets().get(collectionId).size());
+        return collection;
+    }
+
+    private <T> T inTransaction(Supplier<T> write) {
+        return new TransactionTemplate(transactionManager).execute(status -> write.get());
+    }
+
+    private static List<List<Long>> chunks(Set<Long> productIds) {
+        List<List<Long>> chunks = new ArrayList<>();
+        List<Long> chunk = new ArrayList<>(CHUNK_SIZE);
+        for (Long productId : productIds) {
+            chunk.add(productId);
+            if (chunk.size() == CHUNK_SIZE) {
+                chunks.add(chunk);
+                chunk = new ArrayList<>(CHUNK_SIZE);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+}
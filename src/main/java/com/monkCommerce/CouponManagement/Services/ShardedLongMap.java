@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement.Services;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Immutable {@code long -> V} map split over a fixed number of shards. An {@link Editor} copies
+ * the shard array and only the shards it touches, so patching one entry into a catalog of a
+ * million costs a few thousand entries of copying instead of a million, and every previously
+ * published map stays valid for the readers still holding it.
+ */
+final class ShardedLongMap<V> {
+
+    private static final int SHARDS = 1024;
+
+    private static final ShardedLongMap<?> EMPTY = new ShardedLongMap<>(emptyShards(), 0);
+
+    private final Map<Long, V>[] shards;
+    private final int size;
+
+    private ShardedLongMap(Map<Long, V>[] shards, int size) {
+        this.shards = shards;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <V> ShardedLongMap<V> empty() {
+        return (ShardedLongMap<V>) EMPTY;
+    }
+
+    V get(long key) {
+        return shards[shard(key)].get(key);
+    }
+
+    int size() {
+        return size;
+    }
+
+    void forEachValue(Consumer<V> action) {
+        for (Map<Long, V> shard : shards) {
+            shard.values().forEach(action);
+        }
+    }
+
+    Editor<V> edit() {
+        return new Editor<>(this);
+    }
+
+    private static int shard(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> 54);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> Map<Long, V>[] emptyShards() {
+        Map<Long, V>[] shards = (Map<Long, V>[]) new Map<?, ?>[SHARDS];
+        Arrays.fill(shards, Collections.emptyMap());
+        return shards;
+    }
+
+    /**
+     * Accumulates changes against a base map. Each shard is copied at most once per editor. Not
+     * thread-safe; the base map is never modified.
+     */
+    static final class Editor<V> {
+        private final Map<Long, V>[] shards;
+        private final boolean[] copied = new boolean[SHARDS];
+        private int size;
+
+        private Editor(ShardedLongMap<V> base) {
+            this.shards = base.shards.clone();
+            this.size = base.size;
+        }
+
+        V get(long key) {
+            return shards[shard(key)].get(key);
+        }
+
+        void put(long key, V value) {
+            if (writable(shard(key)).put(key, value) == null) {
+                size++;
+            }
+        }
+
+        void remove(long key) {
+            int shard = shard(key);
+            if (shards[shard].containsKey(key)) {
+                writable(shard).remove(key);
+                size--;
+            }
+        }
+
+        ShardedLongMap<V> build() {
+            // Later edits would write into shards the built map now shares.
+            Arrays.fill(copied, false);
+            return new ShardedLongMap<>(shards.clone(), size);
+        }
+
+        private Map<Long, V> writable(int shard) {
+            if (!copied[shard]) {
+                shards[shard] = new HashMap<>(shards[shard]);
+                copied[shard] = true;
+            }
+            return shards[shard];
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement.Services;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A non-negative count of redemptions this instance may still hand out, split across stripes so
+ * concurrent reservations mostly compare-and-set different cache lines. A thread starts at its own
+ * stripe and only moves on to the others when that one is empty.
+ */
+final class StripedQuota {
+
+    // 16 longs = 128 bytes between stripes, so no two stripes share a cache line (or an adjacent-line prefetch).
+    private static final int PAD = 16;
+
+    private final int stripes;
+    private final AtomicLongArray cells;
+
+    StripedQuota(int stripes) {
+        this.stripes = stripes;
+        this.cells = new AtomicLongArray(stripes * PAD);
+    }
+
+    boolean tryAcquire() {
+        int start = home();
+        for (int i = 0; i < stripes; i++) {
+            int index = ((start + i) % stripes) * PAD;
+            long available = cells.get(index);
+            while (available > 0) {
+                long witness = cells.compareAndExchange(index, available, available - 1);
+                if (witness == available) {
+                    return true;
+                }
+                available = witness;
+            }
+        }
+        return false;
+    }
+
+    void release() {
+        cells.incrementAndGet(home() * PAD);
+    }
+
+    /**
+     * Spreads {@code count} evenly over the stripes.
+     */
+    void add(long count) {
+        long share = count / stripes;
+        long remainder = count % stripes;
+        for (int i = 0; i < stripes; i++) {
+            long amount = share + (i < remainder ? 1 : 0);
+            if (amount > 0) {
+                cells.addAndGet(i * PAD, amount);
+            }
+        }
+    }
+
+    /**
+     * Takes everything that is left.
+     */
+    long drain() {
+        long drained = 0;
+        for (int i = 0; i < stripes; i++) {
+            drained += cells.getAndSet(i * PAD, 0);
+        }
+        return drained;
+    }
+
+    long available() {
+        long available = 0;
+        for (int i = 0; i < stripes; i++) {
+            available += cells.get(i * PAD);
+        }
+        return available;
+    }
+
+    @SuppressWarnings("deprecation") // Thread.threadId() needs Java 19
+    private int home() {
+        long id = Thread.currentThread().getId();
+        return (int) ((id ^ (id >>> 16)) & Integer.MAX_VALUE) % stripes;
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement;
+
+import com.monkCommerce.CouponManagement.Admission.AdaptiveLimit;
+import com.monkCommerce.CouponManagement.Admission.AdmissionInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.util.ReflectionTestUtils.getField;
+import static org.springframework.test.util.ReflectionTestUtils.invokeMethod;
+
+class AdmissionInterceptorTest {
+
+    private static final String APPLY = "/cart/apply-coupon/{id}";
+
+    private MeterRegistry registry;
+    private AdmissionInterceptor admissionInterceptor;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        admissionInterceptor = new AdmissionInterceptor(registry, 1, 1, 1, 1, 3);
+    }
+
+    @Test
+    void testRequestsOverTheLimitGetRetryAfter() {
+        MockHttpServletRequest first = request("POST", "/cart/apply-coupon/5", APPLY);
+        assertTrue(admissionInterceptor.preHandle(first, new MockHttpServletResponse(), null));
+
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        assertFalse(admissionInterceptor.preHandle(request("POST", "/cart/apply-coupon/6", APPLY), rejected, null));
+        assertEquals(503, rejected.getStatus());
+        assertEquals("3", rejected.getHeader("Retry-After"));
+        assertTrue(admissionInterceptor.preHandle(request("POST", "/cart/best-coupon", "/cart/best-coupon"),
+                new MockHttpServletResponse(), null));
+
+        admissionInterceptor.afterCompletion(first, new MockHttpServletResponse(), null, null);
+        assertTrue(admissionInterceptor.preHandle(request("POST", "/cart/apply-coupon/7", APPLY), new MockHttpServletResponse(), null));
+        assertEquals(1.0, registry.get("coupon.admission.rejected").tag("endpoint", "POST " + APPLY).functionCounter().count());
+        assertEquals(1.0, registry.get("coupon.admission.limit").tag("endpoint", "POST " + APPLY).gauge().value());
+    }
+
+    @Test
+    void testManagementYieldsToSaturatedCartEndpoints() {
+        MockHttpServletRequest cart = request("POST", "/cart/apply-coupon/5", APPLY);
+        assertTrue(admissionInterceptor.preHandle(cart, new MockHttpServletResponse(), null));
+
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        assertFalse(admissionInterceptor.preHandle(request("PUT", "/coupons/1", "/coupons/{id}"), rejected, null));
+        assertEquals(503, rejected.getStatus());
+        assertEquals(1.0, registry.get("coupon.admission.rejected")
+                .tag("endpoint", AdmissionInterceptor.MANAGEMENT).functionCounter().count());
+
+        admissionInterceptor.afterCompletion(cart, new MockHttpServletResponse(), null, null);
+        assertTrue(admissionInterceptor.preHandle(request("PUT", "/coupons/1", "/coupons/{id}"), new MockHttpServletResponse(), null));
+    }
+
+    @Test
+    void testLimitFollowsLatency() {
+        AdaptiveLimit limit = new AdaptiveLimit(20, 2, 200);
+        // Windows are closed by hand below.
+        ((AtomicLong) getField(limit, "windowStart")).set(System.nanoTime() + TimeUnit.DAYS.toNanos(1));
+
+        window(limit, 10);
+        assertEquals(20, limit.getLimit());
+        for (int i = 0; i < 30; i++) {
+            window(limit, 100);
+        }
+        int overloaded = limit.getLimit();
+        assertTrue(overloaded < 10, "limit " + overloaded);
+
+        for (int i = 0; i < 30; i++) {
+            window(limit, 10);
+        }
+        assertTrue(limit.getLimit() > overloaded, "limit " + limit.getLimit());
+    }
+
+    // Fills the limit, completes every request after latencyMillis, and closes the window.
+    private static void window(AdaptiveLimit limit, long latencyMillis) {
+        int admitted = 0;
+        while (limit.tryAcquire()) {
+            admitted++;
+        }
+        long start = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(latencyMillis);
+        for (int i = 0; i < admitted; i++) {
+            limit.release(start, true);
+        }
+        invokeMethod(limit, "update");
+    }
+
+    private static MockHttpServletRequest request(String method, String uri, String pattern) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, pattern);
+        return request;
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement;
+
+import com.monkCommerce.CouponManagement.Entities.Cart;
+import com.monkCommerce.CouponManagement.Entities.CartItem;
+import com.monkCommerce.CouponManagement.Entities.Coupon;
+import com.monkCommerce.CouponManagement.Services.AppliedCartCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AppliedCartCacheTest {
+
+    private AppliedCartCache appliedCartCache;
+    private AtomicInteger applied;
+
+    @BeforeEach
+    void setUp() {
+        appliedCartCache = new AppliedCartCache(100, 60_000);
+        applied = new AtomicInteger();
+    }
+
+    @Test
+    void testReorderedCartIsAHitInTheCallersOrder() {
+        Coupon coupon = coupon(1L, 0L);
+        List<CartItem> items = List.of(new CartItem(1L, 2, 10.0, 0.0), new CartItem(2L, 1, 30.0, 0.0));
+        List<CartItem> reordered = List.of(new CartItem(2L, 1, 30.0, 0.0), new CartItem(1L, 2, 10.0, 0.0));
+
+        Cart first = appliedCartCache.get(coupon, items, discountFirstLine(items));
+        Cart second = appliedCartCache.get(coupon, reordered, discountFirstLine(reordered));
+
+        assertEquals(1, applied.get());
+        assertEquals(2L, second.getItems().get(0).getProductId());
+        assertEquals(0.0, second.getItems().get(0).getTotalDiscount());
+        assertEquals(1L, second.getItems().get(1).getProductId());
+        assertEquals(5.0, second.getItems().get(1).getTotalDiscount());
+        assertEquals(first.getFinalPrice(), second.getFinalPrice());
+        assertNotSame(first.getItems().get(0), second.getItems().get(1));
+    }
+
+    @Test
+    void testCouponVersionAndCartContentsArePartOfTheKey() {
+        List<CartItem> items = List.of(new CartItem(1L, 2, 10.0, 0.0));
+
+        appliedCartCache.get(coupon(1L, 0L), items, discountFirstLine(items));
+        appliedCartCache.get(coupon(1L, 1L), items, discountFirstLine(items));
+        appliedCartCache.get(coupon(2L, 1L), items, discountFirstLine(items));
+        List<CartItem> more = List.of(new CartItem(1L, 3, 10.0, 0.0));
+        appliedCartCache.get(coupon(2L, 1L), more, discountFirstLine(more));
+        appliedCartCache.get(coupon(2L, 1L), items, discountFirstLine(items));
+
+        assertEquals(4, applied.get());
+        assertEquals(4, appliedCartCache.size());
+    }
+
+    private Supplier<Cart> discountFirstLine(List<CartItem> items) {
+        return () -> {
+            applied.incrementAndGet();
+            List<CartItem> lines = new ArrayList<>();
+            double total = 0;
+            for (CartItem item : items) {
+                lines.add(new CartItem(item.getProductId(), item.getQuantity(), item.getPrice(), item.getProductId() == 1L ? 5.0 : 0.0));
+                total += item.getPrice() * item.getQuantity();
+            }
+            Cart cart = new Cart();
+            cart.setItems(lines);
+            cart.setTotalPrice(total);
+            cart.setTotalDiscount(5.0);
+            cart.setFinalPrice(total - 5.0);
+            return cart;
+        };
+    }
+
+    private static Coupon coupon(Long id, Long version) {
+        Coupon coupon = new Coupon();
+        coupon.setId(id);
+        coupon.setVersion(version);
+        coupon.setType("cart-wise");
+        return coupon;
+    }
+}
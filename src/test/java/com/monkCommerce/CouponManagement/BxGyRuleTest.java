@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement;
+
+import com.monkCommerce.CouponManagement.Entities.Cart;
+import com.monkCommerce.CouponManagement.Entities.CartItem;
+import com.monkCommerce.CouponManagement.Entities.Coupon;
+import com.monkCommerce.CouponManagement.Rules.BxGyRule;
+import com.monkCommerce.CouponManagement.Rules.CartView;
+import com.monkCommerce.CouponManagement.Rules.CouponRule;
+import com.monkCommerce.CouponManagement.Services.CouponRuleCache;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BxGyRuleTest {
+
+    private final CouponRuleCache couponRuleCache = new CouponRuleCache();
+    private long nextId = 1;
+
+    @Test
+    void testFreeUnitsAreLimitedByCartQuantity() {
+        CouponRule rule = rule("[{\"product_id\": 1, \"quantity\": 2}]", "[{\"product_id\": 3, \"quantity\": 2}]", 5);
+
+        assertEquals(2_500L, rule.discount(view(new CartItem(1L, 4, 10.0, 0.0), new CartItem(3L, 1, 25.0, 0.0))));
+        assertFalse(rule.isApplicable(view(new CartItem(1L, 4, 10.0, 0.0))));
+        assertFalse(rule.isApplicable(view(new CartItem(1L, 1, 10.0, 0.0), new CartItem(3L, 1, 25.0, 0.0))));
+    }
+
+    @Test
+    void testCheapestGetProductsAreFreeFirst() {
+        String gets = "[{\"product_id\": 3, \"quantity\": 1}, {\"product_id\": 4, \"quantity\": 1}]";
+        CartItem expensive = new CartItem(3L, 3, 30.0, 0.0);
+        CartItem cheap = new CartItem(4L, 2, 5.0, 0.0);
+
+        assertEquals(1_000L, rule("[{\"product_id\": 1, \"quantity\": 1}]", gets, 1)
+                .discount(view(new CartItem(1L, 2, 10.0, 0.0), expensive, cheap)));
+        assertEquals(7_000L, rule("[{\"product_id\": 1, \"quantity\": 1}]", gets, 2)
+                .discount(view(new CartItem(1L, 2, 10.0, 0.0), expensive, cheap)));
+    }
+
+    @Test
+    void testUnitsAreNeverBothBoughtAndFree() {
+        CouponRule rule = rule("[{\"product_id\": 1, \"quantity\": 2}]", "[{\"product_id\": 1, \"quantity\": 1}]", 10);
+
+        assertFalse(rule.isApplicable(view(new CartItem(1L, 2, 10.0, 0.0))));
+        assertEquals(1_000L, rule.discount(view(new CartItem(1L, 5, 10.0, 0.0))));
+        assertEquals(2_000L, rule.discount(view(new CartItem(1L, 6, 10.0, 0.0))));
+        assertEquals(1_000L, rule.discount(view(new CartItem(1L, 4, 10.0, 0.0), new CartItem(2L, 1, 10.0, 0.0))));
+    }
+
+    @Test
+    void testDuplicateProductsAreMerged() {
+        CouponRule rule = rule("[{\"product_id\": 1, \"quantity\": 1}]",
+                "[{\"product_id\": 3, \"quantity\": 1}, {\"product_id\": 3, \"quantity\": 1}]", 1);
+
+        assertEquals(4_000L, rule.discount(view(new CartItem(1L, 1, 10.0, 0.0), new CartItem(3L, 3, 20.0, 0.0))));
+    }
+
+    @Test
+    void testDiscountIsSplitOverRepeatedLines() {
+        CouponRule rule = rule("[{\"product_id\": 1, \"quantity\": 1}]", "[{\"product_id\": 3, \"quantity\": 1}]", 1);
+        Cart cart = cart(new CartItem(3L, 1, 10.0, 0.0), new CartItem(1L, 1, 50.0, 0.0), new CartItem(3L, 1, 20.0, 0.0));
+        CartView view = CartView.of(cart.getItems());
+
+        assertEquals(1_500L, rule.discount(view));
+        rule.apply(cart, view);
+
+        assertEquals(5.0, cart.getItems().get(0).getTotalDiscount());
+        assertEquals(0.0, cart.getItems().get(1).getTotalDiscount());
+        assertEquals(10.0, cart.getItems().get(2).getTotalDiscount());
+        assertEquals(15.0, cart.getTotalDiscount());
+        assertEquals(65.0, cart.getFinalPrice());
+    }
+
+    private CouponRule rule(String buyProducts, String getProducts, int repetitionLimit) {
+        Coupon coupon = new Coupon();
+        coupon.setId(nextId++);
+        coupon.setVersion(0L);
+        coupon.setType("bxgy");
+        coupon.setDetails("{\"buy_products\": " + buyProducts + ", \"get_products\": " + getProducts
+                + ", \"repetition_limit\": " + repetitionLimit + "}");
+        CouponRule rule = couponRuleCache.get(coupon);
+        assertInstanceOf(BxGyRule.class, rule);
+        return rule;
+    }
+
+    private static CartView view(CartItem... items) {
+        return CartView.of(Arrays.asList(items));
+    }
+
+    private static Cart cart(CartItem... items) {
+        Cart cart = new Cart();
+        cart.setItems(Arrays.asList(items));
+        double totalPrice = 0.0;
+        for (CartItem item : items) {
+            totalPrice += item.getPrice() * item.getQuantity();
+        }
+        cart.setTotalPrice(totalPrice);
+        return cart;
+    }
+}
@@ -16,28 +16,46 @@
 
 package com.monkCommerce.CouponManagement;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.monkCommerce.CouponManagement.Controllers.BinaryFormatsConfig;
 import com.monkCommerce.CouponManagement.Controllers.CartController;
+import com.monkCommerce.CouponManagement.DTO.BestCouponResponse;
 import com.monkCommerce.CouponManagement.DTO.CartRequest;
+import com.monkCommerce.CouponManagement.DTO.CouponSavings;
 import com.monkCommerce.CouponManagement.Entities.Cart;
 import com.monkCommerce.CouponManagement.Entities.CartItem;
 import com.monkCommerce.CouponManagement.Entities.Coupon;
 import com.monkCommerce.CouponManagement.Services.CartServices;
+import com.monkCommerce.CouponManagement.Services.CouponCatalog;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.*;
+import static org.springframework.test.util.ReflectionTestUtils.setField;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -48,13 +66,33 @@ class CartControllerTest {
     @Mock
     private CartServices cartServices;
 
+    @Mock
+    private CouponCatalog couponCatalog;
+
+    @Mock
+    private CouponCatalog.Snapshot snapshot;
+
     @InjectMocks
     private CartController cartController;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        mockMvc = MockMvcBuilders.standaloneSetup(cartController).build();
+        when(couponCatalog.snapshot()).thenReturn(snapshot);
+        when(snapshot.getVersion()).thenReturn(7L);
+        List<HttpMessageConverter<?>> converters = new ArrayList<>();
+        BinaryFormatsConfig binaryFormatsConfig = new BinaryFormatsConfig();
+        // Builders configured by Boot, as the application gets them.
+        new ApplicationContextRunner().withConfiguration(AutoConfigurations.of(JacksonAutoConfiguration.class))
+                .run(context -> {
+                    converters.add(new MappingJackson2HttpMessageConverter(
+                            context.getBean(Jackson2ObjectMapperBuilder.class).build()));
+                    setField(binaryFormatsConfig, "objectMapperBuilder", context.getBean(Jackson2ObjectMapperBuilder.class));
+                    binaryFormatsConfig.extendMessageConverters(converters);
+                });
+        mockMvc = MockMvcBuilders.standaloneSetup(cartController)
+                .setMessageConverters(converters.toArray(new HttpMessageConverter<?>[0]))
+                .build();
     }
 
     @Test
@@ -80,18 +118,19 @@ class CartControllerTest {
 
         List<Coupon> applicableCoupons = Arrays.asList(cartWiseCoupon, productWiseCoupon);
 
-        when(cartServices.getApplicableCoupons(any(CartRequest.class))).thenReturn(applicableCoupons);
+        when(cartServices.getApplicableCoupons(any(CartRequest.class), same(snapshot))).thenReturn(applicableCoupons);
 
         mockMvc.perform(post("/cart/applicable-coupons")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(new ObjectMapper().writeValueAsString(cartRequest)))
                 .andExpect(status().isOk())
+                .andExpect(header().string(CartController.CATALOG_VERSION_HEADER, "7"))
                 .andExpect(jsonPath("$[0].id").value(1))
                 .andExpect(jsonPath("$[0].type").value("cart-wise"))
                 .andExpect(jsonPath("$[1].id").value(2))
                 .andExpect(jsonPath("$[1].type").value("product-wise"));
 
-        verify(cartServices, times(1)).getApplicableCoupons(any(CartRequest.class));
+        verify(cartServices, times(1)).getApplicableCoupons(any(CartRequest.class), same(snapshot));
     }
 
     @Test
@@ -109,16 +148,127 @@ class CartControllerTest {
         cart.setTotalDiscount(50.0);
         cart.setFinalPrice(440.0);
 
-        when(cartServices.applyCoupon(eq(1L), any(CartRequest.class))).thenReturn(cart);
+        when(cartServices.applyCoupon(eq(1L), any(CartRequest.class), same(snapshot))).thenReturn(cart);
 
         mockMvc.perform(post("/cart/apply-coupon/1")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(new ObjectMapper().writeValueAsString(cartRequest)))
                 .andExpect(status().isOk())
+                .andExpect(header().string(CartController.CATALOG_VERSION_HEADER, "7"))
                 .andExpect(jsonPath("$.totalPrice").value(490.0))
                 .andExpect(jsonPath("$.totalDiscount").value(50.0))
                 .andExpect(jsonPath("$.finalPrice").value(440.0));
 
-        verify(cartServices, times(1)).applyCoupon(eq(1L), any(CartRequest.class));
+        verify(cartServices, times(1)).applyCoupon(eq(1L), any(CartRequest.class), same(snapshot));
+    }
+
+    @Test
+    void testRedeemCoupon() throws Exception {
+        CartRequest cartRequest = new CartRequest();
+        cartRequest.setItems(Arrays.asList(new CartItem(1L, 6, 50.0, 0.0)));
+        Cart cart = new Cart();
+        cart.setItems(cartRequest.getItems());
+        cart.setTotalPrice(300.0);
+        cart.setTotalDiscount(30.0);
+        cart.setFinalPrice(270.0);
+
+        when(cartServices.redeemCoupon(eq(1L), any(CartRequest.class), same(snapshot))).thenReturn(cart);
+
+        mockMvc.perform(post("/cart/redeem-coupon/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper().writeValueAsString(cartRequest)))
+                .andExpect(status().isOk())
+                .andExpect(header().string(CartController.CATALOG_VERSION_HEADER, "7"))
+                .andExpect(jsonPath("$.finalPrice").value(270.0));
+
+        verify(cartServices, times(1)).redeemCoupon(eq(1L), any(CartRequest.class), same(snapshot));
+        verify(cartServices, never()).applyCoupon(any(), any(), any());
+    }
+
+    @Test
+    void testApplyCouponNegotiatesBinaryFormats() throws Exception {
+        CartRequest cartRequest = new CartRequest();
+        cartRequest.setItems(Arrays.asList(new CartItem(1L, 6, 50.0, 0.0), new CartItem(2L, 3, 30.0, 0.0)));
+        Cart cart = new Cart();
+        cart.setItems(cartRequest.getItems());
+        cart.setTotalPrice(390.0);
+        cart.setTotalDiscount(60.0);
+        cart.setFinalPrice(330.0);
+        when(cartServices.applyCoupon(eq(2L), argThat(request -> request.getItems().size() == 2
+                && request.getItems().get(1).getProductId() == 2L), same(snapshot))).thenReturn(cart);
+
+        byte[] body = mockMvc.perform(post("/cart/apply-coupon/2")
+                        .contentType("application/x-jackson-smile")
+                        .accept("application/cbor")
+                        .content(new SmileMapper().writeValueAsBytes(cartRequest)))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/cbor"))
+                .andExpect(header().string(CartController.CATALOG_VERSION_HEADER, "7"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode decoded = new CBORMapper().readTree(body);
+        assertEquals(330.0, decoded.get("finalPrice").asDouble());
+        assertEquals(2, decoded.get("items").size());
+    }
+
+    @Test
+    void testCouponDatesAreWrittenAlikeInEveryFormat() throws Exception {
+        Coupon coupon = new Coupon();
+        coupon.setId(1L);
+        coupon.setType("cart-wise");
+        coupon.setDetails("{\"threshold\": 100, \"discount\": 10}");
+        coupon.setExpirationDate(LocalDateTime.of(2024, 12, 31, 23, 59, 59));
+        when(cartServices.getApplicableCoupons(any(CartRequest.class), same(snapshot))).thenReturn(List.of(coupon));
+        CartRequest cartRequest = new CartRequest();
+        cartRequest.setItems(List.of(new CartItem(1L, 6, 50.0, 0.0)));
+        String request = new ObjectMapper().writeValueAsString(cartRequest);
+
+        byte[] json = mockMvc.perform(post("/cart/applicable-coupons")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .content(request))
+                .andReturn().getResponse().getContentAsByteArray();
+        byte[] smile = mockMvc.perform(post("/cart/applicable-coupons")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept("application/x-jackson-smile")
+                        .content(request))
+                .andExpect(content().contentType("application/x-jackson-smile"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode jsonDate = new ObjectMapper().readTree(json).get(0).get("expirationDate");
+        assertEquals("2024-12-31T23:59:59", jsonDate.asText());
+        assertEquals(jsonDate, new SmileMapper().readTree(smile).get(0).get("expirationDate"));
+    }
+
+    @Test
+    void testGetBestCoupon() throws Exception {
+        CartRequest cartRequest = new CartRequest();
+        cartRequest.setItems(Arrays.asList(
+                new CartItem(1L, 6, 50.0, 0.0),
+                new CartItem(2L, 3, 30.0, 0.0)
+        ));
+
+        Cart cart = new Cart();
+        cart.setItems(cartRequest.getItems());
+        cart.setTotalPrice(390.0);
+        cart.setTotalDiscount(60.0);
+        cart.setFinalPrice(330.0);
+        BestCouponResponse response = new BestCouponResponse(2L, cart, Arrays.asList(
+                new CouponSavings(2L, "product-wise", 60.0),
+                new CouponSavings(1L, "cart-wise", 39.0)
+        ));
+
+        when(cartServices.getBestCoupon(any(CartRequest.class), same(snapshot))).thenReturn(response);
+
+        mockMvc.perform(post("/cart/best-coupon")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper().writeValueAsString(cartRequest)))
+                .andExpect(status().isOk())
+                .andExpect(header().string(CartController.CATALOG_VERSION_HEADER, "7"))
+                .andExpect(jsonPath("$.couponId").value(2))
+                .andExpect(jsonPath("$.cart.finalPrice").value(330.0))
+                .andExpect(jsonPath("$.ranking[1].couponId").value(1));
+
+        verify(cartServices, times(1)).getBestCoupon(any(CartRequest.class), same(snapshot));
     }
 }
@@ -0,0 +1,268 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement;
+
+import com.monkCommerce.CouponManagement.DTO.BestCouponResponse;
+import com.monkCommerce.CouponManagement.DTO.CartRequest;
+import com.monkCommerce.CouponManagement.Database.CouponDatabase;
+import com.monkCommerce.CouponManagement.Entities.CartItem;
+import com.monkCommerce.CouponManagement.Entities.Coupon;
+import com.monkCommerce.CouponManagement.Exceptions.CouponNotApplicableException;
+import com.monkCommerce.CouponManagement.Exceptions.MalformedCartException;
+import com.monkCommerce.CouponManagement.Services.AppliedCartCache;
+import com.monkCommerce.CouponManagement.Services.CartBatchServices;
+import com.monkCommerce.CouponManagement.Services.CartServices;
+import com.monkCommerce.CouponManagement.Services.CouponCatalog;
+import com.monkCommerce.CouponManagement.Services.CouponMetrics;
+import com.monkCommerce.CouponManagement.Services.CouponRedemptionServices;
+import com.monkCommerce.CouponManagement.Services.CouponRuleCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.util.ReflectionTestUtils.setField;
+
+class CartServicesEvaluationTest {
+
+    @Mock
+    private CouponDatabase couponDatabase;
+
+    private CouponCatalog couponCatalog;
+
+    private CartServices cartServices;
+
+    private CartBatchServices cartBatchServices;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(couponDatabase.findAll()).thenReturn(Arrays.asList(
+                coupon(1L, "cart-wise", "{\"threshold\": 100, \"discount\": 10}"),
+                coupon(2L, "product-wise", "{\"product_id\": 1, \"discount\": 20}"),
+                coupon(3L, "bxgy", "{\"buy_products\": [{\"product_id\": 1, \"quantity\": 3}],"
+                        + " \"get_products\": [{\"product_id\": 3, \"quantity\": 1}], \"repetition_limit\": 2}")
+        ));
+
+        CouponRuleCache couponRuleCache = new CouponRuleCache();
+        couponCatalog = new CouponCatalog();
+        setField(couponCatalog, "couponDatabase", couponDatabase);
+        setField(couponCatalog, "couponRuleCache", couponRuleCache);
+        cartServices = new CartServices();
+        setField(cartServices, "couponDatabase", couponDatabase);
+        setField(cartServices, "couponRuleCache", couponRuleCache);
+        setField(cartServices, "couponCatalog", couponCatalog);
+        meterRegistry = new SimpleMeterRegistry();
+        setField(cartServices, "couponMetrics", new CouponMetrics(meterRegistry));
+        setField(cartServices, "couponRedemptionServices", new CouponRedemptionServices());
+        setField(cartServices, "appliedCartCache", new AppliedCartCache(100, 60_000));
+        setField(cartServices, "objectMapper", Jackson2ObjectMapperBuilder.json().build());
+        cartBatchServices = new CartBatchServices();
+        setField(cartBatchServices, "cartServices", cartServices);
+        setField(cartBatchServices, "couponCatalog", couponCatalog);
+        setField(cartBatchServices, "objectMapper", Jackson2ObjectMapperBuilder.json().build());
+    }
+
+    @Test
+    void testEvaluationsAreMetered() {
+        CartRequest cartRequest = cartRequest(new CartItem(1L, 6, 50.0, 0.0), new CartItem(3L, 2, 25.0, 0.0));
+
+        cartServices.getApplicableCoupons(cartRequest);
+        cartServices.getBestCoupon(cartRequest);
+        when(couponDatabase.findById(2L))
+                .thenReturn(Optional.of(coupon(2L, "product-wise", "{\"product_id\": 1, \"discount\": 20}")));
+        cartServices.applyCoupon(2L, cartRequest);
+
+        assertEquals(1, meterRegistry.get("coupon.evaluation").tag("operation", CouponMetrics.APPLICABLE).timer().count());
+        assertEquals(1, meterRegistry.get("coupon.evaluation").tag("operation", CouponMetrics.APPLY).timer().count());
+        assertEquals(3.0, meterRegistry.get("coupon.candidates.evaluated").tag("operation", CouponMetrics.BEST).summary().totalAmount());
+        assertEquals(3.0, meterRegistry.get("coupon.candidates.matched").tag("operation", CouponMetrics.APPLICABLE).summary().totalAmount());
+        assertEquals(2, meterRegistry.get("coupon.apply").tag("type", "product-wise").timer().count());
+    }
+
+    @Test
+    void testBestCouponRanksAllApplicableCoupons() {
+        CartRequest cartRequest = cartRequest(
+                new CartItem(1L, 6, 50.0, 0.0),
+                new CartItem(2L, 3, 30.0, 0.0),
+                new CartItem(3L, 2, 25.0, 0.0)
+        );
+
+        BestCouponResponse response = cartServices.getBestCoupon(cartRequest);
+
+        assertEquals(2L, response.getCouponId());
+        assertEquals(3, response.getRanking().size());
+        assertEquals(60.0, response.getRanking().get(0).getDiscount());
+        assertEquals(3L, response.getRanking().get(1).getCouponId());
+        assertEquals(50.0, response.getRanking().get(1).getDiscount());
+        assertEquals(44.0, response.getRanking().get(2).getDiscount());
+        assertEquals(440.0, response.getCart().getTotalPrice());
+        assertEquals(60.0, response.getCart().getTotalDiscount());
+        assertEquals(380.0, response.getCart().getFinalPrice());
+    }
+
+    @Test
+    void testApplyingCouponsDoesNotMutateRequestItems() {
+        CartRequest cartRequest = cartRequest(new CartItem(1L, 6, 50.0, 0.0));
+        when(couponDatabase.findById(2L)).thenReturn(Optional.of(
+                coupon(2L, "product-wise", "{\"product_id\": 1, \"discount\": 20}")));
+
+        cartServices.getBestCoupon(cartRequest);
+        cartServices.applyCoupon(2L, cartRequest);
+
+        assertEquals(0.0, cartRequest.getItems().get(0).getTotalDiscount());
+    }
+
+    @Test
+    void testRepeatedAppliesOnlyCheckTheCaps() {
+        CouponRedemptionServices couponRedemptionServices = mock(CouponRedemptionServices.class);
+        setField(cartServices, "couponRedemptionServices", couponRedemptionServices);
+        CartRequest cartRequest = cartRequest(new CartItem(1L, 6, 50.0, 0.0));
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(60.0, cartServices.applyCoupon(2L, cartRequest).getTotalDiscount());
+        }
+        verify(couponRedemptionServices, times(3)).check(any(Coupon.class), isNull());
+        verify(couponRedemptionServices, never()).reserve(any(Coupon.class), any());
+
+        cartServices.redeemCoupon(2L, cartRequest);
+        verify(couponRedemptionServices, times(1)).reserve(any(Coupon.class), isNull());
+        verify(couponRedemptionServices, times(1)).commit(any());
+    }
+
+    @Test
+    void testCachedAppliesNeverRedeem() {
+        CouponRedemptionServices couponRedemptionServices = mock(CouponRedemptionServices.class);
+        AppliedCartCache appliedCartCache = spy(new AppliedCartCache(100, 60_000));
+        setField(cartServices, "couponRedemptionServices", couponRedemptionServices);
+        setField(cartServices, "appliedCartCache", appliedCartCache);
+        CartRequest cartRequest = cartRequest(new CartItem(1L, 6, 50.0, 0.0));
+
+        cartServices.applyCoupon(2L, cartRequest);
+        cartServices.applyCoupon(2L, cartRequest);
+        assertEquals(1, appliedCartCache.size());
+        verify(couponRedemptionServices, never()).commit(any());
+
+        assertEquals(60.0, cartServices.redeemCoupon(2L, cartRequest).getTotalDiscount());
+        assertEquals(60.0, cartServices.redeemCoupon(2L, cartRequest).getTotalDiscount());
+        verify(appliedCartCache, times(2)).get(any(Coupon.class), any(), any());
+        verify(couponRedemptionServices, times(2)).commit(any());
+    }
+
+    @Test
+    void testRedeemingOnAnInapplicableCartCommitsNothing() {
+        CouponRedemptionServices couponRedemptionServices = mock(CouponRedemptionServices.class);
+        setField(cartServices, "couponRedemptionServices", couponRedemptionServices);
+
+        assertThrows(CouponNotApplicableException.class,
+                () -> cartServices.redeemCoupon(1L, cartRequest(new CartItem(1L, 1, 50.0, 0.0))));
+        assertThrows(CouponNotApplicableException.class,
+                () -> cartServices.redeemCoupon(3L, cartRequest(new CartItem(9L, 3, 50.0, 0.0))));
+        verify(couponRedemptionServices, never()).reserve(any(Coupon.class), any());
+        verify(couponRedemptionServices, never()).commit(any());
+    }
+
+    @Test
+    void testBestCouponWithoutApplicableCoupons() {
+        CartRequest cartRequest = cartRequest(new CartItem(9L, 1, 10.0, 0.0));
+
+        BestCouponResponse response = cartServices.getBestCoupon(cartRequest);
+
+        assertNull(response.getCouponId());
+        assertTrue(response.getRanking().isEmpty());
+        assertEquals(10.0, response.getCart().getFinalPrice());
+    }
+
+    @Test
+    void testBatchWritesOneLinePerCart() throws Exception {
+        String batch = "{\"items\": [{\"productId\": 1, \"quantity\": 6, \"price\": 50.0, \"totalDiscount\": 0}]}\n"
+                + "{\"items\": null}\n"
+                + "{\"items\": [{\"productId\": 9, \"quantity\": 1, \"price\": 10.0, \"totalDiscount\": 0}]}\n";
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        long carts = cartBatchServices.getApplicableCoupons(
+                new ByteArrayInputStream(batch.getBytes(StandardCharsets.UTF_8)), output);
+
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, carts);
+        assertEquals(3, lines.length);
+        assertTrue(lines[0].startsWith("{\"index\":0,\"coupons\":[{\"id\":1"));
+        assertTrue(lines[1].contains("\"error\""));
+        assertEquals("{\"index\":2,\"coupons\":[]}", lines[2]);
+        verify(couponDatabase, times(1)).findAll();
+    }
+
+    @Test
+    void testBatchAcceptsJsonArray() throws Exception {
+        String batch = "[{\"items\": [{\"productId\": 2, \"quantity\": 1, \"price\": 10.0, \"totalDiscount\": 0}]},"
+                + " {\"items\": [{\"productId\": 1, \"quantity\": 1, \"price\": 10.0, \"totalDiscount\": 0}]}]";
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        long carts = cartBatchServices.getApplicableCoupons(
+                new ByteArrayInputStream(batch.getBytes(StandardCharsets.UTF_8)), output);
+
+        assertEquals(2, carts);
+        assertEquals(2, output.toString(StandardCharsets.UTF_8).split("\n").length);
+    }
+
+    @Test
+    void testStreamedCartMatchesBoundCart() throws Exception {
+        String cart = "{\"items\": [{\"productId\": 1, \"quantity\": 4, \"price\": 50.0},"
+                + " {\"productId\": 3, \"quantity\": 2, \"price\": 25.0}, {\"productId\": 1, \"quantity\": 2, \"price\": 50.0}]}";
+
+        List<Coupon> streamed = cartServices.getApplicableCoupons(
+                new ByteArrayInputStream(cart.getBytes(StandardCharsets.UTF_8)), couponCatalog.snapshot());
+
+        List<Coupon> bound = cartServices.getApplicableCoupons(cartRequest(
+                new CartItem(1L, 4, 50.0, 0.0), new CartItem(3L, 2, 25.0, 0.0), new CartItem(1L, 2, 50.0, 0.0)));
+        assertEquals(List.of(1L, 2L, 3L), streamed.stream().map(Coupon::getId).toList());
+        assertEquals(bound.stream().map(Coupon::getId).toList(), streamed.stream().map(Coupon::getId).toList());
+        assertThrows(MalformedCartException.class, () -> cartServices.getApplicableCoupons(
+                new ByteArrayInputStream("{\"items\": [{\"quantity\": 1}".getBytes(StandardCharsets.UTF_8)),
+                couponCatalog.snapshot()));
+    }
+
+    private static CartRequest cartRequest(CartItem... items) {
+        CartRequest cartRequest = new CartRequest();
+        cartRequest.setItems(Arrays.asList(items));
+        return cartRequest;
+    }
+
+    private static Coupon coupon(Long id, String type, String details) {
+        Coupon coupon = new Coupon();
+        coupon.setId(id);
+        coupon.setVersion(0L);
+        coupon.setType(type);
+        coupon.setDetails(details);
+        coupon.setExpirationDate(LocalDateTime.now().plusDays(1));
+        return coupon;
+    }
+}
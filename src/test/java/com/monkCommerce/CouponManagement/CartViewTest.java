@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.monkCommerce.CouponManagement.Entities.CartItem;
+import com.monkCommerce.CouponManagement.Rules.CartView;
+import com.monkCommerce.CouponManagement.Rules.CartViewReader;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CartViewTest {
+
+    @Test
+    void testLinesOfSameProductAreMergedAndChained() {
+        CartView view = CartView.of(List.of(
+                new CartItem(1L, 2, 10.0, 0.0),
+                new CartItem(2L, 1, 5.0, 0.0),
+                new CartItem(1L, 3, 10.0, 0.0)));
+
+        int slot = view.indexOf(1L);
+        assertEquals(2, view.size());
+        assertEquals(5, view.quantityOf(1L));
+        assertEquals(5_000L, view.amountAt(slot));
+        assertEquals(5_500L, view.getTotalPrice());
+        assertEquals(0, view.firstLine(slot));
+        assertEquals(2, view.nextLine(0));
+        assertEquals(-1, view.nextLine(2));
+        assertEquals(-1, view.indexOf(3L));
+        assertEquals(0, view.quantityOf(3L));
+    }
+
+    @Test
+    void testBuilderGrowsPastItsSizingHint() {
+        CartView.Builder builder = new CartView.Builder(1);
+        for (long productId = 1; productId <= 1000; productId++) {
+            builder.add(productId * 1_000_003L, 1, 100);
+        }
+        CartView view = builder.build();
+
+        assertEquals(1000, view.size());
+        for (long productId = 1; productId <= 1000; productId++) {
+            assertEquals(1, view.quantityOf(productId * 1_000_003L));
+        }
+        assertEquals(-1, view.indexOf(7L));
+    }
+
+    @Test
+    void testReaderAccumulatesLikeBoundCart() throws IOException {
+        CartView view = read("{\"customerId\": \"c1\", \"items\": ["
+                + "{\"productId\": 1, \"quantity\": 2, \"price\": 10.0, \"totalDiscount\": 0, \"tags\": [\"a\", {\"b\": 1}]},"
+                + "{\"price\": 5, \"quantity\": 1, \"productId\": 2},"
+                + "{\"productId\": 1, \"quantity\": 3, \"price\": 10.0}], \"note\": null}");
+
+        assertEquals(2, view.size());
+        assertEquals(5, view.quantityOf(1L));
+        assertEquals(5_000L, view.amountAt(view.indexOf(1L)));
+        assertEquals(5_500L, view.getTotalPrice());
+        assertEquals(-1, view.firstLine(view.indexOf(1L)));
+    }
+
+    @Test
+    void testReaderRejectsMalformedCarts() {
+        assertThrows(JsonParseException.class, () -> read("{\"items\": [{\"quantity\": 1, \"price\": 5}]}"));
+        assertThrows(JsonParseException.class, () -> read("{\"items\": [{\"productId\": \"x\", \"quantity\": 1}]}"));
+        assertThrows(JsonParseException.class, () -> read("{\"customerId\": \"c1\"}"));
+        assertThrows(JsonParseException.class, () -> read("[]"));
+    }
+
+    private static CartView read(String json) throws IOException {
+        try (JsonParser parser = new JsonFactory().createParser(json)) {
+            return CartViewReader.read(parser);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement;
+
+import com.monkCommerce.CouponManagement.Entities.Cart;
+import com.monkCommerce.CouponManagement.Entities.CartItem;
+import com.monkCommerce.CouponManagement.Entities.Coupon;
+import com.monkCommerce.CouponManagement.Rules.CartView;
+import com.monkCommerce.CouponManagement.Rules.CollectionWiseRule;
+import com.monkCommerce.CouponManagement.Rules.CouponRule;
+import com.monkCommerce.CouponManagement.Rules.ProductSets;
+import com.monkCommerce.CouponManagement.Services.CouponRuleCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CollectionWiseRuleTest {
+
+    private CouponRuleCache couponRuleCache;
+    private ProductSets productSets;
+
+    @BeforeEach
+    void setUp() {
+        couponRuleCache = new CouponRuleCache();
+        productSets = couponRuleCache.getProductSets();
+        productSets.add(5L, List.of(1L, 2L, 3L, 9_000_000_000L));
+    }
+
+    @Test
+    void testProductSetsMapSparseIdsToDenseBitmaps() {
+        productSets.add(6L, List.of(3L, 4L));
+
+        assertEquals(4, productSets.get(5L).size());
+        assertEquals(3, productSets.denseId(9_000_000_000L));
+        assertEquals(2, productSets.denseId(3L));
+        assertEquals(4, productSets.denseId(4L));
+        assertEquals(-1, productSets.denseId(7L));
+        assertTrue(productSets.get(5L).intersects(view(new CartItem(7L, 1, 10.0, 0.0), new CartItem(9_000_000_000L, 1, 10.0, 0.0))));
+        assertFalse(productSets.get(6L).intersects(view(new CartItem(1L, 1, 10.0, 0.0), new CartItem(7L, 1, 10.0, 0.0))));
+    }
+
+    @Test
+    void testCartsListTheCollectionsOfTheirProducts() {
+        productSets.add(6L, List.of(3L, 4L));
+        int five = productSets.get(5L).getDenseId();
+        int six = productSets.get(6L).getDenseId();
+
+        assertArrayEquals(new int[]{five, six}, productSets.collectionsOf(view(new CartItem(3L, 1, 10.0, 0.0),
+                new CartItem(1L, 1, 10.0, 0.0), new CartItem(7L, 1, 10.0, 0.0))));
+        assertArrayEquals(new int[]{six}, productSets.collectionsOf(view(new CartItem(4L, 1, 10.0, 0.0))));
+
+        productSets.replace(6L, List.of(7L));
+        assertArrayEquals(new int[]{five}, productSets.collectionsOf(view(new CartItem(3L, 1, 10.0, 0.0))));
+        assertArrayEquals(new int[0], productSets.collectionsOf(view(new CartItem(4L, 1, 10.0, 0.0))));
+        assertArrayEquals(new int[]{six}, productSets.collectionsOf(view(new CartItem(7L, 1, 10.0, 0.0))));
+    }
+
+    @Test
+    void testMembershipChangesApplyWithoutRecompiling() {
+        CouponRule rule = rule("{\"collection_id\": 5, \"discount\": 10}");
+        CartView cart = view(new CartItem(8L, 2, 50.0, 0.0));
+        assertFalse(rule.isApplicable(cart));
+
+        productSets.add(5L, List.of(8L));
+        assertTrue(rule.isApplicable(view(new CartItem(8L, 2, 50.0, 0.0))));
+        assertSame(rule, couponRuleCache.get(coupon("{\"collection_id\": 5, \"discount\": 10}")));
+
+        productSets.remove(5L, List.of(8L, 42L));
+        assertFalse(rule.isApplicable(view(new CartItem(8L, 2, 50.0, 0.0))));
+        assertEquals(4, productSets.get(5L).size());
+    }
+
+    @Test
+    void testDiscountIsRoundedOnceAndSplitOverMatchingLines() {
+        CouponRule rule = rule("{\"collection_id\": 5, \"discount\": 15}");
+        Cart cart = cart(new CartItem(1L, 1, 0.05, 0.0), new CartItem(7L, 1, 100.0, 0.0),
+                new CartItem(2L, 1, 0.05, 0.0), new CartItem(1L, 1, 0.05, 0.0));
+        CartView view = CartView.of(cart.getItems());
+
+        assertEquals(2L, rule.discount(view));
+        rule.apply(cart, view);
+
+        double lineDiscounts = cart.getItems().stream().mapToDouble(CartItem::getTotalDiscount).sum();
+        assertEquals(0.02, lineDiscounts, 1e-9);
+        assertEquals(0.0, cart.getItems().get(1).getTotalDiscount());
+        assertEquals(0.02, cart.getTotalDiscount());
+        assertEquals(100.13, cart.getFinalPrice());
+    }
+
+    @Test
+    void testCompiledRuleExposesItsColumns() {
+        CollectionWiseRule rule = (CollectionWiseRule) rule("{\"collection_id\": 5, \"discount\": 12.5}");
+
+        assertEquals(5L, rule.getCollectionId());
+        assertEquals(1_250L, rule.getDiscountBasisPoints());
+        assertEquals("collection-wise", rule.getType());
+    }
+
+    private CouponRule rule(String details) {
+        CouponRule rule = couponRuleCache.get(coupon(details));
+        assertInstanceOf(CollectionWiseRule.class, rule);
+        return rule;
+    }
+
+    private static Coupon coupon(String details) {
+        Coupon coupon = new Coupon();
+        coupon.setId(1L);
+        coupon.setVersion(0L);
+        coupon.setType("collection-wise");
+        coupon.setDetails(details);
+        return coupon;
+    }
+
+    private static CartView view(CartItem... items) {
+        return CartView.of(Arrays.asList(items));
+    }
+
+    private static Cart cart(CartItem... items) {
+        Cart cart = new Cart();
+        cart.setItems(Arrays.asList(items));
+        double totalPrice = 0.0;
+        for (CartItem item : items) {
+            totalPrice += item.getPrice() * item.getQuantity();
+        }
+        cart.setTotalPrice(totalPrice);
+        return cart;
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement;
+
+import com.monkCommerce.CouponManagement.Database.CouponDatabase;
+import com.monkCommerce.CouponManagement.Entities.CartItem;
+import com.monkCommerce.CouponManagement.Entities.Coupon;
+import com.monkCommerce.CouponManagement.Rules.CartView;
+import com.monkCommerce.CouponManagement.Services.CouponCatalog;
+import com.monkCommerce.CouponManagement.Services.CouponRuleCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CouponCatalogTest {
+
+    @Mock
+    private CouponDatabase couponDatabase;
+
+    @Spy
+    private CouponRuleCache couponRuleCache = new CouponRuleCache();
+
+    @InjectMocks
+    private CouponCatalog couponCatalog;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(couponDatabase.findAll()).thenReturn(Arrays.asList(
+                coupon(1L, "cart-wise", "{\"threshold\": 100, \"discount\": 10}"),
+                coupon(2L, "cart-wise", "{\"threshold\": 1000, \"discount\": 10}"),
+                coupon(3L, "product-wise", "{\"product_id\": 1, \"discount\": 20}"),
+                coupon(4L, "product-wise", "{\"product_id\": 9, \"discount\": 20}"),
+                coupon(5L, "bxgy", "{\"buy_products\": [{\"product_id\": 2, \"quantity\": 2}],"
+                        + " \"get_products\": [{\"product_id\": 3, \"quantity\": 1}], \"repetition_limit\": 1}")
+        ));
+    }
+
+    @Test
+    void testCandidatesComeFromCartProductsAndThreshold() {
+        CartView cart = cart(new CartItem(1L, 6, 50.0, 0.0), new CartItem(2L, 3, 30.0, 0.0));
+
+        assertEquals(List.of(1L, 3L, 5L), ids(couponCatalog.candidates(cart)));
+        verify(couponDatabase, times(1)).findAll();
+    }
+
+    @Test
+    void testCouponKeyedByManyCartProductsIsOneCandidate() {
+        couponCatalog.put(coupon(6L, "bxgy", "{\"buy_products\": [{\"product_id\": 7, \"quantity\": 1},"
+                + " {\"product_id\": 8, \"quantity\": 1}, {\"product_id\": 7, \"quantity\": 1}],"
+                + " \"get_products\": [{\"product_id\": 3, \"quantity\": 1}], \"repetition_limit\": 1}"));
+
+        assertEquals(List.of(6L), ids(couponCatalog.candidates(cart(new CartItem(8L, 1, 10.0, 0.0),
+                new CartItem(7L, 1, 10.0, 0.0)))));
+        assertEquals(List.of(6L), ids(couponCatalog.candidates(cart(new CartItem(8L, 1, 10.0, 0.0)))));
+    }
+
+    @Test
+    void testWritesKeepIndexInSync() {
+        CartView cart = cart(new CartItem(9L, 1, 10.0, 0.0));
+        assertEquals(List.of(4L), ids(couponCatalog.candidates(cart)));
+
+        Coupon updated = coupon(4L, "product-wise", "{\"product_id\": 7, \"discount\": 20}");
+        updated.setVersion(1L);
+        couponCatalog.put(updated);
+        assertTrue(couponCatalog.candidates(cart).isEmpty());
+
+        couponCatalog.put(coupon(6L, "cart-wise", "{\"threshold\": 5, \"discount\": 10}"));
+        assertEquals(List.of(6L), ids(couponCatalog.candidates(cart)));
+
+        couponCatalog.remove(6L);
+        assertTrue(couponCatalog.candidates(cart).isEmpty());
+        verify(couponDatabase, times(1)).findAll();
+    }
+
+    @Test
+    void testRuleCouponsAreIndexedByRequiredProducts() {
+        couponCatalog.put(coupon(6L, "rule", "{\"when\": {\"min_quantity\": {\"product_id\": 9, \"quantity\": 2}},"
+                + " \"then\": {\"amount_off\": 5}}"));
+        couponCatalog.put(coupon(7L, "rule", "{\"when\": {\"min_items\": 3}, \"then\": {\"percent_off\": 5}}"));
+
+        assertEquals(List.of(4L, 6L, 7L), ids(couponCatalog.candidates(cart(new CartItem(9L, 1, 10.0, 0.0)))));
+        assertEquals(List.of(7L), ids(couponCatalog.candidates(cart(new CartItem(8L, 1, 10.0, 0.0)))));
+
+        couponCatalog.remove(6L);
+        couponCatalog.remove(7L);
+        assertEquals(List.of(4L), ids(couponCatalog.candidates(cart(new CartItem(9L, 1, 10.0, 0.0)))));
+    }
+
+    @Test
+    void testCollectionWiseCouponsAreIndexedByCollection() {
+        couponRuleCache.getProductSets().add(3L, List.of(8L, 9L));
+        couponCatalog.put(coupon(6L, "collection-wise", "{\"collection_id\": 3, \"discount\": 10}"));
+
+        assertEquals(List.of(4L, 6L), ids(couponCatalog.candidates(cart(new CartItem(9L, 1, 10.0, 0.0)))));
+        assertTrue(couponCatalog.candidates(cart(new CartItem(7L, 1, 10.0, 0.0))).isEmpty());
+
+        couponRuleCache.getProductSets().add(3L, List.of(7L));
+        assertEquals(List.of(6L), ids(couponCatalog.candidates(cart(new CartItem(7L, 1, 10.0, 0.0)))));
+        couponRuleCache.getProductSets().remove(3L, List.of(8L, 9L));
+        assertEquals(List.of(4L), ids(couponCatalog.candidates(cart(new CartItem(9L, 1, 10.0, 0.0)))));
+
+        couponCatalog.remove(6L);
+        assertTrue(couponCatalog.candidates(cart(new CartItem(7L, 1, 10.0, 0.0))).isEmpty());
+    }
+
+    @Test
+    void testSnapshotsAreImmutableAndVersioned() {
+        CartView cart = cart(new CartItem(9L, 1, 10.0, 0.0));
+        CouponCatalog.Snapshot before = couponCatalog.snapshot();
+        assertEquals(1L, before.getVersion());
+
+        couponCatalog.put(coupon(6L, "cart-wise", "{\"threshold\": 5, \"discount\": 10}"));
+        couponCatalog.remove(4L);
+        CouponCatalog.Snapshot after = couponCatalog.snapshot();
+
+        assertEquals(3L, after.getVersion());
+        assertEquals(List.of(4L), ids(before.candidates(cart)));
+        assertNull(before.getCoupon(6L));
+        assertEquals(List.of(6L), ids(after.candidates(cart)));
+        assertNull(after.getCoupon(4L));
+        assertEquals(5, before.size());
+        assertEquals(5, after.size());
+    }
+
+    @Test
+    void testExpiredCouponsAreNotIndexed() {
+        CartView cart = cart(new CartItem(9L, 1, 10.0, 0.0));
+        Coupon expired = coupon(4L, "product-wise", "{\"product_id\": 9, \"discount\": 20}");
+        expired.setVersion(1L);
+        expired.setExpirationDate(LocalDateTime.now().minusDays(1));
+
+        couponCatalog.put(expired);
+
+        assertTrue(couponCatalog.candidates(cart).isEmpty());
+    }
+
+    @Test
+    void testCouponsDropOutAtTheirExpirationDate() throws InterruptedException {
+        CartView cart = cart(new CartItem(9L, 1, 10.0, 0.0));
+        Coupon expiring = coupon(4L, "product-wise", "{\"product_id\": 9, \"discount\": 20}");
+        expiring.setVersion(1L);
+        expiring.setExpirationDate(LocalDateTime.now().plusNanos(200_000_000L));
+
+        couponCatalog.put(expiring);
+        assertEquals(List.of(4L), ids(couponCatalog.candidates(cart)));
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!couponCatalog.candidates(cart).isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertTrue(couponCatalog.candidates(cart).isEmpty());
+        assertEquals(1, couponCatalog.expiredSize());
+        couponCatalog.close();
+    }
+
+    @Test
+    void testExpiredCouponsAreCountedFromTheSnapshot() {
+        Coupon expired = coupon(6L, "product-wise", "{\"product_id\": 9, \"discount\": 20}");
+        expired.setExpirationDate(LocalDateTime.now().minusDays(1));
+        Coupon unsupported = coupon(7L, "free-shipping", "{}");
+        unsupported.setExpirationDate(LocalDateTime.now().minusDays(1));
+
+        couponCatalog.putAll(List.of(expired, unsupported));
+        assertEquals(2, couponCatalog.expiredSize());
+        assertEquals(5, couponCatalog.size());
+
+        couponCatalog.remove(6L);
+        assertEquals(1, couponCatalog.expiredSize());
+        verify(couponDatabase, times(1)).findAll();
+    }
+
+    private static List<Long> ids(List<CouponCatalog.Entry> entries) {
+        return entries.stream().map(entry -> entry.getCoupon().getId()).sorted().toList();
+    }
+
+    private static Coupon coupon(Long id, String type, String details) {
+        Coupon coupon = new Coupon();
+        coupon.setId(id);
+        coupon.setVersion(0L);
+        coupon.setType(type);
+        coupon.setDetails(details);
+        return coupon;
+    }
+
+    private static CartView cart(CartItem... items) {
+        return CartView.of(Arrays.asList(items));
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement;
+
+import com.monkCommerce.CouponManagement.DTO.CouponRequest;
+import com.monkCommerce.CouponManagement.Entities.Coupon;
+import com.monkCommerce.CouponManagement.Services.CouponCatalog;
+import com.monkCommerce.CouponManagement.Services.CouponChangeTailer;
+import com.monkCommerce.CouponManagement.Services.CouponServices;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Path;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Two application contexts sharing one file-based H2 database, standing in for two instances
+ * behind a load balancer.
+ */
+class CouponChangePropagationTest {
+
+    @TempDir
+    Path databaseDir;
+
+    @Test
+    void testWritesOnOneNodeReachTheOtherNodesCatalog() throws InterruptedException {
+        try (ConfigurableApplicationContext writerNode = start("node-a");
+             ConfigurableApplicationContext readerNode = start("node-b")) {
+            CouponServices writer = writerNode.getBean(CouponServices.class);
+            CouponCatalog readerCatalog = readerNode.getBean(CouponCatalog.class);
+            assertEquals(0, readerCatalog.snapshot().size());
+
+            Long id = writer.createCoupon(request("{\"threshold\": 100, \"discount\": 10}")).getId();
+            awaitTrue(() -> readerCatalog.snapshot().getCoupon(id) != null);
+
+            writer.updateCoupon(id, request("{\"threshold\": 50, \"discount\": 10}"));
+            awaitTrue(() -> readerCatalog.snapshot().getCoupon(id).getVersion() == 1L);
+            Coupon replicated = readerCatalog.snapshot().getCoupon(id);
+            assertEquals("{\"threshold\": 50, \"discount\": 10}", replicated.getDetails());
+
+            writer.deleteCoupon(id);
+            awaitTrue(() -> readerCatalog.snapshot().getCoupon(id) == null);
+
+            CouponChangeTailer readerTailer = readerNode.getBean(CouponChangeTailer.class);
+            awaitTrue(() -> readerTailer.getApplied() == 3);
+            assertEquals(0, writerNode.getBean(CouponChangeTailer.class).getApplied());
+        }
+    }
+
+    private ConfigurableApplicationContext start(String nodeId) {
+        return new SpringApplicationBuilder(CouponManagementApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:file:" + databaseDir.resolve("coupons"),
+                        "spring.jpa.hibernate.ddl-auto=update",
+                        "spring.main.banner-mode=off",
+                        "coupon.node-id=" + nodeId,
+                        "coupon.changes.poll-interval-ms=50")
+                .run();
+    }
+
+    private static CouponRequest request(String details) {
+        CouponRequest request = new CouponRequest();
+        request.setType("cart-wise");
+        request.setDetails(details);
+        return request;
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement;
+
+import com.monkCommerce.CouponManagement.Database.CouponChangeDatabase;
+import com.monkCommerce.CouponManagement.Database.CouponDatabase;
+import com.monkCommerce.CouponManagement.Entities.Coupon;
+import com.monkCommerce.CouponManagement.Entities.CouponChange;
+import com.monkCommerce.CouponManagement.Services.CouponCatalog;
+import com.monkCommerce.CouponManagement.Services.CouponChangeLog;
+import com.monkCommerce.CouponManagement.Services.CouponChangeTailer;
+import com.monkCommerce.CouponManagement.Services.CouponRuleCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.util.ReflectionTestUtils.invokeMethod;
+import static org.springframework.test.util.ReflectionTestUtils.setField;
+
+class CouponChangeTailerTest {
+
+    @Mock
+    private CouponChangeDatabase couponChangeDatabase;
+
+    @Mock
+    private CouponDatabase couponDatabase;
+
+    @Mock
+    private CouponCatalog couponCatalog;
+
+    @Mock
+    private CouponRuleCache couponRuleCache;
+
+    @Mock
+    private CouponChangeLog couponChangeLog;
+
+    @InjectMocks
+    private CouponChangeTailer couponChangeTailer;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        setField(couponChangeTailer, "batchSize", 500);
+        setField(couponChangeTailer, "gapTimeoutMillis", 10_000L);
+        when(couponChangeLog.getNodeId()).thenReturn("self");
+        when(couponCatalog.version()).thenReturn(1L);
+        when(couponChangeDatabase.findAfter(anyLong(), any(Pageable.class))).thenReturn(List.of());
+    }
+
+    @Test
+    void testChangesFromOtherNodesRefreshTheCatalog() {
+        Coupon updated = coupon(10L);
+        when(couponChangeDatabase.findAfter(eq(0L), any(Pageable.class))).thenReturn(List.of(
+                change(1L, 10L, CouponChange.UPSERT, "other"),
+                change(2L, 11L, CouponChange.DELETE, "other"),
+                change(3L, 10L, CouponChange.UPSERT, "other"),
+                change(4L, 12L, CouponChange.UPSERT, "self")));
+        when(couponDatabase.findAllById(Set.of(10L, 11L))).thenReturn(List.of(updated));
+
+        assertEquals(4, (int) invokeMethod(couponChangeTailer, "pollOnce"));
+
+        verify(couponCatalog, times(1)).update(List.of(updated), Set.of(11L));
+        verify(couponRuleCache, times(1)).invalidate(11L);
+        assertEquals(4L, couponChangeTailer.getPosition());
+        assertEquals(2L, couponChangeTailer.getApplied());
+    }
+
+    @Test
+    void testLateCommitsIntoGapsAreStillApplied() {
+        Coupon late = coupon(20L);
+        when(couponChangeDatabase.findAfter(eq(0L), any(Pageable.class))).thenReturn(List.of(
+                change(1L, 10L, CouponChange.UPSERT, "self"),
+                change(4L, 11L, CouponChange.UPSERT, "self")));
+        invokeMethod(couponChangeTailer, "pollOnce");
+        assertEquals(2, couponChangeTailer.getPendingGaps());
+
+        when(couponChangeDatabase.findBySeqIn(argThat(seqs -> seqs.size() == 2 && seqs.containsAll(List.of(2L, 3L)))))
+                .thenReturn(List.of(change(3L, 20L, CouponChange.UPSERT, "other")));
+        when(couponDatabase.findAllById(Set.of(20L))).thenReturn(List.of(late));
+        invokeMethod(couponChangeTailer, "pollOnce");
+
+        verify(couponCatalog, times(1)).update(List.of(late), Set.of());
+        assertEquals(1, couponChangeTailer.getPendingGaps());
+        assertEquals(4L, couponChangeTailer.getPosition());
+
+        // Seq 2 never commits and is given up on after the timeout.
+        setField(couponChangeTailer, "gapTimeoutMillis", -1L);
+        invokeMethod(couponChangeTailer, "pollOnce");
+        assertEquals(0, couponChangeTailer.getPendingGaps());
+    }
+
+    private static CouponChange change(long seq, long couponId, String operation, String origin) {
+        CouponChange change = new CouponChange(couponId, operation, origin, LocalDateTime.now());
+        change.setSeq(seq);
+        return change;
+    }
+
+    private static Coupon coupon(Long id) {
+        Coupon coupon = new Coupon();
+        coupon.setId(id);
+        coupon.setVersion(1L);
+        coupon.setType("cart-wise");
+        coupon.setDetails("{\"threshold\": 100, \"discount\": 10}");
+        return coupon;
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement;
+
+import com.monkCommerce.CouponManagement.Database.CouponDatabase;
+import com.monkCommerce.CouponManagement.Entities.Coupon;
+import com.monkCommerce.CouponManagement.Entities.CouponProduct;
+import com.monkCommerce.CouponManagement.Entities.CouponType;
+import com.monkCommerce.CouponManagement.Services.CouponColumnsBackfill;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import(CouponColumnsBackfill.class)
+class CouponDatabaseTest {
+
+    @Autowired
+    private CouponDatabase couponDatabase;
+
+    @Autowired
+    private CouponColumnsBackfill couponColumnsBackfill;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private Long cartWise;
+    private Long productWise;
+    private Long bxgy;
+
+    @BeforeEach
+    void setUp() {
+        cartWise = persist("cart-wise", "{\"threshold\": 100, \"discount\": 10}", null);
+        productWise = persist("product-wise", "{\"product_id\": 1, \"discount\": 20}", null);
+        bxgy = persist("bxgy", "{\"buy_products\": [{\"product_id\": 2, \"quantity\": 3}],"
+                + " \"get_products\": [{\"product_id\": 3, \"quantity\": 1}], \"repetition_limit\": 2}", null);
+        persist("product-wise", "{\"product_id\": 1, \"discount\": 20}", LocalDateTime.now().minusDays(1));
+        persist("unknown", "{}", null);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void testRuleIsStoredInTypedColumns() {
+        Coupon coupon = couponDatabase.findById(bxgy).orElseThrow();
+
+        assertEquals(CouponType.BXGY, coupon.getRuleType());
+        assertEquals(2, coupon.getRepetitionLimit());
+        assertEquals(List.of(new CouponProduct(2L, 3, CouponProduct.Role.BUY), new CouponProduct(3L, 1, CouponProduct.Role.GET)),
+                coupon.getProducts());
+        assertEquals(10_000L, couponDatabase.findById(cartWise).orElseThrow().getThresholdMinor());
+        assertEquals(1, couponDatabase.countByRuleType(CouponType.UNSUPPORTED));
+    }
+
+    @Test
+    void testQueriesFilterInTheDatabase() {
+        LocalDateTime now = LocalDateTime.now();
+
+        assertEquals(List.of(productWise, bxgy), ids(couponDatabase.findTargetingAnyProduct(List.of(1L, 2L), now)));
+        // Get products alone do not make a bxgy coupon applicable.
+        assertTrue(couponDatabase.findTargetingAnyProduct(List.of(3L), now).isEmpty());
+        assertEquals(List.of(cartWise), ids(couponDatabase.findCartWiseReachedBy(10_000L, now)));
+        assertTrue(couponDatabase.findCartWiseReachedBy(9_999L, now).isEmpty());
+        assertEquals(5, couponDatabase.findPage(0L, null, null, null, Pageable.unpaged()).size());
+    }
+
+    @Test
+    void testUpdatesRewriteTheColumns() {
+        Coupon coupon = couponDatabase.findById(productWise).orElseThrow();
+        coupon.setDetails("{\"product_id\": 7, \"discount\": 20}");
+        entityManager.flush();
+        entityManager.clear();
+
+        LocalDateTime now = LocalDateTime.now();
+        assertEquals(List.of(productWise), ids(couponDatabase.findTargetingAnyProduct(List.of(7L), now)));
+        assertTrue(couponDatabase.findTargetingAnyProduct(List.of(1L), now).isEmpty());
+    }
+
+    @Test
+    void testBackfillMigratesExistingRows() {
+        entityManager.getEntityManager()
+                .createNativeQuery("update coupon set rule_type = null, threshold_minor = null, discount_basis_points = null")
+                .executeUpdate();
+        entityManager.getEntityManager().createNativeQuery("delete from coupon_product").executeUpdate();
+
+        assertEquals(5, couponColumnsBackfill.backfill());
+
+        assertEquals(List.of(cartWise), ids(couponDatabase.findCartWiseReachedBy(10_000L, LocalDateTime.now())));
+        assertEquals(List.of(productWise, bxgy), ids(couponDatabase.findTargetingAnyProduct(List.of(1L, 2L), LocalDateTime.now())));
+        assertEquals(0, couponColumnsBackfill.backfill());
+    }
+
+    private Long persist(String type, String details, LocalDateTime expirationDate) {
+        Coupon coupon = new Coupon();
+        coupon.setType(type);
+        coupon.setDetails(details);
+        coupon.setExpirationDate(expirationDate);
+        return entityManager.persist(coupon).getId();
+    }
+
+    private static List<Long> ids(List<Coupon> coupons) {
+        return coupons.stream().map(Coupon::getId).toList();
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.monkCommerce.CouponManagement.DTO.BulkImportResult;
+import com.monkCommerce.CouponManagement.Database.CouponDatabase;
+import com.monkCommerce.CouponManagement.Entities.Coupon;
+import com.monkCommerce.CouponManagement.Entities.CouponChange;
+import com.monkCommerce.CouponManagement.Entities.CouponType;
+import com.monkCommerce.CouponManagement.Services.CouponImportServices;
+import com.monkCommerce.CouponManagement.Services.CouponCatalog;
+import com.monkCommerce.CouponManagement.Services.CouponChangeLog;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CouponImportServicesTest {
+
+    @Mock
+    private CouponDatabase couponDatabase;
+
+    @Mock
+    private CouponCatalog couponCatalog;
+
+    @Mock
+    private CouponChangeLog couponChangeLog;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Spy
+    private ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    @InjectMocks
+    private CouponImportServices couponImportServices;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void testImportJsonReportsRowErrors() throws Exception {
+        String json = "["
+                + "{\"type\": \"cart-wise\", \"details\": \"{\\\"threshold\\\": 100, \\\"discount\\\": 10}\"},"
+                + "{\"type\": \"unknown\", \"details\": \"{}\"},"
+                + "{\"type\": \"product-wise\", \"details\": \"{\\\"discount\\\": 10}\"},"
+                + "{\"type\": \"product-wise\", \"details\": \"{\\\"product_id\\\": 1, \\\"discount\\\": 10}\","
+                + " \"expirationDate\": \"2030-01-01T00:00:00\"}"
+                + "]";
+
+        BulkImportResult result = couponImportServices.importJson(stream(json));
+
+        assertEquals(4, result.getReceived());
+        assertEquals(2, result.getImported());
+        assertEquals(2, result.getFailed());
+        assertEquals(2, result.getErrors().get(0).getRow());
+        assertEquals(3, result.getErrors().get(1).getRow());
+        verify(couponDatabase, times(1)).saveAll(anyList());
+        verify(entityManager, times(1)).flush();
+        verify(couponCatalog, times(1)).putAll(argThat(coupons -> coupons.size() == 2));
+        verify(couponChangeLog, times(1)).appendAll(eq(CouponChange.UPSERT), argThat(coupons -> coupons.size() == 2));
+    }
+
+    @Test
+    void testImportJsonAcceptsNestedDetails() throws Exception {
+        String json = "[{\"type\": \"product-wise\", \"details\": {\"product_id\": 1, \"discount\": 10}}]";
+
+        BulkImportResult result = couponImportServices.importJson(stream(json));
+
+        assertEquals(1, result.getImported());
+        verify(couponCatalog).putAll(argThat(coupons -> coupons.iterator().next().getDetails()
+                .equals("{\"product_id\":1,\"discount\":10}")));
+    }
+
+    @Test
+    void testValidatedRowsAreNotCompiledAgainOnInsert() throws Exception {
+        String json = "[{\"type\": \"product-wise\", \"details\": {\"product_id\": 7, \"discount\": 10}}]";
+
+        couponImportServices.importJson(stream(json));
+
+        verify(couponDatabase).saveAll(argThat(coupons -> {
+            Coupon coupon = coupons.iterator().next();
+            return coupon.getRuleType() == CouponType.PRODUCT_WISE
+                    && coupon.getProducts().get(0).getProductId() == 7L
+                    && coupon.hasRuleColumnsOf(coupon.getType(), coupon.getDetails());
+        }));
+    }
+
+    @Test
+    void testImportCsvInsertsInChunks() throws Exception {
+        StringBuilder csv = new StringBuilder("type,details,expirationDate\n");
+        for (int i = 0; i < 2500; i++) {
+            csv.append("product-wise,\"{\"\"product_id\"\": ").append(i).append(", \"\"discount\"\": 10}\",2030-01-01T00:00:00\n");
+        }
+
+        BulkImportResult result = couponImportServices.importCsv(stream(csv.toString()));
+
+        assertEquals(2500, result.getImported());
+        assertEquals(0, result.getFailed());
+        verify(couponDatabase, times(3)).saveAll(anyList());
+        verify(entityManager, times(3)).clear();
+    }
+
+    @Test
+    void testFailedChunkReportsEveryRow() throws Exception {
+        when(couponDatabase.saveAll(anyList())).thenThrow(new IllegalStateException("constraint violation"));
+        String json = "[{\"type\": \"cart-wise\", \"details\": \"{\\\"threshold\\\": 100, \\\"discount\\\": 10}\"},"
+                + "{\"type\": \"cart-wise\", \"details\": \"{\\\"threshold\\\": 200, \\\"discount\\\": 10}\"}]";
+
+        BulkImportResult result = couponImportServices.importJson(stream(json));
+
+        assertEquals(0, result.getImported());
+        assertEquals(2, result.getFailed());
+        verify(couponCatalog, never()).putAll(anyCollection());
+    }
+
+    private static ByteArrayInputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement;
+
+import com.monkCommerce.CouponManagement.Database.CouponRedemptionDatabase;
+import com.monkCommerce.CouponManagement.Database.CustomerRedemptionDatabase;
+import com.monkCommerce.CouponManagement.Entities.Coupon;
+import com.monkCommerce.CouponManagement.Entities.CouponRedemption;
+import com.monkCommerce.CouponManagement.Exceptions.RedemptionLimitException;
+import com.monkCommerce.CouponManagement.Services.CouponRedemptionServices;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.util.ReflectionTestUtils.setField;
+
+/**
+ * Runs against H2 without a test transaction, so concurrent reservations see each other's leases.
+ */
+@DataJpaTest
+@Import(CouponRedemptionServices.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CouponRedemptionServicesTest {
+
+    @Autowired
+    private CouponRedemptionServices couponRedemptionServices;
+
+    @Autowired
+    private CouponRedemptionDatabase couponRedemptionDatabase;
+
+    @Autowired
+    private CustomerRedemptionDatabase customerRedemptionDatabase;
+
+    @Test
+    void testGlobalCapIsNeverOversoldAcrossInstances() throws Exception {
+        Coupon coupon = coupon(100L, 1000L, null);
+        List<CouponRedemptionServices> instances = List.of(couponRedemptionServices, secondInstance());
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int thread = 0; thread < 16; thread++) {
+            CouponRedemptionServices instance = instances.get(thread % 2);
+            results.add(executor.submit(() -> {
+                int redeemed = 0;
+                while (true) {
+                    try {
+                        instance.commit(instance.reserve(coupon, null));
+                        redeemed++;
+                    } catch (RedemptionLimitException e) {
+                        return redeemed;
+                    }
+                }
+            }));
+        }
+        int total = 0;
+        for (Future<Integer> result : results) {
+            total += result.get();
+        }
+        executor.shutdown();
+
+        assertEquals(1000, total);
+        instances.forEach(CouponRedemptionServices::flush);
+        CouponRedemption redemption = couponRedemptionDatabase.findById(100L).orElseThrow();
+        assertEquals(1000, redemption.getLeased());
+        assertEquals(1000, redemption.getRedeemed());
+    }
+
+    @Test
+    void testReleasedAndUnusedRedemptionsGoBack() {
+        Coupon coupon = coupon(200L, 1000L, null);
+        CouponRedemptionServices instance = secondInstance();
+
+        CouponRedemptionServices.Reservation reservation = instance.reserve(coupon, null);
+        long available = instance.getAvailable(200L);
+        instance.release(reservation);
+        assertEquals(available + 1, instance.getAvailable(200L));
+
+        instance.commit(instance.reserve(coupon, null));
+        instance.close();
+
+        CouponRedemption redemption = couponRedemptionDatabase.findById(200L).orElseThrow();
+        assertEquals(1, redemption.getLeased());
+        assertEquals(1, redemption.getRedeemed());
+        assertEquals(0, instance.getAvailable(200L));
+    }
+
+    @Test
+    void testPerCustomerCap() {
+        Coupon coupon = coupon(300L, null, 2);
+
+        couponRedemptionServices.commit(couponRedemptionServices.reserve(coupon, "alice"));
+        CouponRedemptionServices.Reservation second = couponRedemptionServices.reserve(coupon, "alice");
+        assertThrows(RedemptionLimitException.class, () -> couponRedemptionServices.reserve(coupon, "alice"));
+
+        couponRedemptionServices.release(second);
+        couponRedemptionServices.commit(couponRedemptionServices.reserve(coupon, "alice"));
+        couponRedemptionServices.commit(couponRedemptionServices.reserve(coupon, "bob"));
+        assertThrows(RedemptionLimitException.class, () -> couponRedemptionServices.reserve(coupon, null));
+    }
+
+    @Test
+    void testCheckingDoesNotUseTheCaps() {
+        Coupon coupon = coupon(400L, 1L, 1);
+
+        for (int i = 0; i < 3; i++) {
+            couponRedemptionServices.check(coupon, "alice");
+        }
+        couponRedemptionServices.commit(couponRedemptionServices.reserve(coupon, "alice"));
+
+        assertThrows(RedemptionLimitException.class, () -> couponRedemptionServices.check(coupon, "alice"));
+        assertThrows(RedemptionLimitException.class, () -> couponRedemptionServices.check(coupon, "bob"));
+        assertThrows(RedemptionLimitException.class, () -> couponRedemptionServices.check(coupon, null));
+        assertEquals(1, couponRedemptionDatabase.findById(400L).orElseThrow().getLeased());
+    }
+
+    private CouponRedemptionServices secondInstance() {
+        CouponRedemptionServices instance = new CouponRedemptionServices();
+        setField(instance, "couponRedemptionDatabase", couponRedemptionDatabase);
+        setField(instance, "customerRedemptionDatabase", customerRedemptionDatabase);
+        setField(instance, "leaseSize", 100L);
+        setField(instance, "leaseIdleMillis", 30_000L);
+        return instance;
+    }
+
+    private static Coupon coupon(Long id, Long maxRedemptions, Integer maxPerCustomer) {
+        Coupon coupon = new Coupon();
+        coupon.setId(id);
+        coupon.setType("cart-wise");
+        coupon.setDetails("{\"threshold\": 100, \"discount\": 10}");
+        coupon.setMaxRedemptions(maxRedemptions);
+        coupon.setMaxRedemptionsPerCustomer(maxPerCustomer);
+        return coupon;
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement;
+
+import com.monkCommerce.CouponManagement.Entities.Cart;
+import com.monkCommerce.CouponManagement.Entities.CartItem;
+import com.monkCommerce.CouponManagement.Entities.Coupon;
+import com.monkCommerce.CouponManagement.Rules.BxGyRule;
+import com.monkCommerce.CouponManagement.Rules.CartView;
+import com.monkCommerce.CouponManagement.Rules.CartWiseRule;
+import com.monkCommerce.CouponManagement.Rules.CouponRule;
+import com.monkCommerce.CouponManagement.Rules.UnsupportedRule;
+import com.monkCommerce.CouponManagement.Services.CouponRuleCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CouponRuleCacheTest {
+
+    private CouponRuleCache couponRuleCache;
+
+    @BeforeEach
+    void setUp() {
+        couponRuleCache = new CouponRuleCache();
+    }
+
+    @Test
+    void testCompiledRuleIsReusedForSameVersion() {
+        Coupon coupon = coupon(1L, 0L, "cart-wise", "{\"threshold\": 100, \"discount\": 10}");
+
+        CouponRule first = couponRuleCache.get(coupon);
+        CouponRule second = couponRuleCache.get(coupon);
+
+        assertInstanceOf(CartWiseRule.class, first);
+        assertSame(first, second);
+    }
+
+    @Test
+    void testNewVersionIsRecompiled() {
+        Coupon coupon = coupon(1L, 0L, "cart-wise", "{\"threshold\": 100, \"discount\": 10}");
+        CouponRule first = couponRuleCache.get(coupon);
+
+        coupon.setDetails("{\"threshold\": 500, \"discount\": 10}");
+        coupon.setVersion(1L);
+        CouponRule second = couponRuleCache.get(coupon);
+
+        assertNotSame(first, second);
+        assertEquals(50_000L, ((CartWiseRule) second).getThreshold());
+        assertEquals(0, couponRuleCache.getHits());
+        assertEquals(2, couponRuleCache.getMisses());
+    }
+
+    @Test
+    void testInvalidDetailsCompileToUnsupportedRule() {
+        Coupon coupon = coupon(1L, 0L, "product-wise", "{\"discount\": 20}");
+
+        CouponRule rule = couponRuleCache.get(coupon);
+
+        assertInstanceOf(UnsupportedRule.class, rule);
+        assertEquals(1, couponRuleCache.getParseFailures("product-wise"));
+        assertFalse(rule.isApplicable(CartView.of(cart(new CartItem(1L, 1, 10.0, 0.0)).getItems())));
+    }
+
+    @Test
+    void testBxGyRuleAppliesCompiledQuantities() {
+        Coupon coupon = coupon(1L, 0L, "bxgy", "{\"buy_products\": [{\"product_id\": 1, \"quantity\": 3}],"
+                + " \"get_products\": [{\"product_id\": 3, \"quantity\": 1}], \"repetition_limit\": 2}");
+        Cart cart = cart(new CartItem(1L, 6, 50.0, 0.0), new CartItem(3L, 2, 25.0, 0.0));
+
+        CartView view = CartView.of(cart.getItems());
+
+        CouponRule rule = couponRuleCache.get(coupon);
+        rule.apply(cart, view);
+
+        assertInstanceOf(BxGyRule.class, rule);
+        assertTrue(rule.isApplicable(view));
+        assertEquals(50.0, cart.getTotalDiscount());
+        assertEquals(300.0, cart.getFinalPrice());
+    }
+
+    private static Coupon coupon(Long id, Long version, String type, String details) {
+        Coupon coupon = new Coupon();
+        coupon.setId(id);
+        coupon.setVersion(version);
+        coupon.setType(type);
+        coupon.setDetails(details);
+        return coupon;
+    }
+
+    private static Cart cart(CartItem... items) {
+        Cart cart = new Cart();
+        cart.setItems(Arrays.asList(items));
+        double totalPrice = 0.0;
+        for (CartItem item : items) {
+            totalPrice += item.getPrice() * item.getQuantity();
+        }
+        cart.setTotalPrice(totalPrice);
+        return cart;
+    }
+}
@@ -16,18 +16,27 @@
 
 package com.monkCommerce.CouponManagement;
 
+import com.monkCommerce.CouponManagement.DTO.CouponFilter;
 import com.monkCommerce.CouponManagement.DTO.CouponRequest;
 import com.monkCommerce.CouponManagement.Database.CouponDatabase;
 import com.monkCommerce.CouponManagement.Entities.Coupon;
+import com.monkCommerce.CouponManagement.Entities.CouponChange;
 import com.monkCommerce.CouponManagement.Exceptions.CouponExceptions;
+import com.monkCommerce.CouponManagement.Services.CouponCatalog;
+import com.monkCommerce.CouponManagement.Services.CouponChangeLog;
+import com.monkCommerce.CouponManagement.Services.CouponRuleCache;
 import com.monkCommerce.CouponManagement.Services.CouponServices;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -38,12 +47,25 @@ class couponServicesTest {
     @Mock
     private CouponDatabase couponDatabase;
 
+    @Mock
+    private CouponRuleCache couponRuleCache;
+
+    @Mock
+    private CouponCatalog couponCatalog;
+
+    @Mock
+    private CouponChangeLog couponChangeLog;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
     @InjectMocks
     private CouponServices couponServices;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        when(couponCatalog.snapshot()).thenReturn(mock(CouponCatalog.Snapshot.class));
     }
 
     @Test
@@ -68,6 +90,34 @@ class couponServicesTest {
         assertEquals("cart-wise", createdCoupon.getType());
         assertEquals("{\"threshold\": 100, \"discount\": 10}", createdCoupon.getDetails());
         assertEquals(LocalDateTime.of(2024, 12, 31, 23, 59, 59), createdCoupon.getExpirationDate());
+        verify(couponChangeLog, times(1)).append(CouponChange.UPSERT, coupon);
+        verify(transactionManager, times(1)).commit(any());
+        verify(couponCatalog, times(1)).put(coupon);
+    }
+
+    @Test
+    void testGetCouponsCapsPageSize() {
+        CouponFilter filter = new CouponFilter();
+        filter.setType("cart-wise");
+        Coupon coupon = new Coupon();
+        coupon.setId(11L);
+        when(couponDatabase.findPage(eq(10L), eq("cart-wise"), isNull(), isNull(), any(Pageable.class)))
+                .thenReturn(List.of(coupon));
+
+        List<Coupon> coupons = couponServices.getCoupons(10L, 5000, filter);
+
+        assertEquals(1, coupons.size());
+        verify(couponDatabase).findPage(eq(10L), eq("cart-wise"), isNull(), isNull(),
+                eq(PageRequest.of(0, CouponServices.MAX_PAGE_SIZE)));
+    }
+
+    @Test
+    void testGetAllCouponsIsNotPaged() {
+        CouponFilter filter = new CouponFilter();
+        when(couponDatabase.findPage(eq(0L), isNull(), isNull(), isNull(), eq(Pageable.unpaged())))
+                .thenReturn(List.of(new Coupon(), new Coupon()));
+
+        assertEquals(2, couponServices.getAllCoupons(filter).size());
     }
 
     @Test
@@ -135,5 +185,22 @@ class couponServicesTest {
         couponServices.deleteCoupon(1L);
 
         verify(couponDatabase, times(1)).delete(coupon);
+        verify(couponRuleCache, times(1)).invalidate(1L);
+        verify(couponCatalog, times(1)).remove(1L);
+        verify(couponChangeLog, times(1)).append(CouponChange.DELETE, coupon);
+    }
+
+    @Test
+    void testFailedWriteLeavesCatalogAlone() {
+        CouponRequest request = new CouponRequest();
+        request.setType("cart-wise");
+        request.setDetails("{\"threshold\": 100, \"discount\": 10}");
+        when(couponDatabase.save(any(Coupon.class))).thenThrow(new IllegalStateException("constraint violation"));
+
+        assertThrows(IllegalStateException.class, () -> couponServices.createCoupon(request));
+
+        verify(transactionManager, times(1)).rollback(any());
+        verify(couponChangeLog, never()).append(any(), any());
+        verify(couponCatalog, never()).put(any());
     }
 }
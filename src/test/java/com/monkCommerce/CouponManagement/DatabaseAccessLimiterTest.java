@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement;
+
+import com.monkCommerce.CouponManagement.Database.CouponDatabase;
+import com.monkCommerce.CouponManagement.Database.CouponRedemptionDatabase;
+import com.monkCommerce.CouponManagement.Database.DatabaseAccessLimiter;
+import com.monkCommerce.CouponManagement.Database.DatabaseConcurrencyConfig;
+import com.monkCommerce.CouponManagement.Entities.Coupon;
+import com.monkCommerce.CouponManagement.Exceptions.DatabaseBusyException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class DatabaseAccessLimiterTest {
+
+    @Test
+    void testPermitIsReturnedAfterEachCall() {
+        CouponDatabase couponDatabase = mock(CouponDatabase.class);
+        when(couponDatabase.findById(1L)).thenReturn(Optional.of(new Coupon()));
+        DatabaseAccessLimiter limiter = new DatabaseAccessLimiter(1, 10);
+        CouponDatabase limited = limiter.wrap(couponDatabase);
+
+        assertTrue(limited.findById(1L).isPresent());
+        assertTrue(limited.findById(1L).isPresent());
+        assertEquals(1, limiter.getAvailablePermits());
+    }
+
+    @Test
+    void testStreamHoldsItsPermitUntilClosed() {
+        CouponDatabase couponDatabase = mock(CouponDatabase.class);
+        when(couponDatabase.streamAll(null, null, null)).thenReturn(Stream.empty());
+        DatabaseAccessLimiter limiter = new DatabaseAccessLimiter(1, 10);
+        CouponDatabase limited = limiter.wrap(couponDatabase);
+
+        Stream<Coupon> coupons = limited.streamAll(null, null, null);
+        assertEquals(0, limiter.getAvailablePermits());
+        assertThrows(DatabaseBusyException.class, () -> limited.findById(1L));
+
+        coupons.close();
+        coupons.close();
+        assertEquals(1, limiter.getAvailablePermits());
+    }
+
+    @Test
+    void testFailedCallReleasesItsPermit() {
+        CouponDatabase couponDatabase = mock(CouponDatabase.class);
+        when(couponDatabase.findById(1L)).thenThrow(new IllegalStateException("connection reset"));
+        DatabaseAccessLimiter limiter = new DatabaseAccessLimiter(1, 10);
+        CouponDatabase limited = limiter.wrap(couponDatabase);
+
+        assertThrows(IllegalStateException.class, () -> limited.findById(1L));
+        assertEquals(1, limiter.getAvailablePermits());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testEveryRepositoryIsLimited() {
+        DatabaseAccessLimiter limiter = new DatabaseAccessLimiter(1, 10);
+        ObjectProvider<DatabaseAccessLimiter> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(limiter);
+        BeanPostProcessor postProcessor = DatabaseConcurrencyConfig.repositoryLimiter(provider);
+        CouponRedemptionDatabase redemptions = mock(CouponRedemptionDatabase.class);
+        Object other = new Object();
+
+        Object limited = postProcessor.postProcessAfterInitialization(redemptions, "couponRedemptionDatabase");
+
+        assertNotSame(redemptions, limited);
+        assertInstanceOf(CouponRedemptionDatabase.class, limited);
+        assertSame(other, postProcessor.postProcessAfterInitialization(other, "other"));
+    }
+
+    @Test
+    void testNoLimiterOnPlatformThreads() {
+        new ApplicationContextRunner()
+                .withUserConfiguration(DatabaseConcurrencyConfig.class)
+                .withPropertyValues("coupon.database.max-concurrency=10")
+                .run(context -> assertTrue(context.getBeansOfType(DatabaseAccessLimiter.class).isEmpty()));
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement;
+
+import com.monkCommerce.CouponManagement.Entities.Cart;
+import com.monkCommerce.CouponManagement.Entities.CartItem;
+import com.monkCommerce.CouponManagement.Entities.Coupon;
+import com.monkCommerce.CouponManagement.Rules.CartView;
+import com.monkCommerce.CouponManagement.Rules.CouponRule;
+import com.monkCommerce.CouponManagement.Rules.DslRule;
+import com.monkCommerce.CouponManagement.Rules.UnsupportedRule;
+import com.monkCommerce.CouponManagement.Services.CouponRuleCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DslRuleTest {
+
+    private CouponRuleCache couponRuleCache;
+
+    @BeforeEach
+    void setUp() {
+        couponRuleCache = new CouponRuleCache();
+    }
+
+    @Test
+    void testHighestReachedTierApplies() {
+        CouponRule rule = rule("{\"then\": {\"tiers\": [{\"min_total\": 100, \"percent_off\": 5},"
+                + " {\"min_total\": 500, \"percent_off\": 15}, {\"min_total\": 200, \"percent_off\": 10}]}}");
+
+        assertEquals(0L, rule.discount(view(new CartItem(1L, 1, 50.0, 0.0))));
+        assertEquals(3_000L, rule.discount(view(new CartItem(1L, 3, 100.0, 0.0))));
+        assertEquals(9_000L, rule.discount(view(new CartItem(1L, 6, 100.0, 0.0))));
+        assertNull(((DslRule) rule).getIndexProducts());
+    }
+
+    @Test
+    void testAmountOffCartIsCappedAtCartTotal() {
+        CouponRule rule = rule("{\"when\": {\"min_items\": 2}, \"then\": {\"amount_off\": 50}}");
+
+        assertFalse(rule.isApplicable(view(new CartItem(1L, 1, 30.0, 0.0))));
+        assertEquals(4_000L, rule.discount(view(new CartItem(1L, 2, 20.0, 0.0))));
+        assertEquals(5_000L, rule.discount(view(new CartItem(1L, 2, 20.0, 0.0), new CartItem(2L, 1, 60.0, 0.0))));
+    }
+
+    @Test
+    void testMinQuantityProductDiscountIsSplitAcrossLines() {
+        CouponRule rule = rule("{\"when\": {\"min_quantity\": {\"product_id\": 7, \"quantity\": 3}},"
+                + " \"then\": {\"percent_off\": 10, \"products\": [7]}}");
+        Cart cart = cart(new CartItem(7L, 2, 100.0, 0.0), new CartItem(8L, 1, 50.0, 0.0),
+                new CartItem(7L, 1, 100.0, 0.0));
+        CartView view = CartView.of(cart.getItems());
+
+        assertFalse(rule.isApplicable(view(new CartItem(7L, 2, 100.0, 0.0))));
+        rule.apply(cart, view);
+
+        assertEquals(20.0, cart.getItems().get(0).getTotalDiscount());
+        assertEquals(0.0, cart.getItems().get(1).getTotalDiscount());
+        assertEquals(10.0, cart.getItems().get(2).getTotalDiscount());
+        assertEquals(30.0, cart.getTotalDiscount());
+        assertEquals(320.0, cart.getFinalPrice());
+        assertArrayEquals(new long[]{7L}, ((DslRule) rule).getIndexProducts());
+    }
+
+    @Test
+    void testComboNeedsEveryCondition() {
+        CouponRule rule = rule("{\"when\": {\"all\": [{\"min_quantity\": {\"product_id\": 1, \"quantity\": 1}},"
+                + " {\"min_quantity\": {\"product_id\": 2, \"quantity\": 1}}, {\"not\": {\"min_total\": 1000}}]},"
+                + " \"then\": {\"amount_off\": 5, \"products\": [1, 2]}}");
+
+        assertFalse(rule.isApplicable(view(new CartItem(1L, 1, 10.0, 0.0))));
+        assertFalse(rule.isApplicable(view(new CartItem(1L, 1, 10.0, 0.0), new CartItem(2L, 100, 10.0, 0.0))));
+        assertEquals(1_500L, rule.discount(view(new CartItem(1L, 1, 10.0, 0.0), new CartItem(2L, 2, 10.0, 0.0))));
+        assertEquals(1, ((DslRule) rule).getIndexProducts().length);
+    }
+
+    @Test
+    void testAnyIndexesUnderEveryAlternative() {
+        CouponRule rule = rule("{\"when\": {\"any\": [{\"min_quantity\": {\"product_id\": 1, \"quantity\": 2}},"
+                + " {\"min_quantity\": {\"product_id\": 2, \"quantity\": 2}}]}, \"then\": {\"percent_off\": 10}}");
+
+        assertTrue(rule.isApplicable(view(new CartItem(2L, 2, 10.0, 0.0))));
+        assertArrayEquals(new long[]{1L, 2L}, ((DslRule) rule).getIndexProducts());
+    }
+
+    @Test
+    void testInvalidRulesCompileToUnsupportedRule() {
+        String[] invalid = {
+                "{\"when\": {\"min_total\": 10}}",
+                "{\"then\": {\"percent_off\": 120}}",
+                "{\"when\": {\"between\": [1, 2]}, \"then\": {\"amount_off\": 5}}",
+                "{\"when\": {\"all\": []}, \"then\": {\"amount_off\": 5}}",
+                "{\"then\": {\"tiers\": []}}"};
+        for (int i = 0; i < invalid.length; i++) {
+            Coupon coupon = coupon(invalid[i]);
+            coupon.setId((long) i);
+            assertInstanceOf(UnsupportedRule.class, couponRuleCache.get(coupon), invalid[i]);
+        }
+        assertEquals(5, couponRuleCache.getParseFailures("rule"));
+    }
+
+    private CouponRule rule(String details) {
+        CouponRule rule = couponRuleCache.get(coupon(details));
+        assertInstanceOf(DslRule.class, rule);
+        return rule;
+    }
+
+    private static Coupon coupon(String details) {
+        Coupon coupon = new Coupon();
+        coupon.setId(1L);
+        coupon.setVersion(0L);
+        coupon.setType("rule");
+        coupon.setDetails(details);
+        return coupon;
+    }
+
+    private static CartView view(CartItem... items) {
+        return CartView.of(Arrays.asList(items));
+    }
+
+    private static Cart cart(CartItem... items) {
+        Cart cart = new Cart();
+        cart.setItems(Arrays.asList(items));
+        double totalPrice = 0.0;
+        for (CartItem item : items) {
+            totalPrice += item.getPrice() * item.getQuantity();
+        }
+        cart.setTotalPrice(totalPrice);
+        return cart;
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.AppenderBase;
+import ch.qos.logback.core.spi.FilterReply;
+import com.monkCommerce.CouponManagement.Logging.DebugSamplingFilter;
+import com.monkCommerce.CouponManagement.Logging.MeteredAsyncAppender;
+import com.monkCommerce.CouponManagement.Logging.RequestLoggingInterceptor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoggingPipelineTest {
+
+    private final LoggerContext context = new LoggerContext();
+
+    @BeforeEach
+    void setUp() {
+        context.setMDCAdapter(MDC.getMDCAdapter());
+        context.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        MDC.clear();
+        context.stop();
+    }
+
+    @Test
+    void testDebugIsSampledPerRequestAndEndpoint() {
+        DebugSamplingFilter filter = new DebugSamplingFilter();
+        filter.setDefaultRate(1.0);
+        filter.addRate("POST /cart/applicable-coupons=0.1");
+        Logger logger = context.getLogger("test");
+
+        assertEquals(FilterReply.NEUTRAL, filter.decide(null, logger, Level.DEBUG, "outside a request", null, null));
+
+        MDC.put(RequestLoggingInterceptor.ENDPOINT, "POST /cart/applicable-coupons");
+        int sampled = 0;
+        for (int request = 0; request < 10_000; request++) {
+            MDC.put(RequestLoggingInterceptor.REQUEST_ID, Long.toHexString(request * 7919L));
+            FilterReply first = filter.decide(null, logger, Level.DEBUG, "first", null, null);
+            assertEquals(first, filter.decide(null, logger, Level.DEBUG, "second", null, null));
+            assertEquals(FilterReply.NEUTRAL, filter.decide(null, logger, Level.INFO, "info", null, null));
+            if (first == FilterReply.NEUTRAL) {
+                sampled++;
+            }
+        }
+        assertTrue(sampled > 800 && sampled < 1200, "sampled " + sampled);
+
+        MDC.put(RequestLoggingInterceptor.ENDPOINT, "POST /cart/best-coupon");
+        assertEquals(FilterReply.NEUTRAL, filter.decide(null, logger, Level.DEBUG, "default rate", null, null));
+    }
+
+    @Test
+    void testFullQueueDropsInsteadOfBlocking() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        AppenderBase<ILoggingEvent> slow = new AppenderBase<>() {
+            @Override
+            protected void append(ILoggingEvent event) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        slow.setContext(context);
+        slow.start();
+        MeteredAsyncAppender async = new MeteredAsyncAppender();
+        async.setContext(context);
+        async.setName("TEST_ASYNC");
+        async.setQueueSize(10);
+        async.setNeverBlock(true);
+        async.addAppender(slow);
+        async.start();
+        Logger logger = context.getLogger("test");
+        logger.addAppender(async);
+
+        for (int i = 0; i < 100; i++) {
+            logger.warn("event {}", i);
+            logger.info("event {}", i);
+        }
+        release.countDown();
+
+        MeteredAsyncAppender.Stats stats = MeteredAsyncAppender.stats().get("TEST_ASYNC");
+        assertTrue(stats.getOverflowed() > 0);
+        assertTrue(stats.getDiscarded() > 0);
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement;
+
+import com.monkCommerce.CouponManagement.Entities.Cart;
+import com.monkCommerce.CouponManagement.Entities.CartItem;
+import com.monkCommerce.CouponManagement.Entities.Coupon;
+import com.monkCommerce.CouponManagement.Rules.CartView;
+import com.monkCommerce.CouponManagement.Rules.CouponRule;
+import com.monkCommerce.CouponManagement.Rules.CouponRuleCompiler;
+import com.monkCommerce.CouponManagement.Rules.Money;
+import com.monkCommerce.CouponManagement.Rules.UnsupportedRule;
+import com.monkCommerce.CouponManagement.Services.CouponRuleCache;
+import org.junit.jupiter.api.Test;
+
+import java.math.RoundingMode;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoneyTest {
+
+    @Test
+    void testMulDivRoundsLikeBigDecimal() {
+        assertEquals(13, Money.mulDiv(25, 1, 2, RoundingMode.HALF_UP));
+        assertEquals(12, Money.mulDiv(25, 1, 2, RoundingMode.HALF_EVEN));
+        assertEquals(12, Money.mulDiv(25, 1, 2, RoundingMode.HALF_DOWN));
+        assertEquals(12, Money.mulDiv(25, 1, 2, RoundingMode.DOWN));
+        assertEquals(-13, Money.mulDiv(-25, 1, 2, RoundingMode.HALF_UP));
+        assertEquals(-13, Money.mulDiv(-25, 1, 2, RoundingMode.FLOOR));
+        assertEquals(-12, Money.mulDiv(-25, 1, 2, RoundingMode.CEILING));
+        assertEquals(Long.MAX_VALUE / 3, Money.mulDiv(Long.MAX_VALUE, 2, 6, RoundingMode.DOWN));
+        assertThrows(ArithmeticException.class, () -> Money.mulDiv(1, 1, 3, RoundingMode.UNNECESSARY));
+    }
+
+    @Test
+    void testCartWiseDiscountIsExactInMinorUnits() throws Exception {
+        CouponRule rule = CouponRuleCompiler.compile(coupon("cart-wise", "{\"threshold\": 0.1, \"discount\": 10}"));
+        Cart cart = cart(new CartItem(1L, 3, 0.1, 0.0), new CartItem(2L, 1, 0.2, 0.0));
+        CartView view = CartView.of(cart.getItems());
+
+        rule.apply(cart, view);
+
+        assertEquals(50, view.getTotalPrice());
+        assertEquals(0.05, cart.getTotalDiscount());
+        assertEquals(0.45, cart.getFinalPrice());
+    }
+
+    @Test
+    void testProductWiseRoundingIsConfigurableAndSplitAcrossLines() throws Exception {
+        CouponRule halfUp = CouponRuleCompiler.compile(coupon("product-wise", "{\"product_id\": 1, \"discount\": 10}"));
+        CouponRule down = CouponRuleCompiler.compile(
+                coupon("product-wise", "{\"product_id\": 1, \"discount\": 10, \"rounding\": \"DOWN\"}"));
+        Cart cart = cart(new CartItem(1L, 1, 0.25, 0.0), new CartItem(1L, 1, 0.20, 0.0));
+        CartView view = CartView.of(cart.getItems());
+
+        assertEquals(5, halfUp.discount(view));
+        assertEquals(4, down.discount(view));
+
+        halfUp.apply(cart, view);
+        assertEquals(0.03, cart.getItems().get(0).getTotalDiscount());
+        assertEquals(0.02, cart.getItems().get(1).getTotalDiscount());
+        assertEquals(0.05, cart.getTotalDiscount());
+        assertEquals(0.4, cart.getFinalPrice());
+    }
+
+    @Test
+    void testUnknownRoundingIsRejected() {
+        Coupon coupon = coupon("cart-wise", "{\"threshold\": 1, \"discount\": 10, \"rounding\": \"SOMETIMES\"}");
+
+        assertThrows(IllegalArgumentException.class, () -> CouponRuleCompiler.compile(coupon));
+        assertInstanceOf(UnsupportedRule.class, new CouponRuleCache().get(coupon));
+    }
+
+    private static Coupon coupon(String type, String details) {
+        Coupon coupon = new Coupon();
+        coupon.setId(1L);
+        coupon.setVersion(0L);
+        coupon.setType(type);
+        coupon.setDetails(details);
+        return coupon;
+    }
+
+    private static Cart cart(CartItem... items) {
+        Cart cart = new Cart();
+        cart.setItems(List.of(items));
+        cart.setTotalPrice(Money.toMajor(CartView.of(cart.getItems()).getTotalPrice()));
+        return cart;
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2024 Shaik Iftekhar Ahmed
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkCommerce.CouponManagement;
+
+import com.monkCommerce.CouponManagement.Database.ProductCollectionDatabase;
+import com.monkCommerce.CouponManagement.Database.ProductCollectionMemberDatabase;
+import com.monkCommerce.CouponManagement.Entities.CartItem;
+import com.monkCommerce.CouponManagement.Entities.ProductCollection;
+import com.monkCommerce.CouponManagement.Entities.ProductCollectionMember;
+import com.monkCommerce.CouponManagement.Exceptions.CouponExceptions;
+import com.monkCommerce.CouponManagement.Rules.CartView;
+import com.monkCommerce.CouponManagement.Services.AppliedCartCache;
+import com.monkCommerce.CouponManagement.Services.CouponRuleCache;
+import com.monkCommerce.CouponManagement.Services.ProductCollectionServices;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.util.ReflectionTestUtils.invokeMethod;
+
+class ProductCollectionServicesTest {
+
+    @Mock
+    private ProductCollectionDatabase productCollectionDatabase;
+
+    @Mock
+    private ProductCollectionMemberDatabase productCollectionMemberDatabase;
+
+    @Spy
+    private CouponRuleCache couponRuleCache = new CouponRuleCache();
+
+    @Mock
+    private AppliedCartCache appliedCartCache;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @InjectMocks
+    private ProductCollectionServices productCollectionServices;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(productCollectionServices, "entityManager", entityManager);
+    }
+
+    @Test
+    void testAddProductsStoresOnlyNewMembersAndUpdatesTheBitmap() {
+        when(productCollectionMemberDatabase.findProductIdsIn(eq(5L), anyCollection())).thenReturn(List.of(2L));
+        when(productCollectionDatabase.findVersion(5L)).thenReturn(1L);
+
+        ProductCollection collection = productCollectionServices.addProducts(5L, List.of(1L, 2L, 3L, 1L));
+
+        ArgumentCaptor<ProductCollectionMember> members = ArgumentCaptor.forClass(ProductCollectionMember.class);
+        verify(entityManager, times(2)).persist(members.capture());
+        assertEquals(List.of(1L, 3L), members.getAllValues().stream().map(ProductCollectionMember::getProductId).toList());
+        verify(productCollectionDatabase).insertIfAbsent(5L);
+        verify(appliedCartCache).invalidateAll();
+        assertEquals(1L, collection.getVersion());
+        assertEquals(3, collection.getSize());
+        assertTrue(couponRuleCache.getProductSets().get(5L).intersects(CartView.of(List.of(new CartItem(3L, 1, 10.0, 0.0)))));
+    }
+
+    @Test
+    void testRemovingFromAnUnknownCollectionFails() {
+        when(productCollectionDatabase.incrementVersion(6L)).thenReturn(0);
+
+        assertThrows(CouponExceptions.class, () -> productCollectionServices.removeProducts(6L, List.of(1L)));
+        verify(productCollectionMemberDatabase, never()).deleteProducts(any(), any());
+    }
+
+    @Test
+    void testRefreshOnlyReloadsChangedCollections() {
+        when(productCollectionDatabase.findAll()).thenReturn(List.of(new ProductCollection(5L, 1L), new ProductCollection(6L, 4L)));
+        when(productCollectionMemberDatabase.findProductIds(5L)).thenReturn(List.of(1L, 2L));
+        when(productCollectionMemberDatabase.findProductIds(6L)).thenReturn(List.of(7L));
+        assertEquals(2, (int) invokeMethod(productCollectionServices, "refresh"));
+
+        when(productCollectionDatabase.findAll()).thenReturn(List.of(new ProductCollection(5L, 2L), new ProductCollection(6L, 4L)));
+        when(productCollectionMemberDatabase.findProductIds(5L)).thenReturn(List.of(2L));
+        assertEquals(1, (int) invokeMethod(productCollectionServices, "refresh"));
+
+        assertEquals(1, couponRuleCache.getProductSets().get(5L).size());
+        verify(productCollectionMemberDatabase, times(1)).findProductIds(6L);
+    }
+
+    @Test
+    void testLocalWriteAfterARemoteOneStillReloads() {
+        when(productCollectionDatabase.findAll()).thenReturn(List.of(new ProductCollection(5L, 1L)));
+        when(productCollectionMemberDatabase.findProductIds(5L)).thenReturn(List.of(1L));
+        invokeMethod(productCollectionServices, "refresh");
+
+        // Another instance wrote version 2 before this instance wrote version 3.
+        when(productCollectionMemberDatabase.findProductIdsIn(eq(5L), anyCollection())).thenReturn(List.of());
+        when(productCollectionDatabase.findVersion(5L)).thenReturn(3L);
+        productCollectionServices.addProducts(5L, List.of(3L));
+
+        when(productCollectionDatabase.findAll()).thenReturn(List.of(new ProductCollection(5L, 3L)));
+        when(productCollectionMemberDatabase.findProductIds(5L)).thenReturn(List.of(1L, 2L, 3L));
+        assertEquals(1, (int) invokeMethod(productCollectionServices, "refresh"));
+        assertEquals(3, couponRuleCache.getProductSets().get(5L).size());
+    }
+}